@@ -1,14 +1,66 @@
 package com.voltrex.bank.configs;
 
+import com.voltrex.bank.services.BoundedPasswordEncoder;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import javax.sql.DataSource;
+
 @Configuration
 public class AppConfig {
+    // BCrypt runs on its own bounded pool; surplus logins get 429 instead of taking request threads
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.bcrypt.strength:10}") int strength,
+                                           @Value("${auth.hashing.threads:0}") int threads,
+                                           @Value("${auth.hashing.queue-capacity:32}") int queueCapacity,
+                                           @Value("${auth.hashing.timeout-ms:3000}") long timeoutMs,
+                                           MeterRegistry registry) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(strength, poolSize, queueCapacity, timeoutMs, registry);
+    }
+
+    // sends outbox emails; sized independently of the request threads
+    @Bean
+    public TaskExecutor outboxExecutor(@Value("${outbox.dispatcher-threads:4}") int threads, Environment env) {
+        return boundedExecutor("outbox-", threads, env);
+    }
+
+    // month-end partition workers; each holds one connection at a time, so the default of half the
+    // Hikari pool leaves the other half to API requests
+    @Bean
+    public AsyncTaskExecutor monthlyExecutor(@Value("${monthly.workers:0}") int workers, DataSource dataSource, Environment env) {
+        if (workers <= 0) {
+            int poolSize = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+            workers = Math.max(1, poolSize / 2);
+        }
+        return boundedExecutor("monthly-worker-", workers, env);
+    }
+
+    // at most `threads` tasks at once: virtual threads under a concurrency limit when they are
+    // enabled, otherwise a fixed platform pool
+    private static AsyncTaskExecutor boundedExecutor(String prefix, int threads, Environment env) {
+        if (Threading.VIRTUAL.isActive(env)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(prefix);
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(threads);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix(prefix);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
     }
 }
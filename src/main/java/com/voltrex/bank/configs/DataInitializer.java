@@ -10,7 +10,6 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.math.BigDecimal;
@@ -24,7 +23,7 @@ public class DataInitializer {
     @Bean
     public CommandLineRunner initDatabase(UserRepository userRepo,
                                           AccountRepository accountRepo,
-                                          BCryptPasswordEncoder passwordEncoder) {
+                                          PasswordEncoder passwordEncoder) {
         return args -> {
             if (userRepo.count() == 0) {
                 // Create Voltrex Bank user
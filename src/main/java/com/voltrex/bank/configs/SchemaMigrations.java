@@ -0,0 +1,117 @@
+package com.voltrex.bank.configs;
+
+import com.voltrex.bank.entities.JobRun;
+import com.voltrex.bank.entities.OutboxMessage;
+import com.voltrex.bank.repositories.JobRunRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Data migrations that have to run after Hibernate's ddl-auto has added the columns they fill.
+ *
+ * Each step is recorded as a COMPLETED job_run named "migration:<name>" (period 0/0) and skipped on
+ * later starts. Steps must be idempotent: two nodes starting together may both run one, and a node
+ * killed halfway simply resumes on its next start.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SchemaMigrations implements ApplicationRunner {
+
+    private static final String JOB_PREFIX = "migration:";
+    private static final long CHUNK = 10_000;
+    private static final Pattern TEMP_PASSWORD_LINE = Pattern.compile("Temporary Password: \\S*");
+
+    private final JdbcTemplate jdbc;
+    private final JobRunRepository jobRunRepo;
+    private final PlatformTransactionManager txManager;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Map<String, Runnable> steps = new LinkedHashMap<>();
+        steps.put("V1-transaction-owner-ids", this::backfillTransactionOwners);
+        steps.put("V2-outbox-temp-passwords", this::redactOutboxPasswords);
+
+        steps.forEach((name, step) -> {
+            if (jobRunRepo.findByJobNameAndPeriodYearAndPeriodMonth(JOB_PREFIX + name, 0, 0).isPresent()) return;
+            log.info("Running migration {}", name);
+            LocalDateTime startedAt = LocalDateTime.now();
+            step.run();
+            record(name, startedAt);
+            log.info("Migration {} completed", name);
+        });
+    }
+
+    // copy account owners onto transaction_record.from_owner_id/to_owner_id, one id range per
+    // transaction so the table is never locked as a whole
+    private void backfillTransactionOwners() {
+        Long maxId = jdbc.queryForObject("SELECT MAX(id) FROM transaction_record", Long.class);
+        if (maxId == null) return;
+
+        TransactionTemplate tt = new TransactionTemplate(txManager);
+        for (long start = 0; start <= maxId; start += CHUNK) {
+            long lo = start, hi = start + CHUNK - 1;
+            tt.executeWithoutResult(status -> {
+                jdbc.update("""
+                        UPDATE transaction_record SET from_owner_id =
+                            (SELECT a.owner_id FROM account a WHERE a.id = transaction_record.from_account_id)
+                        WHERE from_owner_id IS NULL AND from_account_id IS NOT NULL AND id BETWEEN ? AND ?
+                        """, lo, hi);
+                jdbc.update("""
+                        UPDATE transaction_record SET to_owner_id =
+                            (SELECT a.owner_id FROM account a WHERE a.id = transaction_record.to_account_id)
+                        WHERE to_owner_id IS NULL AND to_account_id IS NOT NULL AND id BETWEEN ? AND ?
+                        """, lo, hi);
+            });
+        }
+    }
+
+    // approval emails queued before credential_user_id existed hold the temporary password itself;
+    // swap it for the placeholder so pending ones get a fresh password at send time and FAILED
+    // ones no longer keep a secret around
+    private void redactOutboxPasswords() {
+        TransactionTemplate tt = new TransactionTemplate(txManager);
+        tt.executeWithoutResult(status -> jdbc.query("""
+                SELECT m.id, m.body, u.id AS user_id FROM outbox_message m
+                LEFT JOIN bank_user u ON u.email = m.recipient
+                WHERE m.event_type = 'UserApprovedEvent' AND m.credential_user_id IS NULL
+                """, rs -> {
+            String body = TEMP_PASSWORD_LINE.matcher(rs.getString("body"))
+                    .replaceAll(Matcher.quoteReplacement("Temporary Password: " + OutboxMessage.TEMP_PASSWORD));
+            long userId = rs.getLong("user_id");
+            if (rs.wasNull()) {
+                // nobody to issue a password to: keep the row for the record but never send it
+                jdbc.update("UPDATE outbox_message SET body = ?, status = 'FAILED' WHERE id = ?", body, rs.getLong("id"));
+            } else {
+                jdbc.update("UPDATE outbox_message SET body = ?, credential_user_id = ? WHERE id = ?", body, userId, rs.getLong("id"));
+            }
+        }));
+    }
+
+    private void record(String name, LocalDateTime startedAt) {
+        JobRun run = new JobRun();
+        run.setJobName(JOB_PREFIX + name);
+        run.setStartedAt(startedAt);
+        run.setFinishedAt(LocalDateTime.now());
+        run.setStatus("COMPLETED");
+        try {
+            jobRunRepo.saveAndFlush(run);
+        } catch (DataIntegrityViolationException ex) {
+            // another node finished the same step first
+            log.info("Migration {} already recorded by another node", name);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.voltrex.bank.configs;
 
 import com.voltrex.bank.filter.JwtFilter;
+import com.voltrex.bank.filter.RateLimitFilter;
+import com.voltrex.bank.services.JwtService;
+import com.voltrex.bank.services.RateLimiter;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,21 +21,35 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
 
     private final JwtFilter jwtFilter;
+    private final RateLimiter rateLimiter;
+    private final JwtService jwtService;
 
     @Bean
     SecurityFilterChain securityFilterChain(HttpSecurity httpSecurity) throws Exception{
         httpSecurity
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()
+                        .requestMatchers("/.well-known/jwks.json").permitAll()
+                        // maintenance operations need an admin login (security.admin-crns); the older
+                        // approval endpoints below are still open
+                        .requestMatchers("/api/admin/daily-usage/**").hasRole("ADMIN")
+                        .requestMatchers("/api/admin/accounts/*/stripes").hasRole("ADMIN")
+                        .requestMatchers("/api/admin/archive/**").hasRole("ADMIN")
+                        .requestMatchers("/api/admin/account-summary/**").hasRole("ADMIN")
+                        .requestMatchers("/api/admin/monthly/**").hasRole("ADMIN")
                         .requestMatchers("/api/admin/**").permitAll()
                         .requestMatchers("/api/dev/**").permitAll()
+                        // scraped by Prometheus; keep the actuator port off the public network
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
 //                        .requestMatchers("/api/admin/**").permitAll()
 //                        .requestMatchers("/approve").hasAnyRole("ADMIN")
                         .anyRequest().authenticated())
                 .csrf(csrfConfig -> csrfConfig.disable())
                 .sessionManagement(sessionConfig -> sessionConfig
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+                // built here rather than as a bean so Boot does not also register it as a servlet filter
+                .addFilterBefore(new RateLimitFilter(rateLimiter, jwtService), JwtFilter.class);
 
         return httpSecurity.build();
     }
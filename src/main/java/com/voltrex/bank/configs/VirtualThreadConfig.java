@@ -0,0 +1,47 @@
+package com.voltrex.bank.configs;
+
+import com.voltrex.bank.filter.ConnectionBulkheadFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Active only with spring.threads.virtual.enabled=true on Java 21+ (build with -Pjava21). Spring
+ * Boot then runs Tomcat requests and @Scheduled jobs (MonthlyService, outbox, stripe consolidation)
+ * on virtual threads, and AppConfig switches the outbox and monthly worker pools over as well.
+ *
+ * Almost every request holds a JDBC connection, so the Hikari pool becomes the real concurrency
+ * limit. The bulkhead admits at most max-in-flight API requests (default twice the pool size) and
+ * turns the rest away quickly instead of letting them queue for connection-timeout.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class VirtualThreadConfig {
+
+    @Bean
+    public FilterRegistrationBean<ConnectionBulkheadFilter> connectionBulkheadFilter(
+            DataSource dataSource,
+            @Value("${virtual-threads.max-in-flight:0}") int maxInFlight,
+            @Value("${virtual-threads.admission-wait-ms:2000}") long waitMs) {
+        int permits = maxInFlight;
+        if (permits <= 0) {
+            int poolSize = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+            permits = poolSize * 2;
+        }
+        log.info("Virtual threads enabled; admitting at most {} API requests at a time", permits);
+
+        FilterRegistrationBean<ConnectionBulkheadFilter> registration =
+                new FilterRegistrationBean<>(new ConnectionBulkheadFilter(permits, waitMs));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
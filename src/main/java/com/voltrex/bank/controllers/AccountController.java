@@ -1,18 +1,21 @@
 package com.voltrex.bank.controllers;
 
 import com.voltrex.bank.dto.AccountResponse;
+import com.voltrex.bank.dto.AuthenticatedUser;
 import com.voltrex.bank.dto.CreateAccountRequest;
 import com.voltrex.bank.dto.ProductResponse;
-import com.voltrex.bank.entities.User;
 import com.voltrex.bank.services.AccountService;
+import com.voltrex.bank.services.ChangeVersionService;
 import com.voltrex.bank.services.ProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -24,24 +27,34 @@ public class AccountController {
 
     private final AccountService accountService;
     private final ProductService productService;
+    private final ChangeVersionService changeVersions;
     private static final Logger log = LoggerFactory.getLogger(AccountController.class);
 
+    /**
+     * Supports If-None-Match: answers 304 while the user's change version is unchanged.
+     */
     @GetMapping("")
-    public ResponseEntity<Map<String, Object>> getMyAccounts() {
-        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    public ResponseEntity<Map<String, Object>> getMyAccounts(WebRequest request) {
+        AuthenticatedUser currentUser = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         Long userId = currentUser.getId();
         if (userId == null) {
             return ResponseEntity.status(401).body(Map.of("success", false, "error", "Unauthorized"));
         }
 
+        String etag = changeVersions.etag(userId, "accounts");
+        if (request.checkNotModified(etag)) return null;
+
         List<AccountResponse> accounts = accountService.getAccountsForUser(userId);
-        return ResponseEntity.ok(Map.of("success", true, "accounts", accounts));
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(Map.of("success", true, "accounts", accounts));
     }
 
     @PostMapping("/create")
     public ResponseEntity<Map<String,Object>> createAccount(@Valid @RequestBody CreateAccountRequest req) {
         Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        if (!(principal instanceof User currentUser)) {
+        if (!(principal instanceof AuthenticatedUser currentUser)) {
             return ResponseEntity.status(401).body(Map.of("success", false, "error", "Unauthorized"));
         }
 
@@ -62,10 +75,10 @@ public class AccountController {
     @GetMapping("/options")
     public ResponseEntity<Map<String,Object>> getAvailableOptions() {
         Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        if (!(principal instanceof User)) {
+        if (!(principal instanceof AuthenticatedUser)) {
             return ResponseEntity.status(401).build();
         }
-        User current = (User) principal;
+        AuthenticatedUser current = (AuthenticatedUser) principal;
         List<ProductResponse> resp = productService.getAvailableProductsForUser(current.getId());
         return ResponseEntity.ok(Map.of("success",true,"data",resp));
     }
@@ -75,7 +88,7 @@ public class AccountController {
             @RequestParam("accNumber") String accNumber,
             @RequestParam("value") Boolean value
     ){
-        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         Long userId = currentUser.getId();
         if (userId == null) {
             return ResponseEntity.status(401).body(Map.of("success", false, "error", "Unauthorized"));
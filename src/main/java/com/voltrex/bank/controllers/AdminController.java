@@ -3,11 +3,19 @@ package com.voltrex.bank.controllers;
 import com.voltrex.bank.dto.PendingUserDto;
 import com.voltrex.bank.entities.Status;
 import com.voltrex.bank.repositories.UserRepository;
+import com.voltrex.bank.services.AccountSummaryService;
+import com.voltrex.bank.services.DailyUsageService;
+import com.voltrex.bank.services.MonthlyService;
+import com.voltrex.bank.services.StripedBalanceService;
+import com.voltrex.bank.services.TransactionArchiveService;
 import com.voltrex.bank.services.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -19,6 +27,11 @@ public class AdminController {
 
     private final UserRepository userRepository;
     private final UserService userService;
+    private final DailyUsageService dailyUsageService;
+    private final StripedBalanceService stripedBalanceService;
+    private final TransactionArchiveService transactionArchiveService;
+    private final AccountSummaryService accountSummaryService;
+    private final MonthlyService monthlyService;
 
     @GetMapping("/pending-users")
     public ResponseEntity<List<PendingUserDto>> getPendingUsers() {
@@ -35,6 +48,57 @@ public class AdminController {
         return ResponseEntity.ok(Map.of("success",true));
     }
 
+    /**
+     * Recompute the daily limit counters of a day up to today from transaction_record (defaults to yesterday).
+     */
+    @PostMapping("/daily-usage/rebuild")
+    public ResponseEntity<Map<String,Object>> rebuildDailyUsage(
+            @RequestParam(value = "date", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        LocalDate day = date != null ? date : LocalDate.now().minusDays(1);
+        int accounts = dailyUsageService.rebuild(day);
+        return ResponseEntity.ok(Map.of("success", true, "date", day, "accounts", accounts));
+    }
+
+    /**
+     * Regenerate the account_summary read model from the ledger.
+     */
+    @PostMapping("/account-summary/rebuild")
+    public ResponseEntity<Map<String,Object>> rebuildAccountSummaries() {
+        int accounts = accountSummaryService.rebuild();
+        return ResponseEntity.ok(Map.of("success", true, "accounts", accounts));
+    }
+
+    /**
+     * Split credits to a hot account (bank/merchant) over {@code count} stripes; 0 turns striping off.
+     */
+    @PostMapping("/accounts/{accountNumber}/stripes")
+    public ResponseEntity<Map<String,Object>> configureStripes(
+            @PathVariable("accountNumber") String accountNumber,
+            @RequestParam("count") int count) {
+        stripedBalanceService.configure(accountNumber, count);
+        return ResponseEntity.ok(Map.of("success", true, "accountNumber", accountNumber, "stripes", count));
+    }
+
+    /**
+     * Run the month-end job for {@code period}, or resume it if its run FAILED.
+     */
+    @PostMapping("/monthly/run")
+    public ResponseEntity<Map<String,Object>> runMonthly(
+            @RequestParam("period") @DateTimeFormat(pattern = "yyyy-MM") YearMonth period) {
+        String status = monthlyService.run(period);
+        return ResponseEntity.ok(Map.of("success", true, "period", period.toString(), "status", status));
+    }
+
+    /**
+     * Run the cold-storage archival now (same work as the nightly job, even when it is disabled).
+     */
+    @PostMapping("/archive/run")
+    public ResponseEntity<Map<String,Object>> runArchive() {
+        int days = transactionArchiveService.archiveDue();
+        return ResponseEntity.ok(Map.of("success", true, "daysArchived", days));
+    }
+
 }
 
 
@@ -1,6 +1,7 @@
 package com.voltrex.bank.controllers;
 
 import com.voltrex.bank.dto.LoginRequest;
+import com.voltrex.bank.dto.RefreshRequest;
 import com.voltrex.bank.dto.RegisterRequest;
 import com.voltrex.bank.entities.User;
 import com.voltrex.bank.services.AuthService;
@@ -8,6 +9,7 @@ import com.voltrex.bank.services.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -30,6 +32,23 @@ public class AuthController {
     public ResponseEntity<Map<String, Object>> login(@RequestBody LoginRequest loginRequest){
         return authService.login(loginRequest);
     }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<Map<String, Object>> refresh(@Valid @RequestBody RefreshRequest request){
+        return authService.refresh(request.getRefreshToken());
+    }
+
+    /**
+     * Send the access token as usual in Authorization, and the refresh token in the body to end the
+     * session on this device too.
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Map<String, Object>> logout(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader,
+            @RequestBody(required = false) RefreshRequest request){
+        String accessToken = authHeader != null && authHeader.startsWith("Bearer ") ? authHeader.substring(7).trim() : null;
+        return authService.logout(accessToken, request == null ? null : request.getRefreshToken());
+    }
 }
 
 
@@ -0,0 +1,29 @@
+package com.voltrex.bank.controllers;
+
+import com.voltrex.bank.services.JwtKeys;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Public keys for verifying access tokens (RFC 7517 key set). Empty while tokens are HMAC-signed.
+ */
+@RestController
+@RequiredArgsConstructor
+public class JwksController {
+
+    private final JwtKeys jwtKeys;
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        // short enough that verifiers see a new key well before it starts signing
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic())
+                .body(Map.of("keys", jwtKeys.publicJwks()));
+    }
+}
@@ -1,21 +1,32 @@
 package com.voltrex.bank.controllers;
 
+import com.voltrex.bank.dto.AuthenticatedUser;
+import com.voltrex.bank.dto.TransactionCursorPage;
 import com.voltrex.bank.dto.TransactionResponse;
-import com.voltrex.bank.entities.User;
+import com.voltrex.bank.services.ChangeVersionService;
+import com.voltrex.bank.services.StatementExportService;
+import com.voltrex.bank.services.TransactionFeedCache;
 import com.voltrex.bank.services.TransactionService;
 import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -23,11 +34,20 @@ import java.util.Map;
 public class TransactionController {
 
     private final TransactionService transactionService;
+    private final StatementExportService statementExportService;
+    private final ChangeVersionService changeVersions;
 
     /**
      * GET /api/transactions?from=2025-09-01T00:00:00&to=2025-09-12T23:59:59&page=0&size=20
      *
      * If `from`/`to` are omitted, defaults to last 30 days.
+     *
+     * Cursor mode: send `cursor` (empty for the first page) instead of `page`. Results are newest first
+     * on (executedAt, id), `sortBy`/`dir` are ignored, no totals are computed, and the response carries
+     * `nextCursor` (null on the last page).
+     *
+     * Supports If-None-Match: answers 304 while the user's change version is unchanged. Without
+     * `from`/`to` the window rolls, so that tag also changes every hour.
      */
     @GetMapping("")
     public ResponseEntity<?> getTransactions(
@@ -40,25 +60,49 @@ public class TransactionController {
             @RequestParam(value = "page", defaultValue = "0") @Min(0) int page,
             @RequestParam(value = "size", defaultValue = "25") @Min(1) int size,
             @RequestParam(value = "sortBy", defaultValue = "executedAt") String sortBy,
-            @RequestParam(value = "dir", defaultValue = "DESC") String dir
+            @RequestParam(value = "dir", defaultValue = "DESC") String dir,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            WebRequest request
     ) {
         Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        if (!(principal instanceof User)) {
+        if (!(principal instanceof AuthenticatedUser)) {
             return ResponseEntity.status(401).body(Map.of("success", false, "error", "Unauthorized"));
         }
-        User current = (User) principal;
+        AuthenticatedUser current = (AuthenticatedUser) principal;
         long userId = current.getId();
+        Sort.Direction direction = "ASC".equalsIgnoreCase(dir) ? Sort.Direction.ASC : Sort.Direction.DESC;
+
+        // the default view (what the app loads on open) comes from the per-user feed cache
+        boolean defaultWindow = from == null && to == null;
+        boolean firstCursorPage = cursor != null && cursor.isBlank();
+        boolean firstNewestPage = cursor == null && page == 0 && "executedAt".equals(sortBy) && direction == Sort.Direction.DESC;
+
+        String etag = changeVersions.etag(userId, from == null || to == null
+                ? "transactions-h" + System.currentTimeMillis() / 3_600_000 : "transactions");
+        if (request.checkNotModified(etag)) return null;
 
         // defaults
         LocalDateTime now = LocalDateTime.now();
         if (to == null) to = now;
-        if (from == null) from = now.minusDays(30); // last 30 days
+        if (from == null) from = now.minusDays(TransactionFeedCache.DEFAULT_WINDOW_DAYS); // last 30 days
 
-        Sort.Direction direction = "ASC".equalsIgnoreCase(dir) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        if (cursor != null) {
+            TransactionCursorPage slice = defaultWindow && firstCursorPage
+                    ? transactionService.getRecentTransactionsForUserFirst(userId, size)
+                    : transactionService.getTransactionsForUserAfter(userId, from, to, cursor, size);
+            Map<String, Object> body = new HashMap<>();
+            body.put("success", true);
+            body.put("size", size);
+            body.put("transactions", slice.transactions());
+            body.put("nextCursor", slice.nextCursor());
+            return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).body(body);
+        }
 
-        Page<TransactionResponse> result = transactionService.getTransactionsForUser(userId, from, to, page, size, sortBy, direction);
+        Page<TransactionResponse> result = defaultWindow && firstNewestPage
+                ? transactionService.getRecentTransactionsForUser(userId, size)
+                : transactionService.getTransactionsForUser(userId, from, to, page, size, sortBy, direction);
 
-        return ResponseEntity.ok(Map.of(
+        return ResponseEntity.ok().eTag(etag).cacheControl(CacheControl.noCache().cachePrivate()).body(Map.of(
                 "success", true,
                 "page", result.getNumber(),
                 "size", result.getSize(),
@@ -67,4 +111,58 @@ public class TransactionController {
                 "transactions", result.getContent()
         ));
     }
+
+    /**
+     * GET /api/transactions/export?format=csv|ndjson&gzip=true&from=...&to=...
+     *
+     * Streams the full history (oldest first) without paging. If `from`/`to` are omitted the whole
+     * history up to now is exported. With gzip=true the body is a .gz file.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportTransactions(
+            @RequestParam(value = "from", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+
+            @RequestParam(value = "to", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            @RequestParam(value = "gzip", defaultValue = "false") boolean gzip
+    ) {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (!(principal instanceof AuthenticatedUser current)) {
+            return ResponseEntity.status(401).body(Map.of("success", false, "error", "Unauthorized"));
+        }
+        long userId = current.getId();
+
+        StatementExportService.Format fmt;
+        try {
+            fmt = StatementExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "error", "format must be csv or ndjson"));
+        }
+
+        LocalDateTime rangeFrom = from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime rangeTo = to != null ? to : LocalDateTime.now();
+
+        String filename = "statement." + (fmt == StatementExportService.Format.CSV ? "csv" : "ndjson") + (gzip ? ".gz" : "");
+        MediaType type = gzip ? MediaType.parseMediaType("application/gzip")
+                : fmt == StatementExportService.Format.CSV ? MediaType.parseMediaType("text/csv")
+                : MediaType.parseMediaType("application/x-ndjson");
+
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream zip = new GZIPOutputStream(out, 64 * 1024);
+                statementExportService.writeStatement(userId, rangeFrom, rangeTo, fmt, zip);
+                zip.finish();
+            } else {
+                statementExportService.writeStatement(userId, rangeFrom, rangeTo, fmt, out);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(type)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
 }
@@ -1,37 +1,54 @@
 package com.voltrex.bank.controllers;
 
+import com.voltrex.bank.dto.AuthenticatedUser;
+import com.voltrex.bank.dto.BatchTransferRequest;
 import com.voltrex.bank.dto.TransferByAccountRequest;
 import com.voltrex.bank.dto.TransferByReceiverRequest;
 import com.voltrex.bank.dto.TransferResponse;
-import com.voltrex.bank.entities.User;
+import com.voltrex.bank.services.IdempotencyService;
 import com.voltrex.bank.services.TransferService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/transfer")
 @RequiredArgsConstructor
 public class TransferController {
 
     private final TransferService transferService;
+    private final IdempotencyService idempotencyService;
 
+    /**
+     * Clients may send an Idempotency-Key header; a retried request with the same key returns the
+     * original referenceNumber instead of transferring again.
+     */
     @PostMapping("/account")
-    public ResponseEntity<TransferResponse> transferByAccount(@Valid @RequestBody TransferByAccountRequest req) {
-        // get current authenticated user (your JwtFilter places User as principal)
+    public ResponseEntity<TransferResponse> transferByAccount(
+            @Valid @RequestBody TransferByAccountRequest req,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        // get current authenticated user (JwtFilter places an AuthenticatedUser as principal)
         Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        if (!(principal instanceof User)) {
+        if (!(principal instanceof AuthenticatedUser)) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new TransferResponse(false, "Unauthorized", null));
         }
-        User currentUser = (User) principal;
+        AuthenticatedUser currentUser = (AuthenticatedUser) principal;
 
         try {
-            String ref = transferService.transferByAccount(req, currentUser);
+            String ref = idempotencyService.execute(currentUser.getId(), idempotencyKey, req,
+                    () -> transferService.transferByAccount(req, currentUser));
             return ResponseEntity.ok(new TransferResponse(true, "Transfer completed", ref));
+        } catch (OptimisticLockingFailureException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new TransferResponse(false, "Account was updated concurrently, please retry", null));
         } catch (Exception ex) {
             // Let GlobalExceptionHandler map specific exceptions to proper responses.
             // Fallback: return bad request.
@@ -40,19 +57,48 @@ public class TransferController {
     }
 
     @PostMapping("/receiver")
-    public ResponseEntity<TransferResponse> transferByReceiver(@Valid @RequestBody TransferByReceiverRequest req) {
+    public ResponseEntity<TransferResponse> transferByReceiver(
+            @Valid @RequestBody TransferByReceiverRequest req,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        if (!(principal instanceof User)) {
+        if (!(principal instanceof AuthenticatedUser)) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new TransferResponse(false, "Unauthorized", null));
         }
-        User currentUser = (User) principal;
+        AuthenticatedUser currentUser = (AuthenticatedUser) principal;
 
         try {
-            String ref = transferService.transferByReceiver(req, currentUser);
+            String ref = idempotencyService.execute(currentUser.getId(), idempotencyKey, req,
+                    () -> transferService.transferByReceiver(req, currentUser));
             return ResponseEntity.ok(new TransferResponse(true, "Transfer completed", ref));
+        } catch (OptimisticLockingFailureException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new TransferResponse(false, "Account was updated concurrently, please retry", null));
         } catch (Exception ex) {
             return ResponseEntity.badRequest().body(new TransferResponse(false, ex.getMessage(), null));
         }
     }
+
+    /**
+     * Up to 500 account-number transfers in one call. Results come back in request order,
+     * one TransferResponse per item; a failed item does not stop the others.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> transferBatch(@Valid @RequestBody BatchTransferRequest req) {
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        if (!(principal instanceof AuthenticatedUser currentUser)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("success", false, "error", "Unauthorized"));
+        }
+
+        List<TransferResponse> results = transferService.transferBatch(req.getTransfers(), currentUser);
+        long succeeded = results.stream().filter(TransferResponse::isSuccess).count();
+
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "succeeded", succeeded,
+                "failed", results.size() - succeeded,
+                "results", results
+        ));
+    }
 }
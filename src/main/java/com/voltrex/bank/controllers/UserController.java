@@ -4,15 +4,20 @@ import com.voltrex.bank.dto.*;
 import com.voltrex.bank.entities.Address;
 import com.voltrex.bank.entities.User;
 import com.voltrex.bank.repositories.UserRepository;
+import com.voltrex.bank.services.ChangeVersionService;
+import com.voltrex.bank.services.PrincipalCache;
+import com.voltrex.bank.services.RefreshTokenService;
 import com.voltrex.bank.services.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -25,58 +30,77 @@ public class UserController {
     private final UserService userService;
     private final UserRepository userRepo;
     private final PasswordEncoder passwordEncoder;
+    private final ChangeVersionService changeVersions;
+    private final PrincipalCache principalCache;
+    private final RefreshTokenService refreshTokens;
 
+    /**
+     * Supports If-None-Match: answers 304 while the user's change version is unchanged.
+     */
     @GetMapping("")
-    public ResponseEntity<Map<String, Object>> getMyAccounts() {
-        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    public ResponseEntity<Map<String, Object>> getMyAccounts(WebRequest request) {
+        AuthenticatedUser currentUser = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         if (currentUser == null) {
             return ResponseEntity.status(401).body(Map.of("success", false, "error", "Unauthorized"));
         }
 
+        String etag = changeVersions.etag(currentUser.getId(), "user");
+        if (request.checkNotModified(etag)) return null;
+
+        // the principal is a cached snapshot without phone/address, so read the profile itself
+        User user = userService.getUserById(currentUser.getId());
+
         UserResponse response = new UserResponse();
-        response.setFirstName(currentUser.getFirstName());
-        response.setLastName(currentUser.getLastName());
-        response.setEmail(currentUser.getEmail());
-        response.setPhone(currentUser.getPhone());
-        response.setCrn(currentUser.getCrn());
-        response.setCreatedAt(currentUser.getCreatedAt());
-
-        Address address = currentUser.getAddress();
+        response.setFirstName(user.getFirstName());
+        response.setLastName(user.getLastName());
+        response.setEmail(user.getEmail());
+        response.setPhone(user.getPhone());
+        response.setCrn(user.getCrn());
+        response.setCreatedAt(user.getCreatedAt());
+
+        Address address = user.getAddress();
         response.setAddress(address);
-        response.setTfa(currentUser.isTwoFactorEnabled());
-        response.setLoginAlert(currentUser.isLoginAlert());
+        response.setTfa(user.isTwoFactorEnabled());
+        response.setLoginAlert(user.isLoginAlert());
 
-        return ResponseEntity.ok(Map.of("success", true, "user", response));
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(Map.of("success", true, "user", response));
     }
 
     @PostMapping("/data/save")
     public ResponseEntity<Map<String,Object>> saveUserData(@Valid @RequestBody UserDataRequest req) {
-        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         if (currentUser == null) {
             return ResponseEntity.status(401).body(Map.of("success", false, "error", "Unauthorized"));
         }
 
-        return userService.updateUser(req,currentUser);
+        return userService.updateUser(req,currentUser.getId());
     }
 
     @PostMapping("/security/save")
     public ResponseEntity<Map<String,Object>> saveUserData(@RequestBody UserSecurityRequest req) {
-        User currentUser = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        AuthenticatedUser currentUser = (AuthenticatedUser) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
         if (currentUser == null) {
             return ResponseEntity.status(401).body(Map.of("success", false, "error", "Unauthorized"));
         }
 
-        currentUser.setTwoFactorEnabled(req.isTfa());
-        currentUser.setLoginAlert(req.isLoginAlert());
+        User managed = userRepo.findById(currentUser.getId())
+                .orElseThrow(() -> new IllegalStateException("User not found"));
+        managed.setTwoFactorEnabled(req.isTfa());
+        managed.setLoginAlert(req.isLoginAlert());
 
-        userRepo.save(currentUser);
+        userRepo.save(managed);
+        principalCache.evictAfterCommit(currentUser.getId());
+        changeVersions.bump(currentUser.getId());
         return ResponseEntity.ok(Map.of("success", true));
     }
 
     @PostMapping("/password")
     public ResponseEntity<Map<String, Object>> changePassword(@RequestBody PasswordChangeRequest req) {
         Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        if (!(principal instanceof User currentUser)) {
+        if (!(principal instanceof AuthenticatedUser currentUser)) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("success", false, "error", "Unauthorized"));
         }
@@ -95,6 +119,9 @@ public class UserController {
         String encodedNew = passwordEncoder.encode(req.getNewPassword());
         managed.setPassword(encodedNew);
         userRepo.save(managed);
+        principalCache.evictAfterCommit(managed.getId());
+        // other sessions end when their (short-lived) access tokens expire
+        refreshTokens.revokeAllForUser(managed.getId());
 
         return ResponseEntity.ok(Map.of("success", true, "message", "Password updated successfully"));
     }
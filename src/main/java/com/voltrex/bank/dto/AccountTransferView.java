@@ -0,0 +1,18 @@
+package com.voltrex.bank.dto;
+
+import com.voltrex.bank.entities.AccountType;
+
+/**
+ * Read-only projection of an account and its owner with just the columns a transfer needs
+ * (ownership, name verification, limits, alerts). Loaded without hydrating Account/User entities.
+ */
+public interface AccountTransferView {
+    Long getId();
+    String getAccountNumber();
+    AccountType getType();
+    boolean isTransactionAlert();
+    Long getOwnerId();
+    String getOwnerFirstName();
+    String getOwnerLastName();
+    String getOwnerEmail();
+}
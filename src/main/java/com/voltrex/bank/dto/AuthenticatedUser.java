@@ -0,0 +1,26 @@
+package com.voltrex.bank.dto;
+
+import com.voltrex.bank.entities.Status;
+import com.voltrex.bank.entities.User;
+import lombok.Value;
+
+/**
+ * What JwtFilter puts in the SecurityContext: an immutable snapshot of the user taken when the
+ * principal was cached. Anything else (address, password, accounts) has to be loaded from the DB.
+ */
+@Value
+public class AuthenticatedUser {
+    Long id;
+    String crn;
+    String firstName;
+    String lastName;
+    String email;
+    Status status;
+    boolean twoFactorEnabled;
+    boolean loginAlert;
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getCrn(), user.getFirstName(), user.getLastName(),
+                user.getEmail(), user.getStatus(), user.isTwoFactorEnabled(), user.isLoginAlert());
+    }
+}
@@ -0,0 +1,15 @@
+package com.voltrex.bank.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchTransferRequest {
+    @NotEmpty
+    @Size(max = 500)
+    private List<@Valid TransferByAccountRequest> transfers;
+}
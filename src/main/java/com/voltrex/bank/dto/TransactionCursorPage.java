@@ -0,0 +1,11 @@
+package com.voltrex.bank.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of transaction history. {@code nextCursor} is null on the last page.
+ */
+public record TransactionCursorPage(
+        List<TransactionResponse> transactions,
+        String nextCursor
+) {}
@@ -8,6 +8,7 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+// the all-args constructor is used by TransactionRepository.findForUserBetween: keep the field order
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
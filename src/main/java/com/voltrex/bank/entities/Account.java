@@ -11,6 +11,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 
 /**
@@ -43,6 +44,15 @@ public class Account {
     @Column(nullable = false)
     private AccountType type;
 
+    /**
+     * Optimistic-lock version; bumped on every balance change. Defaults to 0 so existing rows get a value
+     * when ddl-auto adds the column.
+     */
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @CreationTimestamp
     private LocalDateTime openedAt;
 
@@ -54,6 +64,14 @@ public class Account {
 
     private boolean transactionAlert;
 
+    /**
+     * Number of credit stripes (account_balance_stripe rows) for high fan-in receivers; 0 = not striped.
+     * The logical balance of a striped account is balance + the sum of its stripes.
+     */
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private int balanceStripes;
+
     // Owner
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id", nullable = false)
@@ -0,0 +1,42 @@
+package com.voltrex.bank.entities;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One credit sub-balance of a striped account (see Account#balanceStripes).
+ * Credits land on a single stripe row so concurrent receivers never queue on the account row;
+ * the stripes are folded back into Account.balance by StripedBalanceService. A stripe only holds
+ * credits of one day, creditDate, so folding can book them as that day's deposits.
+ */
+@Entity
+@Table(name = "account_balance_stripe", uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "stripe_no"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountBalanceStripe {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @Column(name = "stripe_no", nullable = false)
+    private int stripeNo;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    // day of the credits held in amount; null on rows created before the column existed
+    @Column(name = "credit_date")
+    private LocalDate creditDate;
+}
@@ -0,0 +1,40 @@
+package com.voltrex.bank.entities;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running per-account, per-day totals used for the daily withdrawal/deposit limit checks.
+ * Incremented in the same DB transaction as the debit/credit, so a limit check is a single
+ * point read on (account_id, usage_date) instead of a SUM over transaction_record.
+ */
+@Entity
+@Table(name = "account_daily_usage", uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "usage_date"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountDailyUsage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @Column(name = "usage_date", nullable = false)
+    private LocalDate usageDate;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal withdrawn;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal deposited;
+}
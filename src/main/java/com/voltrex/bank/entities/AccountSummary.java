@@ -0,0 +1,57 @@
+package com.voltrex.bank.entities;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Read model behind GET /api/accounts: one row per account with its balance, month-to-date flows and
+ * last transaction. Maintained by AccountSummaryService in the same DB transaction as each ledger
+ * write; AccountSummaryService.rebuild regenerates it from the ledger.
+ */
+@Entity
+@Table(name = "account_summary", indexes = @Index(name = "idx_account_summary_owner", columnList = "owner_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AccountSummary {
+
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    // Account.balance (without stripes) as of accountVersion
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    @Column(name = "account_version", nullable = false)
+    private Long accountVersion;
+
+    // first day of the month monthIn/monthOut belong to
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    @Column(name = "month_in", nullable = false, precision = 19, scale = 2)
+    private BigDecimal monthIn;
+
+    @Column(name = "month_out", nullable = false, precision = 19, scale = 2)
+    private BigDecimal monthOut;
+
+    @Column(name = "last_transaction_at")
+    private LocalDateTime lastTransactionAt;
+
+    @Column(name = "last_reference_number")
+    private String lastReferenceNumber;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
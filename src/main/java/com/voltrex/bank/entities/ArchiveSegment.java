@@ -0,0 +1,36 @@
+package com.voltrex.bank.entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One archived day of transaction_record. Inserted in the same DB transaction that deletes the day's
+ * rows from the hot table, so a row here means the segment file is complete and the hot table no
+ * longer holds that day.
+ */
+@Entity
+@Table(name = "archive_segment")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ArchiveSegment {
+
+    @Id
+    @Column(name = "segment_day")
+    private LocalDate day;
+
+    @Column(name = "row_count", nullable = false)
+    private int rows;
+
+    @Column(name = "size_bytes", nullable = false)
+    private long bytes;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
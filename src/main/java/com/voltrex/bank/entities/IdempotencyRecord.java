@@ -0,0 +1,41 @@
+package com.voltrex.bank.entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A client-supplied Idempotency-Key and the transfer it produced. Written in the same DB
+ * transaction as the transfer, so a key is stored if and only if its transfer committed.
+ */
+@Entity
+@Table(name = "idempotency_record", uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "idempotency_key"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idempotency_key", nullable = false, length = 100)
+    private String idempotencyKey;
+
+    // SHA-256 of the request the key was first used with
+    @Column(nullable = false, length = 64)
+    private String fingerprint;
+
+    @Column(name = "reference_number", nullable = false)
+    private String referenceNumber;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,53 @@
+package com.voltrex.bank.entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One account id range [fromId, toId] of a partitioned job run. The worker that owns it updates the
+ * counters after every page, so a run in progress shows how far each range has got and how fast.
+ * last_account_id is also moved in each account's transaction; a resumed run starts after it.
+ */
+@Entity
+@Table(name = "job_run_partition",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"job_run_id", "partition_no"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class JobRunPartition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_run_id", nullable = false)
+    private Long jobRunId;
+
+    @Column(name = "partition_no", nullable = false)
+    private int partitionNo;
+
+    @Column(name = "from_id", nullable = false)
+    private long fromId;
+
+    @Column(name = "to_id", nullable = false)
+    private long toId;
+
+    private String status; // PENDING / IN_PROGRESS / COMPLETED / FAILED
+
+    // highest account id handled so far
+    @Column(name = "last_account_id")
+    private Long lastAccountId;
+
+    private long processedAccounts;
+    private long failedAccounts;
+    private double accountsPerSecond;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String details;
+}
@@ -0,0 +1,64 @@
+package com.voltrex.bank.entities;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An email waiting to be sent. Rows are written by EmailListener in the transaction that raised the
+ * event and deleted by OutboxDispatcher once delivered; FAILED rows ran out of attempts.
+ *
+ * Bodies never hold secrets: a credential email carries {@link #TEMP_PASSWORD} and the id of the
+ * user in credential_user_id, and the dispatcher issues the password when it sends the message.
+ */
+@Entity
+@Table(name = "outbox_message", indexes = @Index(name = "idx_outbox_due", columnList = "status, available_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxMessage {
+
+    public static final String TEMP_PASSWORD = "{tempPassword}";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // simple name of the event that produced the message
+    @Column(name = "event_type", nullable = false, length = 50)
+    private String eventType;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false)
+    private String subject;
+
+    @Column(nullable = false, length = 4000)
+    private String body;
+
+    // user whose temporary password is filled into the body at send time, null for plain emails
+    @Column(name = "credential_user_id")
+    private Long credentialUserId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private OutboxStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // not picked up before this time (retry backoff, or the lease of a dispatcher working on it)
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+}
@@ -0,0 +1,6 @@
+package com.voltrex.bank.entities;
+
+public enum OutboxStatus {
+    PENDING,
+    FAILED
+}
@@ -8,6 +8,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -24,7 +25,13 @@ import org.hibernate.annotations.CreationTimestamp;
  * Transaction record (date/time, reference number, belongs to (account), type, amount).
  */
 @Entity
-@Table(name = "transaction_record") // transaction is a reserved word in some DBs
+@Table(name = "transaction_record", // transaction is a reserved word in some DBs
+        indexes = {
+                @Index(name = "idx_txn_from_account_time", columnList = "from_account_id, executed_at"),
+                @Index(name = "idx_txn_to_account_time", columnList = "to_account_id, executed_at"),
+                @Index(name = "idx_txn_from_owner_time", columnList = "from_owner_id, executed_at, id"),
+                @Index(name = "idx_txn_to_owner_time", columnList = "to_owner_id, executed_at, id")
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -62,6 +69,17 @@ public class Transaction {
     @JoinColumn(name = "to_account_id")
     private Account toAccount;
 
+    /**
+     * Owners of fromAccount/toAccount, copied at insert so per-user history filters on indexed columns
+     * of transaction_record alone. Rows written before these columns existed are filled by
+     * SchemaMigrations.
+     */
+    @Column(name = "from_owner_id")
+    private Long fromOwnerId;
+
+    @Column(name = "to_owner_id")
+    private Long toOwnerId;
+
     private String description;
 
     @Column(precision = 19, scale = 2)
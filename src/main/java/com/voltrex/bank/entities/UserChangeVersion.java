@@ -0,0 +1,27 @@
+package com.voltrex.bank.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per-user counter bumped whenever anything the user's dashboard shows changes (accounts, balances,
+ * transactions, profile). Backs the ETags of GET /api/accounts, /api/user and /api/transactions.
+ */
+@Entity
+@Table(name = "user_change_version")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserChangeVersion {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(nullable = false)
+    private Long version;
+}
@@ -7,9 +7,9 @@ import lombok.RequiredArgsConstructor;
 @Data
 @AllArgsConstructor
 public class UserApprovedEvent {
+    private Long userId;
     private String email;
     private String name;
     private String crn;
-    private String tempPassword;
     private String accNumber;
 }
@@ -47,6 +47,13 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(Map.of("success", false, "error", ex.getMessage()));
     }
 
+    @ExceptionHandler(HashingBusyException.class)
+    public ResponseEntity<Map<String,Object>> handleHashingBusy(HashingBusyException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", "1")
+                .body(Map.of("success", false, "error", ex.getMessage()));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String,Object>> handleAll(Exception ex) {
         // log error server-side in real app (omitted here)
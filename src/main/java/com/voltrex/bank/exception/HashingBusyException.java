@@ -0,0 +1,5 @@
+package com.voltrex.bank.exception;
+
+public class HashingBusyException extends RuntimeException {
+    public HashingBusyException(String message) { super(message); }
+}
@@ -1,8 +1,9 @@
 package com.voltrex.bank.filter;
 
-import com.voltrex.bank.entities.User;
+import com.voltrex.bank.dto.AuthenticatedUser;
 import com.voltrex.bank.services.JwtService;
-import com.voltrex.bank.services.UserService;
+import com.voltrex.bank.services.PrincipalCache;
+import com.voltrex.bank.services.TokenRevocationService;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
@@ -10,6 +11,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -18,8 +20,11 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtFilter extends OncePerRequestFilter {
@@ -27,11 +32,17 @@ public class JwtFilter extends OncePerRequestFilter {
     private static final Logger log = LoggerFactory.getLogger(JwtFilter.class);
 
     private final JwtService jwtService;
-    private final UserService userService;
+    private final PrincipalCache principalCache;
+    private final TokenRevocationService revocations;
+    // customers whose logins also get ROLE_ADMIN
+    private final Set<String> adminCrns;
 
-    public JwtFilter(JwtService jwtService, UserService userService) {
+    public JwtFilter(JwtService jwtService, PrincipalCache principalCache, TokenRevocationService revocations,
+                     @Value("${security.admin-crns:}") String[] adminCrns) {
         this.jwtService = jwtService;
-        this.userService = userService;
+        this.principalCache = principalCache;
+        this.revocations = revocations;
+        this.adminCrns = Arrays.stream(adminCrns).map(String::trim).filter(c -> !c.isEmpty()).collect(Collectors.toSet());
     }
 
     @Override
@@ -52,9 +63,17 @@ public class JwtFilter extends OncePerRequestFilter {
 
         Long userId;
         try {
-            userId = jwtService.getUserIdFromToken(token); // this may throw JwtException / ExpiredJwtException
+            JwtService.AccessToken verified = jwtService.verify(token); // this may throw JwtException / ExpiredJwtException
+            // in-memory check; access tokens are short-lived, so this is only needed for logout and the like
+            if (revocations.isRevoked(verified.jti())) {
+                log.info("Revoked JWT for request {}", request.getRequestURI());
+                filterChain.doFilter(request, response);
+                return;
+            }
+            userId = verified.userId();
         } catch (ExpiredJwtException ex) {
-            log.info("JWT expired for request {}: {}", request.getRequestURI(), ex.getMessage());
+            // routine with short-lived access tokens: the client refreshes and retries
+            log.debug("JWT expired for request {}: {}", request.getRequestURI(), ex.getMessage());
             // token expired -> do not authenticate the request, let controller return 401/403 as appropriate
             filterChain.doFilter(request, response);
             return;
@@ -64,16 +83,16 @@ public class JwtFilter extends OncePerRequestFilter {
             return;
         }
 
-        // 3) If we have a userId and no SecurityContext yet, load user and set Authentication
+        // 3) If we have a userId and no SecurityContext yet, look up the (cached) principal and set Authentication
         if (userId != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            // load domain user (optional: use UserDetailsService to get authorities)
-            Optional<User> maybeUser = Optional.ofNullable(userService.getUserById(userId));
+            Optional<AuthenticatedUser> maybeUser = Optional.ofNullable(principalCache.get(userId));
             if (maybeUser.isPresent()) {
-                User user = maybeUser.get();
+                AuthenticatedUser user = maybeUser.get();
 
                 // IMPORTANT: give authorities — otherwise hasRole checks will fail with 403.
-                // Replace with real role extraction if you store roles on the User entity.
-                List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+                List<SimpleGrantedAuthority> authorities = adminCrns.contains(user.getCrn())
+                        ? List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("ROLE_ADMIN"))
+                        : List.of(new SimpleGrantedAuthority("ROLE_USER"));
 
                 UsernamePasswordAuthenticationToken authenticationToken =
                         new UsernamePasswordAuthenticationToken(user, null, authorities);
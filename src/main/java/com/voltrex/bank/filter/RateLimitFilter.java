@@ -0,0 +1,166 @@
+package com.voltrex.bank.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.voltrex.bank.services.JwtService;
+import com.voltrex.bank.services.RateLimiter;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs ahead of JwtFilter and turns away over-limit requests with a 429 before any password hashing,
+ * token parsing for authentication or database work happens.
+ *
+ * POST /api/auth/login is limited per client IP and per CRN (read from the JSON body, which is
+ * buffered and replayed to the controller; a body over MAX_LOGIN_BODY is refused with 413). /api/transfer/** is limited per user id, taken from the
+ * bearer token, or per client IP when there is no valid token. Limits are set in RateLimiter.
+ *
+ * The client IP is the servlet remote address; behind a proxy set server.forward-headers-strategy.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    // a login body is a CRN and a password; anything bigger is refused
+    private static final int MAX_LOGIN_BODY = 4096;
+
+    private final RateLimiter limiter;
+    private final JwtService jwtService;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public RateLimitFilter(RateLimiter limiter, JwtService jwtService) {
+        this.limiter = limiter;
+        this.jwtService = jwtService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!limiter.isEnabled()) return true;
+        String uri = request.getRequestURI();
+        return !uri.startsWith("/api/transfer/") && !uri.equals("/api/auth/login");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (request.getRequestURI().startsWith("/api/transfer/")) {
+            Long userId = userId(request);
+            RateLimiter.Limit limit = userId != null ? limiter.transferUser() : limiter.transferIp();
+            long wait = limit.tryAcquire(userId != null ? userId.toString() : request.getRemoteAddr());
+            if (wait > 0) {
+                reject(request, response, limit, wait);
+                return;
+            }
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long wait = limiter.loginIp().tryAcquire(request.getRemoteAddr());
+        if (wait > 0) {
+            reject(request, response, limiter.loginIp(), wait);
+            return;
+        }
+        BufferedBody body = BufferedBody.of(request);
+        if (body == null) {
+            log.debug("Refused oversized login body from {}", request.getRemoteAddr());
+            response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"success\":false,\"error\":\"Request body too large\"}");
+            return;
+        }
+        String crn = crn(body.bytes);
+        if (crn != null) {
+            wait = limiter.loginCrn().tryAcquire(crn);
+            if (wait > 0) {
+                reject(request, response, limiter.loginCrn(), wait);
+                return;
+            }
+        }
+        filterChain.doFilter(body, response);
+    }
+
+    private Long userId(HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) return null;
+        try {
+            return jwtService.verify(header.substring(7).trim()).userId();
+        } catch (JwtException | IllegalArgumentException ex) {
+            // JwtFilter logs and handles bad tokens
+            return null;
+        }
+    }
+
+    private String crn(byte[] json) {
+        try {
+            JsonNode crn = mapper.readTree(json).get("crn");
+            return crn != null && crn.isTextual() ? crn.asText().trim().toUpperCase() : null;
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response,
+                        RateLimiter.Limit limit, long waitNanos) throws IOException {
+        log.debug("Rate limit {} rejected {} {} from {}", limit.name(), request.getMethod(), request.getRequestURI(), request.getRemoteAddr());
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"success\":false,\"error\":\"Too many requests, please retry later\"}");
+    }
+
+    /**
+     * The request with its (small) body read up front, so it can be inspected and still reach the
+     * controller.
+     */
+    private static final class BufferedBody extends HttpServletRequestWrapper {
+        private final byte[] bytes;
+
+        private BufferedBody(HttpServletRequest request, byte[] bytes) {
+            super(request);
+            this.bytes = bytes;
+        }
+
+        // null when the body is over MAX_LOGIN_BODY; reads what arrives whatever the declared
+        // length, as a chunked body reports none
+        static BufferedBody of(HttpServletRequest request) throws IOException {
+            byte[] bytes = request.getInputStream().readNBytes(MAX_LOGIN_BODY + 1);
+            return bytes.length > MAX_LOGIN_BODY ? null : new BufferedBody(request, bytes);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(bytes);
+            return new ServletInputStream() {
+                @Override public int read() { return in.read(); }
+                @Override public int read(byte[] b, int off, int len) { return in.read(b, off, len); }
+                @Override public boolean isFinished() { return in.available() == 0; }
+                @Override public boolean isReady() { return true; }
+                @Override public void setReadListener(ReadListener listener) { throw new UnsupportedOperationException(); }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
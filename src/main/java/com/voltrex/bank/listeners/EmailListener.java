@@ -1,33 +1,33 @@
 package com.voltrex.bank.listeners;
 
+import com.voltrex.bank.entities.OutboxMessage;
 import com.voltrex.bank.events.TransactionEvent;
 import com.voltrex.bank.events.UserApprovedEvent;
 import com.voltrex.bank.events.UserLoginEvent;
+import com.voltrex.bank.services.OutboxService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.event.EventListener;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Component;
 
+/**
+ * Renders notification emails and queues them in the outbox, inside the publisher's transaction.
+ * Delivery happens later on OutboxDispatcher's pool.
+ */
 @Component
 @RequiredArgsConstructor
 public class EmailListener {
 
-    private final JavaMailSender mailSender;
+    private final OutboxService outboxService;
 
     @EventListener
     public void handleApprovedUser(UserApprovedEvent userEvent){
         String subject = "Your banking account is ready";
         String text = String.format(
                 "Hi %s,\n\nYour account has been approved.\nCRN: %s\nAccount Number: %s\nTemporary Password: %s\n\nPlease login and change your password immediately.\n\nRegards,\nBanking Team",
-                userEvent.getName(), userEvent.getCrn(), userEvent.getAccNumber(), userEvent.getTempPassword()
+                userEvent.getName(), userEvent.getCrn(), userEvent.getAccNumber(), OutboxMessage.TEMP_PASSWORD
         );
 
-        SimpleMailMessage msg = new SimpleMailMessage();
-        msg.setTo(userEvent.getEmail());
-        msg.setSubject(subject);
-        msg.setText(text);
-        mailSender.send(msg);
+        outboxService.enqueueCredential(userEvent, userEvent.getUserId(), userEvent.getEmail(), subject, text);
     }
 
     @EventListener
@@ -37,11 +37,7 @@ public class EmailListener {
                 "Hello %s,\n\nWelcome back to Voltrex Bank. \nYou’ve successfully logged in to your account.",userLoginEvent.getName()
         );
 
-        SimpleMailMessage msg = new SimpleMailMessage();
-        msg.setTo(userLoginEvent.getEmail());
-        msg.setSubject(subject);
-        msg.setText(text);
-        mailSender.send(msg);
+        outboxService.enqueue(userLoginEvent, userLoginEvent.getEmail(), subject, text);
     }
 
     @EventListener
@@ -63,12 +59,7 @@ public class EmailListener {
                 txnEvent.getNewBalance().toPlainString()
         );
 
-
-        SimpleMailMessage msg = new SimpleMailMessage();
-        msg.setTo(txnEvent.getEmail());
-        msg.setSubject(subject);
-        msg.setText(text);
-        mailSender.send(msg);
+        outboxService.enqueue(txnEvent, txnEvent.getEmail(), subject, text);
     }
 }
 
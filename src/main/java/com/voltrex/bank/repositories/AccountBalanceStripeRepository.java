@@ -0,0 +1,37 @@
+package com.voltrex.bank.repositories;
+
+import com.voltrex.bank.entities.AccountBalanceStripe;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface AccountBalanceStripeRepository extends JpaRepository<AccountBalanceStripe, Long> {
+
+    /**
+     * Add a credit for {@code day} to one stripe. Matches nothing (returns 0) when the stripe still
+     * holds another day's credits that have not been folded yet.
+     */
+    @Modifying
+    @Query("UPDATE AccountBalanceStripe s SET s.amount = s.amount + :amount, s.creditDate = :day " +
+            "WHERE s.account.id = :accountId AND s.stripeNo = :stripeNo AND (s.creditDate = :day OR s.amount = 0)")
+    int addToStripe(@Param("accountId") Long accountId, @Param("stripeNo") int stripeNo,
+                    @Param("day") LocalDate day, @Param("amount") BigDecimal amount);
+
+    @Query("SELECT COALESCE(SUM(s.amount), 0) FROM AccountBalanceStripe s WHERE s.account.id = :accountId")
+    BigDecimal sumByAccountId(@Param("accountId") Long accountId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountBalanceStripe s WHERE s.account.id = :accountId ORDER BY s.stripeNo")
+    List<AccountBalanceStripe> findByAccountIdForUpdate(@Param("accountId") Long accountId);
+
+    @Modifying
+    @Query("DELETE FROM AccountBalanceStripe s WHERE s.account.id = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+}
@@ -0,0 +1,42 @@
+package com.voltrex.bank.repositories;
+
+import com.voltrex.bank.entities.AccountDailyUsage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface AccountDailyUsageRepository extends JpaRepository<AccountDailyUsage, Long> {
+
+    // scalar reads so the counters never sit stale in the persistence context
+    @Query("SELECT u.withdrawn FROM AccountDailyUsage u WHERE u.account.id = :accountId AND u.usageDate = :day")
+    Optional<BigDecimal> findWithdrawn(@Param("accountId") Long accountId, @Param("day") LocalDate day);
+
+    @Query("SELECT u.deposited FROM AccountDailyUsage u WHERE u.account.id = :accountId AND u.usageDate = :day")
+    Optional<BigDecimal> findDeposited(@Param("accountId") Long accountId, @Param("day") LocalDate day);
+
+    // one statement whether or not the (account, day) row exists yet, so two writers creating the
+    // same row never collide on the unique key
+    @Modifying
+    @Query("""
+        INSERT INTO AccountDailyUsage (account.id, usageDate, withdrawn, deposited)
+        VALUES (:accountId, :day, :withdrawn, :deposited)
+        ON CONFLICT (account, usageDate) DO UPDATE
+        SET withdrawn = withdrawn + excluded.withdrawn, deposited = deposited + excluded.deposited
+        """)
+    int add(@Param("accountId") Long accountId, @Param("day") LocalDate day,
+            @Param("withdrawn") BigDecimal withdrawn, @Param("deposited") BigDecimal deposited);
+
+    @Modifying
+    @Query("UPDATE AccountDailyUsage u SET u.withdrawn = :withdrawn, u.deposited = :deposited WHERE u.account.id = :accountId AND u.usageDate = :day")
+    int set(@Param("accountId") Long accountId, @Param("day") LocalDate day,
+            @Param("withdrawn") BigDecimal withdrawn, @Param("deposited") BigDecimal deposited);
+
+    @Query("SELECT u.account.id FROM AccountDailyUsage u WHERE u.usageDate = :day")
+    List<Long> findAccountIdsByUsageDate(@Param("day") LocalDate day);
+}
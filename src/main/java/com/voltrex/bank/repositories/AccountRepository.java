@@ -1,13 +1,20 @@
 package com.voltrex.bank.repositories;
 
+import com.voltrex.bank.dto.AccountTransferView;
 import com.voltrex.bank.entities.Account;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +27,63 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     @Query("SELECT a FROM Account a WHERE a.accountNumber = :accNumber")
     Optional<Account> findByAccountNumberForUpdate(@Param("accNumber") String accNumber);
 
+    // Lock a set of accounts in one round trip; rows are locked in account-number order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.accountNumber IN :accNumbers ORDER BY a.accountNumber")
+    List<Account> findAllByAccountNumberInForUpdate(@Param("accNumbers") Collection<String> accNumbers);
+
+    // --- projection + single-statement balance moves used by the ATOMIC transfer mode ---
+
+    @Query("""
+        SELECT a.id AS id, a.accountNumber AS accountNumber, a.type AS type, a.transactionAlert AS transactionAlert,
+               o.id AS ownerId, o.firstName AS ownerFirstName, o.lastName AS ownerLastName, o.email AS ownerEmail
+        FROM Account a JOIN a.owner o
+        WHERE a.accountNumber = :accNumber
+        """)
+    Optional<AccountTransferView> findTransferViewByAccountNumber(@Param("accNumber") String accNumber);
+
+    @Query("""
+        SELECT a.id AS id, a.accountNumber AS accountNumber, a.type AS type, a.transactionAlert AS transactionAlert,
+               o.id AS ownerId, o.firstName AS ownerFirstName, o.lastName AS ownerLastName, o.email AS ownerEmail
+        FROM Account a JOIN a.owner o
+        WHERE a.primaryAccount = true AND (o.crn = :identifier OR o.email = :identifier)
+        """)
+    Optional<AccountTransferView> findPrimaryTransferViewByOwnerCrnOrEmail(@Param("identifier") String identifier);
+
+    // conditional debit: returns 0 when the balance does not cover the amount
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance - :amount, a.version = a.version + 1 WHERE a.id = :id AND a.balance >= :amount")
+    int debitIfSufficient(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, a.version = a.version + 1 WHERE a.id = :id")
+    int credit(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    // rows of [id, balance]
+    @Query("SELECT a.id, a.balance FROM Account a WHERE a.id IN :ids")
+    List<Object[]> findBalancesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT a.id FROM Account a ORDER BY a.id")
+    Page<Long> findAllIds(Pageable pageable);
+
+    @Query("SELECT MIN(a.id) FROM Account a")
+    Optional<Long> findMinId();
+
+    @Query("SELECT MAX(a.id) FROM Account a")
+    Optional<Long> findMaxId();
+
+    // keyset page of the ids in (afterId, toId]
+    @Query("SELECT a.id FROM Account a WHERE a.id > :afterId AND a.id <= :toId ORDER BY a.id")
+    List<Long> findIdsInRange(@Param("afterId") long afterId, @Param("toId") long toId, Limit limit);
+
+    // rows of [id, balance, version]
+    @Query("SELECT a.id, a.balance, a.version FROM Account a WHERE a.id IN :ids")
+    List<Object[]> findBalanceVersionsByIdIn(@Param("ids") Collection<Long> ids);
+
+    // rows of [id, accountNumber, balanceStripes] for every striped account
+    @Query("SELECT a.id, a.accountNumber, a.balanceStripes FROM Account a WHERE a.balanceStripes > 0")
+    List<Object[]> findStripedAccounts();
+
     // Find primary account of a user
     Optional<Account> findByOwnerIdAndPrimaryAccountTrue(Long ownerId);
 
@@ -30,6 +94,9 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
 //    List<Account> findAllByOwnerId(Long ownerId);
     List<Account> findByOwnerId(Long ownerId);
 
+    @Query("SELECT a.id FROM Account a WHERE a.owner.id = :ownerId")
+    List<Long> findIdsByOwnerId(@Param("ownerId") Long ownerId);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select a from Account a where a.id = :id")
     Optional<Account> findByIdForUpdate(@Param("id") Long id);
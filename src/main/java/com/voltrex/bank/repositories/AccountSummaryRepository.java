@@ -0,0 +1,64 @@
+package com.voltrex.bank.repositories;
+
+import com.voltrex.bank.entities.AccountSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface AccountSummaryRepository extends JpaRepository<AccountSummary, Long> {
+
+    List<AccountSummary> findByOwnerId(Long ownerId);
+
+    // add one committed transaction's effect; flows of an older month than the row's are dropped,
+    // a newer month starts the counters over. Returns 0 when the account has no summary row yet.
+    @Modifying
+    @Query("""
+        UPDATE AccountSummary s SET
+            s.monthIn = CASE WHEN s.monthStart = :month THEN s.monthIn + :credited
+                             WHEN s.monthStart < :month THEN :credited ELSE s.monthIn END,
+            s.monthOut = CASE WHEN s.monthStart = :month THEN s.monthOut + :debited
+                              WHEN s.monthStart < :month THEN :debited ELSE s.monthOut END,
+            s.monthStart = CASE WHEN s.monthStart < :month THEN :month ELSE s.monthStart END,
+            s.lastReferenceNumber = CASE WHEN s.lastTransactionAt IS NULL OR s.lastTransactionAt <= :at
+                                         THEN :ref ELSE s.lastReferenceNumber END,
+            s.lastTransactionAt = CASE WHEN s.lastTransactionAt IS NULL OR s.lastTransactionAt <= :at
+                                       THEN :at ELSE s.lastTransactionAt END,
+            s.updatedAt = :now
+        WHERE s.accountId = :accountId
+        """)
+    int applyMovement(@Param("accountId") Long accountId,
+                      @Param("month") LocalDate month,
+                      @Param("credited") BigDecimal credited,
+                      @Param("debited") BigDecimal debited,
+                      @Param("at") LocalDateTime at,
+                      @Param("ref") String ref,
+                      @Param("now") LocalDateTime now);
+
+    // create the row unless it exists already; 0 when another transaction created it first
+    @Modifying
+    @Query("""
+        INSERT INTO AccountSummary (accountId, ownerId, balance, accountVersion, monthStart, monthIn, monthOut,
+                                    lastTransactionAt, lastReferenceNumber, updatedAt)
+        VALUES (:#{#s.accountId}, :#{#s.ownerId}, :#{#s.balance}, :#{#s.accountVersion}, :#{#s.monthStart},
+                :#{#s.monthIn}, :#{#s.monthOut}, :#{#s.lastTransactionAt}, :#{#s.lastReferenceNumber}, :#{#s.updatedAt})
+        ON CONFLICT DO NOTHING
+        """)
+    int insertIfAbsent(@Param("s") AccountSummary summary);
+
+    // copy the account balance unless the row already holds a newer version of it
+    @Modifying
+    @Query("""
+        UPDATE AccountSummary s SET s.balance = :balance, s.accountVersion = :version, s.updatedAt = :now
+        WHERE s.accountId = :accountId AND s.accountVersion < :version
+        """)
+    int applyBalance(@Param("accountId") Long accountId,
+                     @Param("balance") BigDecimal balance,
+                     @Param("version") Long version,
+                     @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,19 @@
+package com.voltrex.bank.repositories;
+
+import com.voltrex.bank.entities.ArchiveSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ArchiveSegmentRepository extends JpaRepository<ArchiveSegment, LocalDate> {
+
+    // newest archived day, null when nothing has been archived yet
+    @Query("SELECT MAX(s.day) FROM ArchiveSegment s")
+    LocalDate findLastDay();
+
+    @Query("SELECT s.day FROM ArchiveSegment s WHERE s.day BETWEEN :from AND :to ORDER BY s.day")
+    List<LocalDate> findDaysBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
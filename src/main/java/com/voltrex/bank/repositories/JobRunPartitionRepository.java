@@ -0,0 +1,18 @@
+package com.voltrex.bank.repositories;
+
+import com.voltrex.bank.entities.JobRunPartition;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface JobRunPartitionRepository extends JpaRepository<JobRunPartition, Long> {
+    List<JobRunPartition> findByJobRunIdOrderByPartitionNo(Long jobRunId);
+
+    // run inside the transaction of the account just processed
+    @Modifying
+    @Query("UPDATE JobRunPartition p SET p.lastAccountId = :accountId WHERE p.id = :id")
+    int advance(@Param("id") Long id, @Param("accountId") Long accountId);
+}
@@ -2,9 +2,16 @@ package com.voltrex.bank.repositories;
 
 import com.voltrex.bank.entities.JobRun;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
 public interface JobRunRepository extends JpaRepository<JobRun, Long> {
     Optional<JobRun> findByJobNameAndPeriodYearAndPeriodMonth(String jobName, int year, int month);
-}
\ No newline at end of file
+
+    @Modifying
+    @Query("UPDATE JobRun r SET r.status = 'IN_PROGRESS', r.finishedAt = null WHERE r.id = :id AND r.status = 'FAILED'")
+    int resumeFailed(@Param("id") Long id);
+}
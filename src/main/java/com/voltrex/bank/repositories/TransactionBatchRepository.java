@@ -0,0 +1,50 @@
+package com.voltrex.bank.repositories;
+
+import com.voltrex.bank.entities.Transaction;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Plain-JDBC writer for bulk ledger inserts. Transaction uses IDENTITY ids, which stops Hibernate
+ * from batching inserts, so bulk paths write transaction_record rows through JdbcTemplate instead.
+ * Runs on the same connection as the surrounding JPA transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionBatchRepository {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO transaction_record
+                (reference_number, executed_at, type, amount, from_account_id, to_account_id,
+                 from_owner_id, to_owner_id,
+                 description, from_account_balance_after, to_account_balance_after, status)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<Transaction> txs) {
+        if (txs.isEmpty()) return;
+        jdbcTemplate.batchUpdate(INSERT_SQL, txs, BATCH_SIZE, (ps, t) -> {
+            ps.setString(1, t.getReferenceNumber());
+            ps.setTimestamp(2, Timestamp.valueOf(t.getExecutedAt()));
+            ps.setString(3, t.getType() == null ? null : t.getType().name());
+            ps.setBigDecimal(4, t.getAmount());
+            ps.setObject(5, t.getFromAccount() == null ? null : t.getFromAccount().getId(), Types.BIGINT);
+            ps.setObject(6, t.getToAccount() == null ? null : t.getToAccount().getId(), Types.BIGINT);
+            ps.setObject(7, t.getFromOwnerId(), Types.BIGINT);
+            ps.setObject(8, t.getToOwnerId(), Types.BIGINT);
+            ps.setString(9, t.getDescription());
+            ps.setBigDecimal(10, t.getFromAccountBalanceAfter());
+            ps.setBigDecimal(11, t.getToAccountBalanceAfter());
+            ps.setString(12, t.getStatus());
+        });
+    }
+}
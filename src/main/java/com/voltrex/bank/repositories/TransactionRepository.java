@@ -1,38 +1,120 @@
 package com.voltrex.bank.repositories;
 
+import com.voltrex.bank.dto.TransactionResponse;
 import com.voltrex.bank.entities.Transaction;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
-    // sum withdrawn (fromAccount) between given timestamps
-    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.fromAccount.id = :accountId AND t.executedAt BETWEEN :from AND :to")
-    BigDecimal sumWithdrawnBetween(@Param("accountId") Long accountId,
-                                   @Param("from") LocalDateTime from,
-                                   @Param("to") LocalDateTime to);
-
-    // sum deposited (toAccount) between given timestamps
-    @Query("SELECT COALESCE(SUM(t.amount), 0) FROM Transaction t WHERE t.toAccount.id = :accountId AND t.executedAt BETWEEN :from AND :to")
-    BigDecimal sumDepositedBetween(@Param("accountId") Long accountId,
-                                   @Param("from") LocalDateTime from,
-                                   @Param("to") LocalDateTime to);
-
+    // one account's [deposited, withdrawn] between given timestamps (a single row)
     @Query("""
-        SELECT t FROM Transaction t
-        WHERE (t.fromAccount.owner.id = :userId OR t.toAccount.owner.id = :userId)
+        SELECT COALESCE(SUM(CASE WHEN t.toAccount.id = :accountId THEN t.amount END), 0),
+               COALESCE(SUM(CASE WHEN t.fromAccount.id = :accountId THEN t.amount END), 0)
+        FROM Transaction t
+        WHERE (t.fromAccount.id = :accountId OR t.toAccount.id = :accountId)
           AND t.executedAt BETWEEN :from AND :to
-        ORDER BY t.executedAt DESC
         """)
-    Page<Transaction> findForUserBetween(
+    List<Object[]> sumInOutByAccountBetween(@Param("accountId") Long accountId,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+
+    Optional<Transaction> findFirstByFromAccountIdOrToAccountIdOrderByExecutedAtDescIdDesc(Long fromAccountId, Long toAccountId);
+
+    // per-account withdrawn totals between given timestamps: rows of [accountId, sum]
+    @Query("SELECT t.fromAccount.id, SUM(t.amount) FROM Transaction t WHERE t.fromAccount IS NOT NULL AND t.executedAt BETWEEN :from AND :to GROUP BY t.fromAccount.id")
+    List<Object[]> sumWithdrawnByAccountBetween(@Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to);
+
+    // per-account deposited totals between given timestamps: rows of [accountId, sum]
+    @Query("SELECT t.toAccount.id, SUM(t.amount) FROM Transaction t WHERE t.toAccount IS NOT NULL AND t.executedAt BETWEEN :from AND :to GROUP BY t.toAccount.id")
+    List<Object[]> sumDepositedByAccountBetween(@Param("from") LocalDateTime from,
+                                                @Param("to") LocalDateTime to);
+
+    // transaction history rows as DTOs: accounts and owners joined once (for numbers and names) and
+    // filtered/classified on the denormalised owner ids, each side served by its (owner, executed_at, id)
+    // index. Shared by the offset, keyset and export queries below.
+    String HISTORY_SELECT = """
+        SELECT new com.voltrex.bank.dto.TransactionResponse(
+            t.id, t.referenceNumber, t.type, t.amount, t.description, t.status, t.executedAt,
+            fa.accountNumber, ta.accountNumber,
+            NULLIF(TRIM(CONCAT(COALESCE(fo.firstName, ''), ' ', COALESCE(fo.lastName, ''))), ''),
+            NULLIF(TRIM(CONCAT(COALESCE(tu.firstName, ''), ' ', COALESCE(tu.lastName, ''))), ''),
+            CASE WHEN t.fromOwnerId = :userId AND t.toOwnerId = :userId THEN 'INTERNAL'
+                 WHEN t.fromOwnerId = :userId THEN 'DEBIT'
+                 WHEN t.toOwnerId = :userId THEN 'CREDIT'
+                 ELSE 'UNKNOWN' END,
+            t.fromAccountBalanceAfter, t.toAccountBalanceAfter)
+        FROM Transaction t
+        LEFT JOIN t.fromAccount fa LEFT JOIN fa.owner fo
+        LEFT JOIN t.toAccount ta LEFT JOIN ta.owner tu
+        WHERE (t.fromOwnerId = :userId OR t.toOwnerId = :userId)
+          AND t.executedAt BETWEEN :from AND :to
+        """;
+
+    String HISTORY_COUNT = """
+        SELECT COUNT(t) FROM Transaction t
+        WHERE (t.fromOwnerId = :userId OR t.toOwnerId = :userId)
+          AND t.executedAt BETWEEN :from AND :to
+        """;
+
+    // offset page; ordering comes from the Pageable
+    @Query(value = HISTORY_SELECT, countQuery = HISTORY_COUNT)
+    Page<TransactionResponse> findForUserBetween(
             @Param("userId") Long userId,
             @Param("from") LocalDateTime from,
             @Param("to") LocalDateTime to,
             Pageable pageable);
+
+    // offset slice without the count query
+    @Query(HISTORY_SELECT)
+    List<TransactionResponse> listForUserBetween(
+            @Param("userId") Long userId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            Pageable pageable);
+
+    @Query(HISTORY_COUNT)
+    long countForUserBetween(@Param("userId") Long userId,
+                             @Param("from") LocalDateTime from,
+                             @Param("to") LocalDateTime to);
+
+    // keyset page: rows strictly after (afterAt, afterId) in (executedAt DESC, id DESC) order, no count
+    @Query(HISTORY_SELECT + """
+          AND (t.executedAt < :afterAt OR (t.executedAt = :afterAt AND t.id < :afterId))
+        ORDER BY t.executedAt DESC, t.id DESC
+        """)
+    List<TransactionResponse> findForUserBetweenAfter(
+            @Param("userId") Long userId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("afterAt") LocalDateTime afterAt,
+            @Param("afterId") Long afterId,
+            Limit limit);
+
+    // whole range oldest first for statement export; read through a forward-only cursor in fetch-size
+    // chunks. Must be consumed inside a read-only transaction.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(HISTORY_SELECT + """
+        ORDER BY t.executedAt, t.id
+        """)
+    Stream<TransactionResponse> streamForUserBetween(
+            @Param("userId") Long userId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
 }
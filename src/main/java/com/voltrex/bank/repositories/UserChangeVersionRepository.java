@@ -0,0 +1,19 @@
+package com.voltrex.bank.repositories;
+
+import com.voltrex.bank.entities.UserChangeVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface UserChangeVersionRepository extends JpaRepository<UserChangeVersion, Long> {
+
+    @Modifying
+    @Query("UPDATE UserChangeVersion v SET v.version = v.version + 1 WHERE v.userId = :userId")
+    int bump(@Param("userId") Long userId);
+
+    // 0 when the row exists already
+    @Modifying
+    @Query("INSERT INTO UserChangeVersion (userId, version) VALUES (:userId, 0) ON CONFLICT DO NOTHING")
+    int insertIfAbsent(@Param("userId") Long userId);
+}
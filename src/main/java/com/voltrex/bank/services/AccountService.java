@@ -1,13 +1,14 @@
 package com.voltrex.bank.services;
 
 import com.voltrex.bank.dto.AccountResponse;
+import com.voltrex.bank.dto.AuthenticatedUser;
 import com.voltrex.bank.dto.CreateAccountRequest;
 import com.voltrex.bank.entities.Account;
+import com.voltrex.bank.entities.AccountSummary;
 import com.voltrex.bank.entities.AccountType;
 import com.voltrex.bank.entities.User;
 import com.voltrex.bank.exception.NotFoundException;
 import com.voltrex.bank.repositories.AccountRepository;
-import com.voltrex.bank.repositories.TransactionRepository;
 import com.voltrex.bank.repositories.UserRepository;
 import com.voltrex.bank.utils.AccountNumberGenerator;
 import com.voltrex.bank.utils.CardNumberGenerator;
@@ -17,8 +18,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
-import java.time.YearMonth;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -29,29 +29,35 @@ import java.util.Objects;
 public class AccountService {
 
     private final AccountRepository accountRepo;
-    private final TransactionRepository txnRepo;
     private final AccountNumberGenerator accountNumberGenerator;
     private final UserRepository userRepo;
     private final CardNumberGenerator cardNumberGenerator;
+    private final StripedBalanceService stripes;
+    private final AccountSummaryService summaries;
+    private final ChangeVersionService changeVersions;
 
     public List<AccountResponse> getAccountsForUser(Long userId) {
         List<Account> accounts = accountRepo.findByOwnerId(userId);
 
-        YearMonth currentMonth = YearMonth.now();
-        LocalDateTime from = currentMonth.atDay(1).atStartOfDay();
-        LocalDateTime to = currentMonth.atEndOfMonth().atTime(23,59,59, 999_999_999);
+        // balances and month-to-date in/out come from the account_summary read model
+        Map<Long, AccountSummary> summaryById = accounts.isEmpty() ? Map.of() : summaries.summariesFor(userId, accounts);
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
 
         List<AccountResponse> responses = new ArrayList<>();
 
         // Normal bank accounts
         for (Account acc : accounts) {
-            BigDecimal monthIn = txnRepo.sumDepositedBetween(acc.getId(), from, to);
-            BigDecimal monthOut = txnRepo.sumWithdrawnBetween(acc.getId(), from, to);
+            AccountSummary summary = summaryById.get(acc.getId());
+            boolean thisMonth = summary != null && currentMonth.equals(summary.getMonthStart());
+            BigDecimal monthIn = thisMonth ? summary.getMonthIn() : BigDecimal.ZERO;
+            BigDecimal monthOut = thisMonth ? summary.getMonthOut() : BigDecimal.ZERO;
+            // striped balances move without touching the account row, so they are always read live
+            BigDecimal balance = summary == null || stripes.isStriped(acc.getId()) ? stripes.balanceOf(acc) : summary.getBalance();
 
             responses.add(new AccountResponse(
                     acc.getAccountNumber(),
                     acc.getType().name(),
-                    acc.getBalance(),
+                    balance,
                     acc.getInterestRate(),
                     acc.getOpenedAt(),
                     acc.getMinimumBalance(),
@@ -68,7 +74,7 @@ public class AccountService {
 
 
     @Transactional
-    public String createAccount(User currentUser, CreateAccountRequest req) {
+    public String createAccount(AuthenticatedUser currentUser, CreateAccountRequest req) {
         User managedUser = userRepo.findById(currentUser.getId())
                 .orElseThrow(() -> new IllegalStateException("User not found"));
 
@@ -111,11 +117,12 @@ public class AccountService {
         accountRepo.save(newAcc);
         managedUser.getAccounts().add(newAcc);
         userRepo.save(managedUser);
+        changeVersions.bump(managedUser.getId());
 
         return accNumber;
     }
 
-    public ResponseEntity<Map<String, Object>> changeTransactionAlert(String accNumber, Boolean value,User user) {
+    public ResponseEntity<Map<String, Object>> changeTransactionAlert(String accNumber, Boolean value, AuthenticatedUser user) {
         Account currAccount = accountRepo.findByAccountNumber(accNumber).orElseThrow(() -> new NotFoundException("Account not found"));
         User owner = currAccount.getOwner();
         if(owner == null || !Objects.equals(owner.getId(), user.getId())){
@@ -124,6 +131,7 @@ public class AccountService {
 
         currAccount.setTransactionAlert(value);
         accountRepo.save(currAccount);
+        changeVersions.bump(owner.getId());
         return ResponseEntity.ok(Map.of("success",true));
     }
 }
@@ -0,0 +1,276 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.entities.Account;
+import com.voltrex.bank.entities.AccountBalanceStripe;
+import com.voltrex.bank.entities.AccountSummary;
+import com.voltrex.bank.entities.Transaction;
+import com.voltrex.bank.repositories.AccountBalanceStripeRepository;
+import com.voltrex.bank.repositories.AccountRepository;
+import com.voltrex.bank.repositories.AccountSummaryRepository;
+import com.voltrex.bank.repositories.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Maintains the account_summary read model.
+ *
+ * Ledger writers call {@link #record} for every transaction_record row they insert. The movements of
+ * one DB transaction are collected and applied just before it commits, inside it and in account id
+ * order: month-to-date flows and the last transaction are added with single-statement increments,
+ * and the balance is copied from the account row guarded by its version. A summary therefore commits
+ * or rolls back with the ledger rows it describes. Missing rows are created from the ledger on first
+ * use, by a reader or by the first writer, whichever gets there first.
+ *
+ * Credits that land on a stripe of a striped receiver are the exception: touching the receiver's
+ * summary row in each of them would queue them all on it again. Their receiving side is left out of
+ * {@link #record} and added by {@link #recordFolded} when StripedBalanceService folds the stripes,
+ * under the account row lock. Until then the summary's month-to-date credits exclude what the stripes
+ * hold; summaries built from the ledger subtract it to match. The bank account's side of monthly
+ * charges follows the same pattern through {@link #recordDeferred}, a page of accounts at a time.
+ */
+@Service
+@Slf4j
+public class AccountSummaryService {
+
+    private final AccountSummaryRepository summaryRepo;
+    private final AccountRepository accountRepo;
+    private final TransactionRepository txnRepo;
+    private final AccountBalanceStripeRepository stripeRepo;
+    private final TransactionTemplate tt;
+
+    private record Key(Long accountId, LocalDate month) {}
+
+    private static final class Movement {
+        BigDecimal credited = BigDecimal.ZERO;
+        BigDecimal debited = BigDecimal.ZERO;
+        LocalDateTime lastAt;
+        String lastRef;
+    }
+
+    public AccountSummaryService(AccountSummaryRepository summaryRepo,
+                                 AccountRepository accountRepo,
+                                 TransactionRepository txnRepo,
+                                 AccountBalanceStripeRepository stripeRepo,
+                                 PlatformTransactionManager txManager) {
+        this.summaryRepo = summaryRepo;
+        this.accountRepo = accountRepo;
+        this.txnRepo = txnRepo;
+        this.stripeRepo = stripeRepo;
+        this.tt = new TransactionTemplate(txManager);
+    }
+
+    /**
+     * Queue {@code tx} for the summaries of its two accounts, applied before the current transaction
+     * commits (immediately when there is none). Nothing is applied on rollback.
+     */
+    public void record(Transaction tx) {
+        record(tx, true, true);
+    }
+
+    /**
+     * As {@link #record(Transaction)}, for the chosen sides only. A side that is left out has to reach
+     * its summary some other way, e.g. a stripe credit through {@link #recordFolded}.
+     */
+    public void record(Transaction tx, boolean fromSide, boolean toSide) {
+        LocalDateTime at = tx.getExecutedAt() != null ? tx.getExecutedAt() : LocalDateTime.now();
+        LocalDate month = at.toLocalDate().withDayOfMonth(1);
+        Map<Key, Movement> pending = pending();
+        if (tx.getFromAccount() != null && fromSide) add(pending, new Key(tx.getFromAccount().getId(), month), null, tx.getAmount(), at, tx.getReferenceNumber());
+        if (tx.getToAccount() != null && toSide) add(pending, new Key(tx.getToAccount().getId(), month), tx.getAmount(), null, at, tx.getReferenceNumber());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) tt.executeWithoutResult(status -> apply(pending));
+    }
+
+    /**
+     * Queue stripe credits that were just folded into the account's balance, by credit day. The last
+     * transaction is taken from the ledger, since the credits' own rows were recorded without this side.
+     * Call it in the folding transaction, which holds the account row lock.
+     */
+    public void recordFolded(Long accountId, Map<LocalDate, BigDecimal> creditedByDay) {
+        recordDeferred(accountId, creditedByDay, Map.of());
+    }
+
+    /**
+     * Queue one account's side of ledger rows that committed without it, as totals by day; the last
+     * transaction is taken from the ledger. MonthlyService applies the bank's side of its charges this
+     * way. The account's summary must exist already: one created from the ledger now would count the
+     * rows again.
+     */
+    public void recordDeferred(Long accountId, Map<LocalDate, BigDecimal> creditedByDay, Map<LocalDate, BigDecimal> debitedByDay) {
+        if (creditedByDay.isEmpty() && debitedByDay.isEmpty()) return;
+        Optional<Transaction> last = txnRepo.findFirstByFromAccountIdOrToAccountIdOrderByExecutedAtDescIdDesc(accountId, accountId);
+        LocalDateTime at = last.map(Transaction::getExecutedAt).orElse(null);
+        String ref = last.map(Transaction::getReferenceNumber).orElse(null);
+        Map<Key, Movement> pending = pending();
+        creditedByDay.forEach((day, amount) -> add(pending, new Key(accountId, day.withDayOfMonth(1)), amount, null, at, ref));
+        debitedByDay.forEach((day, amount) -> add(pending, new Key(accountId, day.withDayOfMonth(1)), null, amount, at, ref));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) tt.executeWithoutResult(status -> apply(pending));
+    }
+
+    private static void add(Map<Key, Movement> pending, Key key, BigDecimal credited, BigDecimal debited,
+                            LocalDateTime at, String ref) {
+        Movement m = pending.computeIfAbsent(key, k -> new Movement());
+        if (credited != null) m.credited = m.credited.add(credited);
+        if (debited != null) m.debited = m.debited.add(debited);
+        if (at != null && (m.lastAt == null || !at.isBefore(m.lastAt))) {
+            m.lastAt = at;
+            m.lastRef = ref;
+        }
+    }
+
+    // movements collected for the current transaction, registering the before-commit hook on first use
+    @SuppressWarnings("unchecked")
+    private Map<Key, Movement> pending() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return new HashMap<>();
+        Map<Key, Movement> pending = (Map<Key, Movement>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) return pending;
+
+        Map<Key, Movement> created = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                apply(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(AccountSummaryService.this);
+            }
+        });
+        return created;
+    }
+
+    // runs in the ledger transaction; ordered by account so two writers never wait on each other's rows
+    private void apply(Map<Key, Movement> pending) {
+        if (pending.isEmpty()) return;
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> created = new HashSet<>();
+        List<Key> keys = pending.keySet().stream()
+                .sorted(Comparator.comparing(Key::accountId).thenComparing(Key::month))
+                .toList();
+        for (Key key : keys) {
+            Long accountId = key.accountId();
+            if (created.contains(accountId)) continue;
+            Movement m = pending.get(key);
+            if (summaryRepo.applyMovement(accountId, key.month(), m.credited, m.debited, m.lastAt, m.lastRef, now) > 0) continue;
+            // no row yet: build it from the ledger, which in this transaction already includes the movement
+            if (createFromLedger(accountId)) {
+                created.add(accountId);
+            } else {
+                // a reader created it from the committed ledger meanwhile
+                summaryRepo.applyMovement(accountId, key.month(), m.credited, m.debited, m.lastAt, m.lastRef, now);
+            }
+        }
+        for (Object[] row : accountRepo.findBalanceVersionsByIdIn(keys.stream().map(Key::accountId).distinct().toList())) {
+            summaryRepo.applyBalance((Long) row[0], (BigDecimal) row[1], (Long) row[2], now);
+        }
+    }
+
+    /**
+     * The user's summaries by account id, creating any that are missing.
+     */
+    public Map<Long, AccountSummary> summariesFor(Long ownerId, List<Account> accounts) {
+        Map<Long, AccountSummary> byId = new HashMap<>();
+        for (AccountSummary s : summaryRepo.findByOwnerId(ownerId)) byId.put(s.getAccountId(), s);
+        for (Account acc : accounts) {
+            if (byId.containsKey(acc.getId())) continue;
+            tt.execute(status -> {
+                createFromLedger(acc.getId());
+                return summaryRepo.findById(acc.getId());
+            }).ifPresent(s -> byId.put(s.getAccountId(), s));
+        }
+        return byId;
+    }
+
+    // insert the account's summary as the ledger shows it to this transaction, unless a row exists
+    private boolean createFromLedger(Long accountId) {
+        return fromLedger(accountId).map(s -> summaryRepo.insertIfAbsent(s) > 0).orElse(false);
+    }
+
+    /**
+     * Regenerate one account's summary from Account and transaction_record. Must run in a transaction.
+     */
+    public Optional<AccountSummary> rebuildAccount(Long accountId) {
+        return fromLedger(accountId).map(summaryRepo::saveAndFlush);
+    }
+
+    private Optional<AccountSummary> fromLedger(Long accountId) {
+        Optional<Account> found = accountRepo.findById(accountId);
+        if (found.isEmpty()) return Optional.empty();
+        Account acc = found.get();
+
+        YearMonth month = YearMonth.now();
+        List<Object[]> sums = txnRepo.sumInOutByAccountBetween(accountId,
+                month.atDay(1).atStartOfDay(), month.atEndOfMonth().atTime(23, 59, 59, 999_999_999));
+        Optional<Transaction> last = txnRepo.findFirstByFromAccountIdOrToAccountIdOrderByExecutedAtDescIdDesc(accountId, accountId);
+        BigDecimal monthIn = sums.isEmpty() ? BigDecimal.ZERO : (BigDecimal) sums.get(0)[0];
+        if (acc.getBalanceStripes() > 0) monthIn = monthIn.subtract(unfolded(accountId, month));
+
+        AccountSummary summary = AccountSummary.builder()
+                .accountId(accountId)
+                .ownerId(acc.getOwner().getId())
+                .balance(acc.getBalance())
+                .accountVersion(acc.getVersion() == null ? 0L : acc.getVersion())
+                .monthStart(month.atDay(1))
+                .monthIn(monthIn)
+                .monthOut(sums.isEmpty() ? BigDecimal.ZERO : (BigDecimal) sums.get(0)[1])
+                .lastTransactionAt(last.map(Transaction::getExecutedAt).orElse(null))
+                .lastReferenceNumber(last.map(Transaction::getReferenceNumber).orElse(null))
+                .updatedAt(LocalDateTime.now())
+                .build();
+        return Optional.of(summary);
+    }
+
+    // stripe credits of the month not folded yet; the stripes stay locked so none commits in between
+    private BigDecimal unfolded(Long accountId, YearMonth month) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (AccountBalanceStripe s : stripeRepo.findByAccountIdForUpdate(accountId)) {
+            if (s.getCreditDate() != null && YearMonth.from(s.getCreditDate()).equals(month)) total = total.add(s.getAmount());
+        }
+        return total;
+    }
+
+    /**
+     * Regenerate every account's summary from the ledger, one page of accounts per transaction.
+     * Commits racing with the rebuild of their account can be counted twice; run it when quiet.
+     *
+     * @return number of accounts rebuilt
+     */
+    public int rebuild() {
+        Pageable pageable = PageRequest.of(0, 200);
+        int rebuilt = 0;
+        while (true) {
+            Page<Long> ids = accountRepo.findAllIds(pageable);
+            rebuilt += tt.execute(status -> {
+                int n = 0;
+                for (Long id : ids) {
+                    if (rebuildAccount(id).isPresent()) n++;
+                }
+                return n;
+            });
+            if (!ids.hasNext()) break;
+            pageable = ids.nextPageable();
+        }
+        log.info("Rebuilt {} account summaries", rebuilt);
+        return rebuilt;
+    }
+}
@@ -9,6 +9,7 @@ import com.voltrex.bank.events.UserLoginEvent;
 import com.voltrex.bank.exception.EmailAlreadyExistsException;
 import com.voltrex.bank.exception.PhoneAlreadyExistsException;
 import com.voltrex.bank.repositories.UserRepository;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
@@ -20,6 +21,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
@@ -29,6 +31,8 @@ public class AuthService {
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
     private final ApplicationEventPublisher publisher;
+    private final RefreshTokenService refreshTokens;
+    private final TokenRevocationService revocations;
 
     public User register(RegisterRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
@@ -68,17 +72,54 @@ public class AuthService {
 
             User user = (User) authentication.getPrincipal();
             String token = jwtService.generateToken(user);
+            String refreshToken = refreshTokens.issue(user.getId());
 
             if(user.isLoginAlert()){
                 publisher.publishEvent(new UserLoginEvent(user.getEmail(),user.getFirstName() + " " + user.getLastName()));
             }
 
-            return ResponseEntity.ok(Map.of("success", true, "token", token));
+            return ResponseEntity.ok(Map.of("success", true, "token", token, "refreshToken", refreshToken,
+                    "expiresIn", jwtService.accessTokenSeconds()));
         } catch (AuthenticationException ex) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("success", false, "error", "Invalid credentials"));
         }
     }
+
+    /**
+     * New access token for a refresh token. The refresh token is rotated: the response carries its
+     * replacement, and presenting the old one again revokes the whole chain.
+     */
+    public ResponseEntity<Map<String,Object>> refresh(String refreshToken) {
+        Optional<RefreshTokenService.Rotation> rotation = refreshTokens.rotate(refreshToken);
+        Optional<User> user = rotation.flatMap(r -> userRepository.findById(r.userId()));
+        if (user.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("success", false, "error", "Invalid refresh token"));
+        }
+
+        return ResponseEntity.ok(Map.of("success", true, "token", jwtService.generateToken(user.get()),
+                "refreshToken", rotation.get().refreshToken(), "expiresIn", jwtService.accessTokenSeconds()));
+    }
+
+    /**
+     * Revoke the presented access token and, when given, the refresh token's chain. Invalid or
+     * expired tokens are ignored, so logging out twice is harmless.
+     */
+    public ResponseEntity<Map<String,Object>> logout(String accessToken, String refreshToken) {
+        if (accessToken != null) {
+            try {
+                JwtService.AccessToken verified = jwtService.verify(accessToken);
+                revocations.revoke(verified.jti(), verified.userId(), verified.expiresAt());
+            } catch (JwtException | IllegalArgumentException ex) {
+                // nothing to revoke
+            }
+        }
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            refreshTokens.revokeFamilyOf(refreshToken);
+        }
+        return ResponseEntity.ok(Map.of("success", true));
+    }
 }
 
 
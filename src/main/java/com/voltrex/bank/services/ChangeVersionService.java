@@ -0,0 +1,107 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.entities.UserChangeVersion;
+import com.voltrex.bank.repositories.UserChangeVersionRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Per-user change versions for conditional GETs.
+ *
+ * Writers call {@link #bump} for every user whose visible data they change. The users of one DB
+ * transaction are bumped with UPDATE ... SET version = version + 1 just before it commits, inside it
+ * and in user id order, so a new ETag becomes visible exactly when the data it covers does. Versions
+ * live in the database so every node hands out the same ETags.
+ *
+ * The version row stays locked until the writer commits. For an ordinary receiver that costs nothing
+ * extra, since its account row is locked just as long. A credit that lands on a stripe takes no such
+ * lock, so it does not bump the receiver; StripedBalanceService bumps the owner when it folds the
+ * stripes.
+ */
+@Service
+public class ChangeVersionService {
+
+    private final UserChangeVersionRepository versionRepo;
+    private final TransactionTemplate tt;
+
+    public ChangeVersionService(UserChangeVersionRepository versionRepo, PlatformTransactionManager txManager) {
+        this.versionRepo = versionRepo;
+        this.tt = new TransactionTemplate(txManager);
+    }
+
+    /**
+     * Strong ETag for {@code resource} as the given user sees it now. Read it before loading the data,
+     * so the tag is never newer than the body it goes with.
+     */
+    public String etag(Long userId, String resource) {
+        return "\"" + resource + "-" + userId + "-" + current(userId) + "\"";
+    }
+
+    public long current(Long userId) {
+        return versionRepo.findById(userId)
+                .map(UserChangeVersion::getVersion)
+                .orElseGet(() -> create(userId));
+    }
+
+    // first read for this user; no client can hold an ETag for it yet, so starting at 0 is safe
+    private long create(Long userId) {
+        return tt.execute(status -> {
+            versionRepo.insertIfAbsent(userId);
+            return versionRepo.findById(userId).map(UserChangeVersion::getVersion).orElse(0L);
+        });
+    }
+
+    public void bump(Long... userIds) {
+        bump(Arrays.asList(userIds));
+    }
+
+    /**
+     * Bump the given users before the current transaction commits (immediately when there is none).
+     * Nulls are ignored.
+     */
+    public void bump(Collection<Long> userIds) {
+        List<Long> ids = userIds.stream().filter(Objects::nonNull).toList();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            tt.executeWithoutResult(status -> apply(ids));
+            return;
+        }
+        pending().addAll(ids);
+    }
+
+    // users collected for the current transaction, registering the before-commit hook on first use
+    @SuppressWarnings("unchecked")
+    private Set<Long> pending() {
+        Set<Long> pending = (Set<Long>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) return pending;
+
+        Set<Long> created = new TreeSet<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                apply(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ChangeVersionService.this);
+            }
+        });
+        return created;
+    }
+
+    // one row at a time in id order, so two writers never wait on each other's rows
+    private void apply(Collection<Long> userIds) {
+        userIds.stream().distinct().sorted().forEach(versionRepo::bump);
+    }
+}
@@ -0,0 +1,128 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.entities.Account;
+import com.voltrex.bank.entities.AccountBalanceStripe;
+import com.voltrex.bank.repositories.AccountBalanceStripeRepository;
+import com.voltrex.bank.repositories.AccountDailyUsageRepository;
+import com.voltrex.bank.repositories.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Maintains the per-account daily withdrawal/deposit counters (account_daily_usage).
+ *
+ * Callers record usage inside the same transaction that moves the money, while holding the
+ * account row lock (or, in OPTIMISTIC mode, under the Account @Version check), so the counters
+ * always agree with transaction_record for that day.
+ */
+@Service
+@Slf4j
+public class DailyUsageService {
+
+    private final AccountDailyUsageRepository usageRepo;
+    private final TransactionRepository txnRepo;
+    private final AccountBalanceStripeRepository stripeRepo;
+    private final TransactionTemplate tt;
+
+    public DailyUsageService(AccountDailyUsageRepository usageRepo,
+                             TransactionRepository txnRepo,
+                             AccountBalanceStripeRepository stripeRepo,
+                             PlatformTransactionManager txManager) {
+        this.usageRepo = usageRepo;
+        this.txnRepo = txnRepo;
+        this.stripeRepo = stripeRepo;
+        this.tt = new TransactionTemplate(txManager);
+    }
+
+    public BigDecimal withdrawnOn(Long accountId, LocalDate day) {
+        return usageRepo.findWithdrawn(accountId, day).orElse(BigDecimal.ZERO);
+    }
+
+    public BigDecimal depositedOn(Long accountId, LocalDate day) {
+        return usageRepo.findDeposited(accountId, day).orElse(BigDecimal.ZERO);
+    }
+
+    /**
+     * Add a debit of {@code amount} to the account's counters for {@code day}.
+     */
+    public void recordWithdrawal(Account account, LocalDate day, BigDecimal amount) {
+        usageRepo.add(account.getId(), day, amount, BigDecimal.ZERO);
+    }
+
+    /**
+     * Add a credit of {@code amount} to the account's counters for {@code day}.
+     */
+    public void recordDeposit(Account account, LocalDate day, BigDecimal amount) {
+        usageRepo.add(account.getId(), day, BigDecimal.ZERO, amount);
+    }
+
+    /**
+     * Add both sides of a transfer to the counters for {@code day}. The rows are written in account-id
+     * order: in OPTIMISTIC mode no account row is locked, so these upserts are the transfer's first
+     * row locks and crossing transfers would otherwise deadlock on them.
+     */
+    public void recordTransfer(Account from, Account to, LocalDate day, BigDecimal amount) {
+        if (from.getId() < to.getId()) {
+            recordWithdrawal(from, day, amount);
+            recordDeposit(to, day, amount);
+        } else {
+            recordDeposit(to, day, amount);
+            recordWithdrawal(from, day, amount);
+        }
+    }
+
+    /**
+     * Recompute every account's counters for {@code day} from transaction_record, the current day
+     * included. Use after a deploy or a manual ledger correction; existing rows for the day are replaced.
+     *
+     * Each account is rebuilt in its own transaction that first locks the account's stripes and then
+     * its counter row, the order transfers take them in, and only then sums the ledger. A transfer that
+     * already wrote the counter has committed by the time the sum runs, and one that has not yet waits
+     * for the rebuild and adds to the new value, so no increment is lost or counted twice. Stripe
+     * credits of the day still waiting to be folded are left out, as their fold adds them.
+     *
+     * Counters that are written after their ledger rows commit are not covered: the bank account's side
+     * of a monthly run that is still in progress (see MonthlyService) is counted again when it is
+     * applied. Rebuild the bank account's day once the run has finished.
+     *
+     * @return number of accounts rebuilt
+     */
+    public int rebuild(LocalDate day) {
+        if (day.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("Days after today cannot be rebuilt");
+        }
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.atTime(LocalTime.MAX);
+
+        // accounts the ledger moved that day, and those with a counter that may have drifted
+        Set<Long> accountIds = new TreeSet<>(usageRepo.findAccountIdsByUsageDate(day));
+        txnRepo.sumWithdrawnByAccountBetween(from, to).forEach(row -> accountIds.add((Long) row[0]));
+        txnRepo.sumDepositedByAccountBetween(from, to).forEach(row -> accountIds.add((Long) row[0]));
+
+        for (Long accountId : accountIds) {
+            tt.executeWithoutResult(status -> rebuildAccount(accountId, day, from, to));
+        }
+        log.info("Rebuilt daily usage for {}: {} accounts", day, accountIds.size());
+        return accountIds.size();
+    }
+
+    private void rebuildAccount(Long accountId, LocalDate day, LocalDateTime from, LocalDateTime to) {
+        BigDecimal unfolded = BigDecimal.ZERO;
+        for (AccountBalanceStripe s : stripeRepo.findByAccountIdForUpdate(accountId)) {
+            if (day.equals(s.getCreditDate())) unfolded = unfolded.add(s.getAmount());
+        }
+        // creates the row if needed and holds its lock until the new totals are written
+        usageRepo.add(accountId, day, BigDecimal.ZERO, BigDecimal.ZERO);
+        Object[] sums = txnRepo.sumInOutByAccountBetween(accountId, from, to).get(0);
+        usageRepo.set(accountId, day, (BigDecimal) sums[1], ((BigDecimal) sums[0]).subtract(unfolded));
+    }
+}
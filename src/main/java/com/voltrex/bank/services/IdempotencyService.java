@@ -0,0 +1,220 @@
+package com.voltrex.bank.services;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializerBase;
+import com.voltrex.bank.entities.IdempotencyRecord;
+import com.voltrex.bank.exception.TransferException;
+import com.voltrex.bank.repositories.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Idempotency-Key handling for the single-transfer endpoints.
+ *
+ * A key is scoped to the user and stored with the resulting referenceNumber in the transfer's own
+ * transaction. A replay is answered from a bounded in-memory LRU of recent keys, falling back to
+ * idempotency_record, without running the transfer (or taking any account lock) again. Duplicates
+ * that arrive while the first request is still running wait for its outcome instead of executing.
+ * Across nodes, the unique (user_id, idempotency_key) constraint makes the losing transfer roll back.
+ *
+ * Failed transfers store nothing, so a retry after e.g. insufficient funds runs again.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private static final JsonMapper CANONICAL = JsonMapper.builder()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .addModule(new SimpleModule().addSerializer(BigDecimal.class, new ToStringSerializerBase(BigDecimal.class) {
+                @Override
+                public String valueToString(Object value) {
+                    BigDecimal amount = (BigDecimal) value;
+                    return amount.signum() == 0 ? "0" : amount.stripTrailingZeros().toPlainString();
+                }
+            }))
+            .build();
+
+    private final IdempotencyRecordRepository recordRepo;
+    private final TransferExecutor executor;
+    private final TransactionTemplate tt;
+    private final int retentionHours;
+
+    // "userId:key" -> outcome, least recently used evicted first
+    private final Map<String, Stored> recent;
+    private final ConcurrentHashMap<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter cacheReplays;
+    private final Counter dbReplays;
+    private final Counter coalesced;
+
+    private record Stored(String fingerprint, String referenceNumber) {}
+
+    private record InFlight(String fingerprint, CompletableFuture<String> result) {}
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepo,
+                              TransferExecutor executor,
+                              PlatformTransactionManager txManager,
+                              MeterRegistry registry,
+                              @Value("${transfer.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${transfer.idempotency.retention-hours:24}") int retentionHours) {
+        this.recordRepo = recordRepo;
+        this.executor = executor;
+        this.tt = new TransactionTemplate(txManager);
+        this.retentionHours = retentionHours;
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+                return size() > cacheSize;
+            }
+        });
+
+        this.cacheReplays = Counter.builder("bank.transfer.idempotent.replays").tag("source", "cache").register(registry);
+        this.dbReplays = Counter.builder("bank.transfer.idempotent.replays").tag("source", "db").register(registry);
+        this.coalesced = Counter.builder("bank.transfer.idempotent.replays").tag("source", "in-flight").register(registry);
+    }
+
+    /**
+     * Run {@code transfer} through the TransferExecutor at most once per (user, key) and return its
+     * referenceNumber. Without a key the transfer simply runs.
+     *
+     * @param request the request body; reusing a key with a different body is rejected
+     */
+    public String execute(Long userId, String key, Object request, Supplier<String> transfer) {
+        if (key == null) return executor.execute(transfer);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+
+        String id = userId + ":" + key;
+        String fingerprint = fingerprint(request);
+
+        Stored stored = recent.get(id);
+        if (stored != null) {
+            cacheReplays.increment();
+            return replay(stored, fingerprint);
+        }
+
+        InFlight mine = new InFlight(fingerprint, new CompletableFuture<>());
+        InFlight running = inFlight.putIfAbsent(id, mine);
+        if (running != null) {
+            coalesced.increment();
+            return await(running, fingerprint);
+        }
+
+        try {
+            String ref = runOnce(userId, key, id, fingerprint, transfer);
+            mine.result().complete(ref);
+            return ref;
+        } catch (RuntimeException ex) {
+            mine.result().completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(id, mine);
+        }
+    }
+
+    private String runOnce(Long userId, String key, String id, String fingerprint, Supplier<String> transfer) {
+        Optional<IdempotencyRecord> existing = recordRepo.findByUserIdAndIdempotencyKey(userId, key);
+        if (existing.isPresent()) {
+            dbReplays.increment();
+            return replay(remember(id, existing.get()), fingerprint);
+        }
+
+        try {
+            String ref = executor.execute(() -> tt.execute(status -> {
+                String r = transfer.get();
+                recordRepo.saveAndFlush(IdempotencyRecord.builder()
+                        .userId(userId)
+                        .idempotencyKey(key)
+                        .fingerprint(fingerprint)
+                        .referenceNumber(r)
+                        .createdAt(LocalDateTime.now())
+                        .build());
+                return r;
+            }));
+            recent.put(id, new Stored(fingerprint, ref));
+            return ref;
+        } catch (DataIntegrityViolationException ex) {
+            // another node committed the same key first; our transfer was rolled back with it
+            IdempotencyRecord winner = recordRepo.findByUserIdAndIdempotencyKey(userId, key).orElseThrow(() -> ex);
+            dbReplays.increment();
+            return replay(remember(id, winner), fingerprint);
+        }
+    }
+
+    private String await(InFlight running, String fingerprint) {
+        if (!running.fingerprint().equals(fingerprint)) throw keyReused();
+        try {
+            return running.result().join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw ex;
+        }
+    }
+
+    private Stored remember(String id, IdempotencyRecord record) {
+        Stored stored = new Stored(record.getFingerprint(), record.getReferenceNumber());
+        recent.put(id, stored);
+        return stored;
+    }
+
+    private String replay(Stored stored, String fingerprint) {
+        if (!stored.fingerprint().equals(fingerprint)) throw keyReused();
+        return stored.referenceNumber();
+    }
+
+    private TransferException keyReused() {
+        return new TransferException(HEADER + " was already used for a different request");
+    }
+
+    // SHA-256 of the request as canonical JSON: properties sorted by name, nulls left out and amounts
+    // without trailing zeros, so stored keys survive a new optional field or a reordered DTO
+    static String fingerprint(Object request) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(sha.digest(CANONICAL.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Request cannot be fingerprinted: " + e.getOriginalMessage(), e);
+        }
+    }
+
+    @Scheduled(cron = "${transfer.idempotency.purge-cron:0 15 * * * *}")
+    public void purgeExpired() {
+        LocalDateTime before = LocalDateTime.now().minusHours(retentionHours);
+        Integer removed = tt.execute(status -> recordRepo.deleteCreatedBefore(before));
+        log.info("Purged {} idempotency records older than {}", removed, before);
+    }
+}
@@ -0,0 +1,195 @@
+package com.voltrex.bank.services;
+
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Signing keys for the asymmetric JWT modes (jwt.algorithm=ES256 or EdDSA).
+ *
+ * Keys come from a PKCS#12 keystore (jwt.keystore); each entry's alias is its key id (kid). Rotate by
+ * adding an entry, e.g.
+ *
+ *   keytool -genkeypair -alias 2026-11 -keyalg EC -groupname secp256r1 -keystore jwt.p12 -storetype PKCS12
+ *   keytool -genkeypair -alias 2026-11 -keyalg Ed25519 -keystore jwt.p12 -storetype PKCS12
+ *
+ * The file is re-read when it changes. Every entry is published at /.well-known/jwks.json at once, but
+ * only starts signing once it is jwt.key-activation-seconds old, so verifiers holding a cached key set
+ * can pick it up first; jwt.active-kid pins the signing key instead. Remove an old entry once the
+ * tokens it signed have expired.
+ *
+ * Without a keystore a key pair is generated at startup: fine for development, but tokens then do not
+ * survive a restart and are not accepted by other nodes.
+ */
+@Service
+@Slf4j
+public class JwtKeys {
+
+    public enum Algorithm { HS256, ES256, EdDSA }
+
+    /**
+     * One key pair; {@code privateKey} is null for entries that only verify.
+     */
+    public record SigningKey(String kid, Algorithm algorithm, PrivateKey privateKey, PublicKey publicKey, Instant createdAt) {}
+
+    private final Algorithm algorithm;
+    private final String keystorePath;
+    private final char[] keystorePassword;
+    private final String activeKid;
+    private final Duration activationDelay;
+
+    private volatile Map<String, SigningKey> keys = Map.of();
+    private volatile long loadedModified = -1;
+
+    public JwtKeys(@Value("${jwt.algorithm:HS256}") Algorithm algorithm,
+                   @Value("${jwt.keystore:}") String keystorePath,
+                   @Value("${jwt.keystore-password:}") String keystorePassword,
+                   @Value("${jwt.active-kid:}") String activeKid,
+                   @Value("${jwt.key-activation-seconds:300}") long activationSeconds) throws Exception {
+        this.algorithm = algorithm;
+        this.keystorePath = keystorePath;
+        this.keystorePassword = keystorePassword.toCharArray();
+        this.activeKid = activeKid;
+        this.activationDelay = Duration.ofSeconds(activationSeconds);
+
+        if (algorithm == Algorithm.HS256) return;
+        if (keystorePath.isBlank()) {
+            SigningKey generated = generate(algorithm);
+            keys = Map.of(generated.kid(), generated);
+            log.warn("No jwt.keystore set; signing {} tokens with an ephemeral key {}", algorithm, generated.kid());
+        } else {
+            reload();
+            if (keys.isEmpty()) throw new IllegalStateException("No keys in JWT keystore " + keystorePath);
+        }
+    }
+
+    public Algorithm algorithm() {
+        return algorithm;
+    }
+
+    public boolean asymmetric() {
+        return algorithm != Algorithm.HS256;
+    }
+
+    /**
+     * The key new tokens are signed with.
+     */
+    public SigningKey signingKey() {
+        Map<String, SigningKey> current = keys;
+        if (!activeKid.isBlank()) {
+            SigningKey pinned = current.get(activeKid);
+            if (pinned == null || pinned.algorithm() != algorithm || pinned.privateKey() == null) {
+                throw new IllegalStateException("jwt.active-kid " + activeKid + " is not a " + algorithm + " key in the keystore");
+            }
+            return pinned;
+        }
+        Instant activeBefore = Instant.now().minus(activationDelay);
+        List<SigningKey> candidates = current.values().stream()
+                .filter(k -> k.algorithm() == algorithm && k.privateKey() != null)
+                .sorted(Comparator.comparing(SigningKey::createdAt).reversed())
+                .toList();
+        if (candidates.isEmpty()) throw new IllegalStateException("No " + algorithm + " key in the JWT keystore");
+        // newest key that has been published long enough, else the oldest one we have
+        return candidates.stream().filter(k -> k.createdAt().isBefore(activeBefore)).findFirst()
+                .orElse(candidates.get(candidates.size() - 1));
+    }
+
+    public PublicKey publicKey(String kid) {
+        SigningKey key = keys.get(kid);
+        return key == null ? null : key.publicKey();
+    }
+
+    /**
+     * Public JWKs of every key, for /.well-known/jwks.json. Empty in HS256 mode.
+     */
+    public List<PublicJwk<?>> publicJwks() {
+        List<PublicJwk<?>> jwks = new ArrayList<>();
+        for (SigningKey key : keys.values()) {
+            jwks.add(Jwks.builder().key(key.publicKey()).id(key.kid())
+                    .algorithm(key.algorithm().name()).publicKeyUse("sig").build());
+        }
+        return Collections.unmodifiableList(jwks);
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.keystore-reload-ms:60000}")
+    public void reloadIfChanged() {
+        if (!asymmetric() || keystorePath.isBlank()) return;
+        try {
+            if (Files.getLastModifiedTime(Path.of(keystorePath)).toMillis() != loadedModified) reload();
+        } catch (Exception ex) {
+            log.error("Failed to reload JWT keystore {}: {}", keystorePath, ex.getMessage(), ex);
+        }
+    }
+
+    private void reload() throws Exception {
+        Path path = Path.of(keystorePath);
+        long modified = Files.getLastModifiedTime(path).toMillis();
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(path)) {
+            store.load(in, keystorePassword);
+        }
+
+        Map<String, SigningKey> loaded = new LinkedHashMap<>();
+        for (String alias : Collections.list(store.aliases())) {
+            Certificate cert = store.getCertificate(alias);
+            if (cert == null) continue;
+            PublicKey publicKey = cert.getPublicKey();
+            Algorithm alg = algorithmOf(publicKey);
+            if (alg == null) {
+                log.warn("Skipping JWT keystore entry {}: unsupported key type {}", alias, publicKey.getAlgorithm());
+                continue;
+            }
+            Key privateKey = store.isKeyEntry(alias) ? store.getKey(alias, keystorePassword) : null;
+            Date created = store.getCreationDate(alias);
+            loaded.put(alias, new SigningKey(alias, alg, (PrivateKey) privateKey, publicKey,
+                    created == null ? Instant.EPOCH : created.toInstant()));
+        }
+        keys = Map.copyOf(loaded);
+        loadedModified = modified;
+        log.info("Loaded JWT keys {} from {}", loaded.keySet(), keystorePath);
+    }
+
+    private static Algorithm algorithmOf(PublicKey key) {
+        if (key instanceof ECPublicKey ec && ec.getParams().getCurve().getField().getFieldSize() == 256) return Algorithm.ES256;
+        if ("Ed25519".equals(key.getAlgorithm()) || "EdDSA".equals(key.getAlgorithm())) return Algorithm.EdDSA;
+        return null;
+    }
+
+    private static SigningKey generate(Algorithm algorithm) throws Exception {
+        KeyPairGenerator generator;
+        if (algorithm == Algorithm.ES256) {
+            generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+        } else {
+            generator = KeyPairGenerator.getInstance("Ed25519");
+        }
+        KeyPair pair = generator.generateKeyPair();
+        return new SigningKey("ephemeral-" + UUID.randomUUID(), algorithm, pair.getPrivate(), pair.getPublic(), Instant.EPOCH);
+    }
+}
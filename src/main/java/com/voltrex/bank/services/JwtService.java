@@ -1,49 +1,151 @@
 package com.voltrex.bank.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.voltrex.bank.entities.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
-import jakarta.validation.Valid;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
 import java.util.Date;
-import java.util.Set;
+import java.util.UUID;
 
+/**
+ * Issues and verifies short-lived access tokens (jwt.access-token-minutes); clients renew them with a
+ * refresh token (RefreshTokenService). Each token carries a jti so it can be revoked individually.
+ *
+ * Tokens are signed with the shared HMAC secret (jwt.secretKey) by default. With jwt.algorithm=ES256
+ * or EdDSA they are signed with the active key from JwtKeys and carry its kid, so other services can
+ * verify them with the public keys from /.well-known/jwks.json and never hold a signing secret. In
+ * that mode a configured secret is still accepted for kid-less tokens issued before the switch.
+ *
+ * The key and parser are built once; tokens that verified are remembered by their SHA-256 digest until
+ * they expire, so a client repeating the same bearer token skips signature checking and claim parsing.
+ * Only the digest is kept, never the token itself.
+ */
 @Component
 @Service
 public class JwtService {
 
-    @Value("${jwt.secretKey}")
-    private String jwtSecretKey;
+    private final SecretKey secretKey;
+    private final JwtKeys keys;
+    private final JwtParser parser;
+    private final long accessTokenMillis;
+    private final Cache<String, AccessToken> verified;
 
-    private SecretKey getSecretKey(){
-        return Keys.hmacShaKeyFor(jwtSecretKey.getBytes(StandardCharsets.UTF_8));
+    /**
+     * A verified access token. {@code jti} is null for tokens issued before tokens carried one.
+     */
+    public record AccessToken(Long userId, String jti, long expiresAtMillis) {
+        public LocalDateTime expiresAt() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAtMillis), ZoneId.systemDefault());
+        }
+    }
+
+    public JwtService(@Value("${jwt.secretKey:}") String jwtSecretKey,
+                      JwtKeys keys,
+                      @Value("${jwt.access-token-minutes:10}") long accessTokenMinutes,
+                      @Value("${jwt.verified-cache.max-size:10000}") long verifiedCacheSize,
+                      MeterRegistry registry) {
+        if (jwtSecretKey.isBlank() && !keys.asymmetric()) {
+            throw new IllegalStateException("jwt.secretKey is required with jwt.algorithm=HS256");
+        }
+        this.secretKey = jwtSecretKey.isBlank() ? null : Keys.hmacShaKeyFor(jwtSecretKey.getBytes(StandardCharsets.UTF_8));
+        this.keys = keys;
+        this.parser = keys.asymmetric()
+                ? Jwts.parser().keyLocator(new KeyLocator()).build()
+                : Jwts.parser().verifyWith(secretKey).build();
+        this.accessTokenMillis = Duration.ofMinutes(accessTokenMinutes).toMillis();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfter(Expiry.<String, AccessToken>creating((digest, v) ->
+                        Duration.ofMillis(Math.max(0, v.expiresAtMillis() - System.currentTimeMillis()))))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, verified, "jwtVerified");
+    }
+
+    /**
+     * Lifetime of the tokens {@link #generateToken} issues, in seconds.
+     */
+    public long accessTokenSeconds() {
+        return accessTokenMillis / 1000;
     }
 
     public String generateToken(User user){
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder();
+        if (keys.asymmetric()) {
+            JwtKeys.SigningKey key = keys.signingKey();
+            builder.header().keyId(key.kid()).and()
+                    .signWith(key.privateKey(), key.algorithm() == JwtKeys.Algorithm.ES256 ? Jwts.SIG.ES256 : Jwts.SIG.EdDSA);
+        } else {
+            builder.signWith(secretKey);
+        }
+        return builder
+                .id(UUID.randomUUID().toString())
                 .subject(user.getId().toString())
                 .claim("crn",user.getCrn())
                 .claim("email",user.getEmail())
                 .claim("name",user.getFirstName())
                 .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + 1000*60*60*24))
-                .signWith(getSecretKey())
+                .expiration(new Date(System.currentTimeMillis() + accessTokenMillis))
                 .compact();
     }
 
-    public Long getUserIdFromToken(String token){
-        Claims claims = Jwts.parser()
-                .verifyWith(getSecretKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * @throws io.jsonwebtoken.JwtException when the token is malformed, forged or expired
+     */
+    public AccessToken verify(String token){
+        String digest = digest(token);
+        AccessToken hit = verified.getIfPresent(digest);
+        // entries are dropped at expiry; the check only covers the moment in between
+        if (hit != null && hit.expiresAtMillis() > System.currentTimeMillis()) return hit;
+
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        AccessToken verifiedToken = new AccessToken(Long.valueOf(claims.getSubject()), claims.getId(), expiresAt);
+        if (claims.getExpiration() != null) verified.put(digest, verifiedToken);
+        return verifiedToken;
+    }
+
+    // picks the verification key by kid; kid-less tokens predate the switch to asymmetric signing
+    private final class KeyLocator extends LocatorAdapter<Key> {
+        @Override
+        protected Key locate(JwsHeader header) {
+            String kid = header.getKeyId();
+            Key key = kid == null ? secretKey : keys.publicKey(kid);
+            if (key == null) throw new UnsupportedJwtException("Unknown JWT key id: " + kid);
+            return key;
+        }
+    }
 
-        return Long.valueOf(claims.getSubject());
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
     }
 }
@@ -2,17 +2,19 @@ package com.voltrex.bank.services;
 
 import com.voltrex.bank.entities.Account;
 import com.voltrex.bank.entities.JobRun;
+import com.voltrex.bank.entities.JobRunPartition;
 import com.voltrex.bank.entities.Transaction;
 import com.voltrex.bank.entities.TransactionType;
 import com.voltrex.bank.repositories.AccountRepository;
+import com.voltrex.bank.repositories.JobRunPartitionRepository;
 import com.voltrex.bank.repositories.JobRunRepository;
 import com.voltrex.bank.repositories.TransactionRepository;
 import com.voltrex.bank.repositories.UserRepository;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -20,51 +22,129 @@ import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
+/**
+ * Month-end interest, fees and penalties.
+ *
+ * The account id space is cut into ranges of partition-size ids, recorded as job_run_partition rows
+ * of the month's JobRun, and worked off on the monthlyExecutor pool (see AppConfig). Each worker pages
+ * through its range by id and processes every account in its own transaction, which also moves the
+ * range's last_account_id; progress and throughput are saved after each page.
+ *
+ * A FAILED run can be run again: completed ranges are skipped and the others carry on after the last
+ * account that committed, so no account is charged twice for the month.
+ *
+ * Every charge and credit has the bank account (000000000000) on its other side. Writing the bank's
+ * counters, summary and change version in each account's transaction would queue all workers on those
+ * rows, so an account's transaction only writes the customer's side. A worker adds up the bank's side of
+ * the accounts that committed and applies it after each page, in a short transaction of its own. When
+ * that fails it is retried with the next page; totals still unapplied when the range ends are logged,
+ * and DailyUsageService.rebuild and AccountSummaryService.rebuildAccount restore them from the ledger.
+ */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class MonthlyService {
 
+    private static final String JOB_NAME = "monthly_account_processing";
+    private static final String BANK_ACCOUNT = "000000000000";
+
     private final AccountRepository accountRepo;
     private final TransactionRepository txnRepo;
     private final JobRunRepository jobRunRepo;
+    private final JobRunPartitionRepository partitionRepo;
     private final UserRepository userRepo;
-    private final PlatformTransactionManager txManager;
+    private final TransactionTemplate tt;
+    private final DailyUsageService dailyUsage;
+    private final StripedBalanceService stripes;
+    private final TransactionFeedCache feedCache;
+    private final AccountSummaryService summaries;
+    private final ChangeVersionService changeVersions;
+    private final AsyncTaskExecutor pool;
     // config
     private final int pageSize = 200;
+    private final long partitionSize;
+
+    public MonthlyService(AccountRepository accountRepo,
+                          TransactionRepository txnRepo,
+                          JobRunRepository jobRunRepo,
+                          JobRunPartitionRepository partitionRepo,
+                          UserRepository userRepo,
+                          PlatformTransactionManager txManager,
+                          DailyUsageService dailyUsage,
+                          StripedBalanceService stripes,
+                          TransactionFeedCache feedCache,
+                          AccountSummaryService summaries,
+                          ChangeVersionService changeVersions,
+                          @Qualifier("monthlyExecutor") AsyncTaskExecutor pool,
+                          @Value("${monthly.partition-size:5000}") long partitionSize) {
+        this.accountRepo = accountRepo;
+        this.txnRepo = txnRepo;
+        this.jobRunRepo = jobRunRepo;
+        this.partitionRepo = partitionRepo;
+        this.userRepo = userRepo;
+        this.tt = new TransactionTemplate(txManager);
+        this.dailyUsage = dailyUsage;
+        this.stripes = stripes;
+        this.feedCache = feedCache;
+        this.summaries = summaries;
+        this.changeVersions = changeVersions;
+        this.pool = pool;
+        this.partitionSize = Math.max(1, partitionSize);
+    }
 
     // Use ShedLock annotation if added:
     // @SchedulerLock(name = "monthlyProcessorLock", lockAtLeastFor = "PT10M", lockAtMostFor = "PT1H")
     @Scheduled(cron = "0 0 2 1 * *") // 2:00 on the 1st day of month (server timezone)
     public void runMonthlyJobs() {
+        run(YearMonth.now().minusMonths(1)); // process previous month
+    }
 
-        YearMonth toProcess = YearMonth.now().minusMonths(1); // process previous month
-        int year = toProcess.getYear();
-        int month = toProcess.getMonthValue();
-        String jobName = "monthly_account_processing";
+    /**
+     * Process {@code period}, or resume it if its run FAILED. A run that is COMPLETED or still
+     * IN_PROGRESS (perhaps on another node) is left alone; a node that died mid-run leaves it
+     * IN_PROGRESS, and it has to be set to FAILED by hand before it can be resumed.
+     *
+     * @return the status of the period's run afterwards
+     */
+    public String run(YearMonth period) {
+        int year = period.getYear();
+        int month = period.getMonthValue();
 
         // idempotency check
-        Optional<JobRun> existing = jobRunRepo.findByJobNameAndPeriodYearAndPeriodMonth(jobName, year, month);
+        Optional<JobRun> existing = jobRunRepo.findByJobNameAndPeriodYearAndPeriodMonth(JOB_NAME, year, month);
+        JobRun run;
         if (existing.isPresent()) {
-            log.info("Monthly job for {}-{} already recorded: status={}", year, month, existing.get().getStatus());
-            return;
+            run = existing.get();
+            if (!"FAILED".equals(run.getStatus()) || !claimFailed(run.getId())) {
+                log.info("Monthly job for {}-{} already recorded: status={}", year, month, run.getStatus());
+                return run.getStatus();
+            }
+            log.info("Resuming failed monthly job for {}-{}", year, month);
+            run.setStatus("IN_PROGRESS");
+            run.setFinishedAt(null);
+        } else {
+            run = new JobRun();
+            run.setJobName(JOB_NAME);
+            run.setPeriodYear(year);
+            run.setPeriodMonth(month);
+            run.setStartedAt(LocalDateTime.now());
+            run.setStatus("IN_PROGRESS");
+            run = jobRunRepo.save(run);
         }
 
-        JobRun run = new JobRun();
-        run.setJobName(jobName);
-        run.setPeriodYear(year);
-        run.setPeriodMonth(month);
-        run.setStartedAt(LocalDateTime.now());
-        run.setStatus("IN_PROGRESS");
-        jobRunRepo.save(run);
-
         try {
-            processMonth(year, month);
+            run.setDetails(processMonth(run.getId(), year, month));
             run.setFinishedAt(LocalDateTime.now());
             run.setStatus("COMPLETED");
             jobRunRepo.save(run);
@@ -76,46 +156,193 @@ public class MonthlyService {
             jobRunRepo.save(run);
             // optional: alert/notify
         }
+        return run.getStatus();
     }
 
-    private void processMonth(int year, int month) {
-        Pageable pageable = PageRequest.of(0, pageSize);
-        Page<Account> page;
+    // FAILED -> IN_PROGRESS as one conditional update, so only one caller resumes a run
+    private boolean claimFailed(Long runId) {
+        Integer updated = tt.execute(status -> jobRunRepo.resumeFailed(runId));
+        return updated != null && updated == 1;
+    }
 
-        do {
-            page = accountRepo.findAll(pageable);
-            for (Account a : page) {
-                processAccountSafely(a.getId(), year, month); // pass id + period
-            }
-            if (page.hasNext()) {
-                pageable = page.nextPageable();
-            } else break;
-        } while (true);
+    // returns the run summary for JobRun.details; throws when any partition failed
+    private String processMonth(Long runId, int year, int month) {
+        List<JobRunPartition> partitions = partitionRepo.findByJobRunIdOrderByPartitionNo(runId);
+        if (partitions.isEmpty()) partitions = createPartitions(runId);
+        if (partitions.isEmpty()) return "no accounts";
+
+        Account bankAccount = accountRepo.findByAccountNumber(BANK_ACCOUNT)
+                .orElseThrow(() -> new IllegalStateException("Bank account " + BANK_ACCOUNT + " is missing"));
+        // the bank's summary takes its movements in bulk; one built from the ledger during the run would
+        // already hold the committed but unapplied ones and count them twice
+        summaries.summariesFor(bankAccount.getOwner().getId(), List.of(bankAccount));
+
+        List<JobRunPartition> todo = partitions.stream().filter(p -> !"COMPLETED".equals(p.getStatus())).toList();
+        log.info("Monthly job for {}-{}: {} of {} partitions to process", year, month, todo.size(), partitions.size());
+
+        long started = System.nanoTime();
+        long before = partitions.stream().mapToLong(p -> p.getProcessedAccounts() + p.getFailedAccounts()).sum();
+        List<Future<JobRunPartition>> futures = new ArrayList<>();
+        try {
+            for (JobRunPartition p : todo) futures.add(pool.submit(() -> processPartition(p, bankAccount, year, month)));
+            for (Future<JobRunPartition> f : futures) f.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Interrupted while waiting for partitions", ex);
+        } catch (ExecutionException ex) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Partition worker failed: " + ex.getCause().getMessage(), ex.getCause());
+        }
+
+        // the partition objects were updated in place by their workers
+        long processed = partitions.stream().mapToLong(JobRunPartition::getProcessedAccounts).sum();
+        long failed = partitions.stream().mapToLong(JobRunPartition::getFailedAccounts).sum();
+        long failedPartitions = partitions.stream().filter(p -> "FAILED".equals(p.getStatus())).count();
+        String summary = String.format("partitions=%d accounts=%d failed=%d accountsPerSecond=%.1f",
+                partitions.size(), processed, failed, rate(processed + failed - before, System.nanoTime() - started));
+        log.info("Monthly job for {}-{} finished: {}", year, month, summary);
+        if (failedPartitions > 0) {
+            throw new IllegalStateException(failedPartitions + " partitions failed; " + summary);
+        }
+        return summary;
     }
 
-    private void processAccountSafely(Long accountId,int year,int month) {
-        // wrap per-account in its own transaction to limit rollback scope
-        TransactionTemplate tt = new TransactionTemplate(txManager);
+    private List<JobRunPartition> createPartitions(Long runId) {
+        Optional<Long> minId = accountRepo.findMinId();
+        if (minId.isEmpty()) return List.of();
+        // accounts opened after this point belong to the next period anyway
+        long lo = minId.get();
+        long hi = accountRepo.findMaxId().orElse(lo);
+
+        List<JobRunPartition> partitions = new ArrayList<>();
+        for (long from = lo; from <= hi; from += partitionSize) {
+            partitions.add(JobRunPartition.builder()
+                    .jobRunId(runId)
+                    .partitionNo(partitions.size())
+                    .fromId(from)
+                    .toId(Math.min(hi, from + partitionSize - 1))
+                    .status("PENDING")
+                    .build());
+        }
+        return partitionRepo.saveAll(partitions);
+    }
+
+    // runs on a worker thread; never throws, the outcome is in the returned partition
+    private JobRunPartition processPartition(JobRunPartition part, Account bankAccount, int year, int month) {
+        part.setStatus("IN_PROGRESS");
+        if (part.getStartedAt() == null) part.setStartedAt(LocalDateTime.now());
+        part.setFinishedAt(null);
+        part.setDetails(null);
+        saveProgress(part);
+
+        long started = System.nanoTime();
+        long before = part.getProcessedAccounts() + part.getFailedAccounts();
+        BankSide bank = new BankSide(bankAccount);
+        try {
+            // a resumed range carries on after the last account that committed
+            long after = part.getLastAccountId() != null ? part.getLastAccountId() : part.getFromId() - 1;
+            List<Long> ids;
+            do {
+                ids = accountRepo.findIdsInRange(after, part.getToId(), Limit.of(pageSize));
+                for (Long id : ids) {
+                    if (processAccountSafely(part.getId(), id, bank, year, month)) {
+                        part.setProcessedAccounts(part.getProcessedAccounts() + 1);
+                    } else {
+                        part.setFailedAccounts(part.getFailedAccounts() + 1);
+                    }
+                    part.setLastAccountId(id);
+                }
+                if (ids.isEmpty()) break;
+                applyBankSide(bank);
+                after = ids.get(ids.size() - 1);
+                part.setAccountsPerSecond(rate(part.getProcessedAccounts() + part.getFailedAccounts() - before, System.nanoTime() - started));
+                saveProgress(part);
+            } while (ids.size() == pageSize);
+            part.setStatus("COMPLETED");
+        } catch (Exception ex) {
+            log.error("Monthly partition {} (ids {}..{}) failed after account {}: {}",
+                    part.getPartitionNo(), part.getFromId(), part.getToId(), part.getLastAccountId(), ex.getMessage(), ex);
+            part.setStatus("FAILED");
+            part.setDetails(ex.getMessage());
+        }
+        if (!applyBankSide(bank)) {
+            log.error("Monthly partition {} left the bank's side unapplied, rebuild its daily usage and summary: {}",
+                    part.getPartitionNo(), bank);
+        }
+        part.setFinishedAt(LocalDateTime.now());
+        part.setAccountsPerSecond(rate(part.getProcessedAccounts() + part.getFailedAccounts() - before, System.nanoTime() - started));
+        saveProgress(part);
+        return part;
+    }
+
+    // progress is informational; losing an update must not stop the partition
+    private void saveProgress(JobRunPartition part) {
+        try {
+            partitionRepo.save(part);
+        } catch (Exception ex) {
+            log.warn("Failed to record progress of monthly partition {}: {}", part.getPartitionNo(), ex.getMessage());
+        }
+    }
+
+    // true when nothing is left to apply; on failure the totals are kept for the next attempt
+    private boolean applyBankSide(BankSide bank) {
+        if (bank.isEmpty()) return true;
         try {
             tt.executeWithoutResult(status -> {
+                bank.withdrawn.forEach((day, amount) -> dailyUsage.recordWithdrawal(bank.account, day, amount));
+                bank.deposited.forEach((day, amount) -> dailyUsage.recordDeposit(bank.account, day, amount));
+                summaries.recordDeferred(bank.account.getId(), bank.deposited, bank.withdrawn);
+                changeVersions.bump(bank.account.getOwner().getId());
+            });
+            bank.clear();
+            return true;
+        } catch (Exception ex) {
+            log.warn("Failed to apply the bank's side of monthly charges, retrying with the next page: {}", ex.getMessage());
+            return false;
+        }
+    }
+
+    private static double rate(long accounts, long elapsedNanos) {
+        return elapsedNanos <= 0 ? 0 : accounts * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    // true when the account was processed; failures are logged so the rest of the range carries on.
+    // The partition's cursor moves in the account's transaction, so it never runs ahead of or behind
+    // the charges that committed. The bank's side joins the partition's totals once they have.
+    private boolean processAccountSafely(Long partitionId, Long accountId, BankSide bank, int year, int month) {
+        BankSide entries = new BankSide(bank.account);
+        // one transaction per account to limit rollback scope
+        try {
+            Boolean processed = tt.execute(status -> {
                 // re-load account within transaction and lock it
                 Account account = accountRepo.findByIdForUpdate(accountId)
                         .orElseThrow(() -> new IllegalStateException("Account disappeared: " + accountId));
+                boolean ok;
                 try {
-                    processSingleAccount(account, year, month);
+                    processSingleAccount(account, entries, year, month);
+                    ok = true;
                 } catch (Exception ex) {
                     // Log and swallow so other accounts still processed
                     log.error("Failed to process account {} for {}-{}: {}", accountId, year, month, ex.getMessage(), ex);
-                    // Optionally record failure in JobRun details or a per-account error table
+                    ok = false;
                 }
+                partitionRepo.advance(partitionId, accountId);
+                return ok;
             });
+            bank.addAll(entries);
+            return Boolean.TRUE.equals(processed);
         } catch (Exception ex) {
             // This outer try catches transaction template errors (rare)
             log.error("TransactionTemplate failed for account {}: {}", accountId, ex.getMessage(), ex);
+            return false;
         }
     }
 
-    private void processSingleAccount(Account account,int year,int month) {
+    private void processSingleAccount(Account account, BankSide bank, int year, int month) {
+        // interest and the minimum-balance check must see credits still sitting on stripes
+        if (stripes.isStriped(account.getId())) stripes.consolidate(account);
+
         BigDecimal balance = account.getBalance() == null ? BigDecimal.ZERO : account.getBalance();
 
         // 1) monthly interest (annualRate stored as % e.g. 3.5)
@@ -124,13 +351,13 @@ public class MonthlyService {
         BigDecimal interest = balance.multiply(monthlyRate).setScale(2, RoundingMode.HALF_UP);
         if (interest.compareTo(BigDecimal.ZERO) > 0) {
             // credit interest to account (credit from bank interest expense account or system account)
-            applyCredit(account, interest, "Monthly interest for " + yearMonthString(year, month));
+            applyCredit(account, bank, interest, "Monthly interest for " + yearMonthString(year, month));
         }
 
         // 2) monthly fee
         BigDecimal monthlyFee = account.getMonthlyFee() == null ? BigDecimal.ZERO : account.getMonthlyFee();
         if (monthlyFee.compareTo(BigDecimal.ZERO) > 0) {
-            applyCharge(account, monthlyFee, "Monthly fee for " + yearMonthString(year, month));
+            applyCharge(account, bank, monthlyFee, "Monthly fee for " + yearMonthString(year, month));
         }
 
         // 3) minimum-balance penalty: check if account violated min during the month
@@ -141,24 +368,24 @@ public class MonthlyService {
         if (violated) {
             BigDecimal penalty = account.getMinimumBalancePenalty() == null ? BigDecimal.ZERO : account.getMinimumBalancePenalty();
             if (penalty.compareTo(BigDecimal.ZERO) > 0) {
-                applyCharge(account, penalty, "Minimum balance penalty for " + yearMonthString(year, month));
+                applyCharge(account, bank, penalty, "Minimum balance penalty for " + yearMonthString(year, month));
             }
         }
 
         if(account.isTransactionAlert()){
             BigDecimal charge = BigDecimal.valueOf(25);
-            applyCharge(account, charge, "Transaction Alert charge for " + yearMonthString(year, month));
+            applyCharge(account, bank, charge, "Transaction Alert charge for " + yearMonthString(year, month));
         }
 
         // persist account (if mutations made by applyCharge/credit already saved, maybe no-op)
     }
 
-    private void applyCredit(Account account, BigDecimal amount, String desc) {
+    private void applyCredit(Account account, BankSide bank, BigDecimal amount, String desc) {
         BigDecimal newBal = account.getBalance().add(amount);
         account.setBalance(newBal);
         accountRepo.save(account);
 
-        Account bankAccount = accountRepo.findByAccountNumber("000000000000").orElseThrow();
+        Account bankAccount = bank.account;
 
 
         Transaction tx = new Transaction();
@@ -168,21 +395,28 @@ public class MonthlyService {
         tx.setAmount(amount);
         tx.setToAccount(account);
         tx.setFromAccount(bankAccount); // or a system bank account if you model it
+        tx.setToOwnerId(account.getOwner().getId());
+        tx.setFromOwnerId(bankAccount.getOwner().getId());
         tx.setDescription(desc);
         tx.setStatus("COMPLETED");
         tx.setExecutedAt(LocalDateTime.now());
         tx.setFromAccountBalanceAfter(null); // no from account
         tx.setToAccountBalanceAfter(newBal);
         txnRepo.save(tx);
+        ledgerWritten(tx, false);
+
+        LocalDate today = tx.getExecutedAt().toLocalDate();
+        bank.withdraw(today, amount);
+        dailyUsage.recordDeposit(account, today, amount);
     }
 
-    private void applyCharge(Account account, BigDecimal amount, String desc) {
+    private void applyCharge(Account account, BankSide bank, BigDecimal amount, String desc) {
         // charge to user's account (debit user, credit bank revenue)
         BigDecimal newBal = account.getBalance().subtract(amount);
         account.setBalance(newBal);
         accountRepo.save(account);
 
-        Account bankAccount = accountRepo.findByAccountNumber("000000000000").orElseThrow();
+        Account bankAccount = bank.account;
 
 
         Transaction tx = new Transaction();
@@ -191,12 +425,66 @@ public class MonthlyService {
         tx.setAmount(amount);
         tx.setFromAccount(account);
         tx.setToAccount(bankAccount); // or system revenue account
+        tx.setFromOwnerId(account.getOwner().getId());
+        tx.setToOwnerId(bankAccount.getOwner().getId());
         tx.setDescription(desc);
         tx.setStatus("COMPLETED");
         tx.setExecutedAt(LocalDateTime.now());
         tx.setFromAccountBalanceAfter(newBal);
         tx.setToAccountBalanceAfter(null);
         txnRepo.save(tx);
+        ledgerWritten(tx, true);
+
+        LocalDate today = tx.getExecutedAt().toLocalDate();
+        dailyUsage.recordWithdrawal(account, today, amount);
+        bank.deposit(today, amount);
+    }
+
+    // caches and read models that follow the ledger: the customer's summary and change version are
+    // written in this transaction, the bank's side later by applyBankSide; the feed cache is evicted
+    // once it commits
+    private void ledgerWritten(Transaction tx, boolean customerPays) {
+        feedCache.evictAfterCommit(tx.getFromOwnerId(), tx.getToOwnerId());
+        summaries.record(tx, customerPays, !customerPays);
+        changeVersions.bump(customerPays ? tx.getFromOwnerId() : tx.getToOwnerId());
+    }
+
+    // the bank's side of committed charges and credits, by day
+    private static final class BankSide {
+        final Account account;
+        final Map<LocalDate, BigDecimal> withdrawn = new TreeMap<>();
+        final Map<LocalDate, BigDecimal> deposited = new TreeMap<>();
+
+        BankSide(Account account) {
+            this.account = account;
+        }
+
+        void withdraw(LocalDate day, BigDecimal amount) {
+            withdrawn.merge(day, amount, BigDecimal::add);
+        }
+
+        void deposit(LocalDate day, BigDecimal amount) {
+            deposited.merge(day, amount, BigDecimal::add);
+        }
+
+        void addAll(BankSide other) {
+            other.withdrawn.forEach(this::withdraw);
+            other.deposited.forEach(this::deposit);
+        }
+
+        boolean isEmpty() {
+            return withdrawn.isEmpty() && deposited.isEmpty();
+        }
+
+        void clear() {
+            withdrawn.clear();
+            deposited.clear();
+        }
+
+        @Override
+        public String toString() {
+            return "withdrawn=" + withdrawn + " deposited=" + deposited;
+        }
     }
 
 //    private boolean checkMinimumBalanceViolation(Long accountId, int year, int month, BigDecimal minimum) {
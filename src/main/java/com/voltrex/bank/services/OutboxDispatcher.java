@@ -0,0 +1,139 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.entities.OutboxMessage;
+import com.voltrex.bank.entities.OutboxStatus;
+import com.voltrex.bank.repositories.OutboxMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Drains outbox_message on a background pool so mail delivery never runs on a request thread or
+ * inside a business transaction.
+ *
+ * Each pass claims up to batch-size due rows (SKIP LOCKED, so several nodes can dispatch at once)
+ * by pushing their available_at forward by a lease, then sends them in parallel. A sent message is
+ * deleted; a failed one is retried with exponential backoff until max-attempts, then marked FAILED.
+ * A dispatcher that dies mid-batch only delays its messages until the lease runs out.
+ *
+ * Credential emails get a fresh temporary password on every attempt, set on the user just before
+ * the send; a password from an attempt that failed is simply replaced by the next one.
+ */
+@Service
+@Slf4j
+public class OutboxDispatcher {
+
+    private final OutboxMessageRepository outboxRepo;
+    private final JavaMailSender mailSender;
+    private final UserService userService;
+    private final Executor pool;
+    private final TransactionTemplate tt;
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long leaseSeconds;
+    private final long backoffSeconds;
+
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+
+    public OutboxDispatcher(OutboxMessageRepository outboxRepo,
+                            JavaMailSender mailSender,
+                            UserService userService,
+                            @Qualifier("outboxExecutor") Executor pool,
+                            PlatformTransactionManager txManager,
+                            MeterRegistry registry,
+                            @Value("${outbox.batch-size:50}") int batchSize,
+                            @Value("${outbox.max-attempts:8}") int maxAttempts,
+                            @Value("${outbox.lease-seconds:120}") long leaseSeconds,
+                            @Value("${outbox.backoff-seconds:10}") long backoffSeconds) {
+        this.outboxRepo = outboxRepo;
+        this.mailSender = mailSender;
+        this.userService = userService;
+        this.pool = pool;
+        this.tt = new TransactionTemplate(txManager);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.leaseSeconds = leaseSeconds;
+        this.backoffSeconds = backoffSeconds;
+
+        this.sent = Counter.builder("bank.outbox.sent").register(registry);
+        this.retried = Counter.builder("bank.outbox.retried").register(registry);
+        this.failed = Counter.builder("bank.outbox.failed").register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        List<OutboxMessage> batch;
+        do {
+            batch = claim();
+            CompletableFuture.allOf(batch.stream()
+                    .map(m -> CompletableFuture.runAsync(() -> deliver(m), pool))
+                    .toArray(CompletableFuture[]::new)).join();
+        } while (batch.size() == batchSize);
+    }
+
+    private List<OutboxMessage> claim() {
+        return tt.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxMessage> due = outboxRepo.findDueForUpdate(now, PageRequest.of(0, batchSize));
+            due.forEach(m -> m.setAvailableAt(now.plusSeconds(leaseSeconds)));
+            return due;
+        });
+    }
+
+    private void deliver(OutboxMessage m) {
+        try {
+            SimpleMailMessage msg = new SimpleMailMessage();
+            msg.setTo(m.getRecipient());
+            msg.setSubject(m.getSubject());
+            msg.setText(render(m));
+            mailSender.send(msg);
+
+            tt.executeWithoutResult(status -> outboxRepo.deleteById(m.getId()));
+            sent.increment();
+        } catch (Exception ex) {
+            tt.executeWithoutResult(status -> outboxRepo.findById(m.getId()).ifPresent(row -> reschedule(row, ex)));
+        }
+    }
+
+    private String render(OutboxMessage m) {
+        if (m.getCredentialUserId() == null) return m.getBody();
+        return m.getBody().replace(OutboxMessage.TEMP_PASSWORD, userService.issueTemporaryPassword(m.getCredentialUserId()));
+    }
+
+    private void reschedule(OutboxMessage row, Exception ex) {
+        int attempts = row.getAttempts() + 1;
+        row.setAttempts(attempts);
+        row.setLastError(truncate(ex.getMessage()));
+        if (attempts >= maxAttempts) {
+            row.setStatus(OutboxStatus.FAILED);
+            failed.increment();
+            log.error("Giving up on outbox message {} ({}) after {} attempts: {}", row.getId(), row.getEventType(), attempts, ex.getMessage());
+        } else {
+            long delay = backoffSeconds << Math.min(attempts - 1, 10);
+            row.setAvailableAt(LocalDateTime.now().plusSeconds(delay));
+            retried.increment();
+            log.warn("Outbox message {} ({}) failed, retrying in {}s: {}", row.getId(), row.getEventType(), delay, ex.getMessage());
+        }
+    }
+
+    private static String truncate(String s) {
+        return s == null || s.length() <= 500 ? s : s.substring(0, 500);
+    }
+}
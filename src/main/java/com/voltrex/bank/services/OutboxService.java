@@ -0,0 +1,54 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.entities.OutboxMessage;
+import com.voltrex.bank.entities.OutboxStatus;
+import com.voltrex.bank.repositories.OutboxMessageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxMessageRepository outboxRepo;
+
+    /**
+     * Queue an email for OutboxDispatcher. Joins the caller's transaction when there is one, so the
+     * email is only sent if that transaction commits.
+     */
+    @Transactional
+    public void enqueue(Object event, String recipient, String subject, String body) {
+        enqueue(event, recipient, subject, body, null);
+    }
+
+    /**
+     * Queue an email that hands {@code userId} a temporary password. The body must contain
+     * OutboxMessage.TEMP_PASSWORD; the dispatcher issues the password and fills it in when it sends
+     * the message, so it is never written to outbox_message.
+     */
+    @Transactional
+    public void enqueueCredential(Object event, Long userId, String recipient, String subject, String body) {
+        if (!body.contains(OutboxMessage.TEMP_PASSWORD)) {
+            throw new IllegalArgumentException("Credential email has no password placeholder");
+        }
+        enqueue(event, recipient, subject, body, userId);
+    }
+
+    private void enqueue(Object event, String recipient, String subject, String body, Long credentialUserId) {
+        LocalDateTime now = LocalDateTime.now();
+        outboxRepo.save(OutboxMessage.builder()
+                .eventType(event.getClass().getSimpleName())
+                .recipient(recipient)
+                .subject(subject)
+                .body(body)
+                .credentialUserId(credentialUserId)
+                .status(OutboxStatus.PENDING)
+                .attempts(0)
+                .availableAt(now)
+                .createdAt(now)
+                .build());
+    }
+}
@@ -0,0 +1,66 @@
+package com.voltrex.bank.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.voltrex.bank.dto.AuthenticatedUser;
+import com.voltrex.bank.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Authenticated principals by user id, so JwtFilter does not load the user on every request.
+ *
+ * Code that changes a user's profile, security settings, password or status calls
+ * {@link #evictAfterCommit}. Eviction is local to this node; the TTL bounds how long another node
+ * can keep serving the old snapshot.
+ *
+ * Caffeine's hit/miss/eviction stats are published as cache.* meters with cache=principals.
+ */
+@Service
+public class PrincipalCache {
+
+    private final UserRepository userRepo;
+    private final Cache<Long, AuthenticatedUser> cache;
+
+    public PrincipalCache(UserRepository userRepo,
+                          MeterRegistry registry,
+                          @Value("${auth.principal-cache.max-size:10000}") long maxSize,
+                          @Value("${auth.principal-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userRepo = userRepo;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "principals");
+    }
+
+    /**
+     * The user's principal, or null when the user does not exist (misses are not cached).
+     */
+    public AuthenticatedUser get(Long userId) {
+        return cache.get(userId, id -> userRepo.findById(id).map(AuthenticatedUser::from).orElse(null));
+    }
+
+    /**
+     * Drop the user's principal once the current transaction commits (immediately when there is none).
+     */
+    public void evictAfterCommit(Long userId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache.invalidate(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.invalidate(userId);
+            }
+        });
+    }
+}
@@ -0,0 +1,177 @@
+package com.voltrex.bank.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process token buckets for the routes RateLimitFilter guards.
+ *
+ * Each limit is "capacity/period" (e.g. 10/1m): up to capacity requests at once, refilled evenly over
+ * the period. A bucket is a single long, the time at which it will be full again (the GCRA form of a
+ * token bucket), so admitting a request is one comparison and one write with no allocation once the
+ * key is known. Buckets live in lock-striped hash maps; a bucket that has refilled completely carries
+ * no state and is dropped by {@link #sweep} or when its stripe is full. A stripe still full of active
+ * buckets gives up the one closest to refilled, so an unseen key is always admitted: spraying fresh keys
+ * cannot lock other clients out, and the keys it pushes out are the ones that had used the least.
+ *
+ * Limits are per node. Rejections are counted as bank.ratelimit.rejected{limit=...}.
+ */
+@Service
+@Slf4j
+public class RateLimiter {
+
+    private static final int STRIPES = 64;
+
+    private final boolean enabled;
+    private final Limit loginIp;
+    private final Limit loginCrn;
+    private final Limit transferUser;
+    private final Limit transferIp;
+    private final List<Limit> all;
+
+    public RateLimiter(MeterRegistry registry,
+                       @Value("${rate-limit.enabled:true}") boolean enabled,
+                       @Value("${rate-limit.max-keys:100000}") int maxKeys,
+                       @Value("${rate-limit.login.per-ip:30/1m}") String loginIp,
+                       @Value("${rate-limit.login.per-crn:10/1m}") String loginCrn,
+                       @Value("${rate-limit.transfer.per-user:60/1m}") String transferUser,
+                       @Value("${rate-limit.transfer.per-ip:300/1m}") String transferIp) {
+        this.enabled = enabled;
+        int perStripe = Math.max(16, maxKeys / STRIPES);
+        this.loginIp = new Limit("login-ip", loginIp, perStripe, registry);
+        this.loginCrn = new Limit("login-crn", loginCrn, perStripe, registry);
+        this.transferUser = new Limit("transfer-user", transferUser, perStripe, registry);
+        this.transferIp = new Limit("transfer-ip", transferIp, perStripe, registry);
+        this.all = List.of(this.loginIp, this.loginCrn, this.transferUser, this.transferIp);
+        log.info("Rate limits {}: login {} per IP, {} per CRN; transfers {} per user, {} per IP",
+                enabled ? "on" : "off", loginIp, loginCrn, transferUser, transferIp);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Limit loginIp() { return loginIp; }
+    public Limit loginCrn() { return loginCrn; }
+    public Limit transferUser() { return transferUser; }
+    public Limit transferIp() { return transferIp; }
+
+    // drop buckets that have refilled completely; they carry no state
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-ms:60000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        for (Limit limit : all) limit.sweep(now);
+    }
+
+    /**
+     * One configured limit and its buckets.
+     */
+    public static final class Limit {
+        private final String name;
+        // nanoseconds per token, and how far ahead of now a bucket may run (capacity - 1 tokens)
+        private final long interval;
+        private final long tolerance;
+        private final int maxPerStripe;
+        private final Object[] locks = new Object[STRIPES];
+        @SuppressWarnings("unchecked")
+        private final Map<String, Cell>[] stripes = new Map[STRIPES];
+        private final Counter rejected;
+
+        private static final class Cell {
+            long fullAt;
+        }
+
+        Limit(String name, String spec, int maxPerStripe, MeterRegistry registry) {
+            this.name = name;
+            String[] parts = spec.trim().split("/");
+            if (parts.length != 2) throw new IllegalArgumentException("Rate limit " + name + " must look like 10/1m: " + spec);
+            long capacity = Long.parseLong(parts[0].trim());
+            if (capacity < 1) throw new IllegalArgumentException("Rate limit " + name + " needs a capacity of at least 1: " + spec);
+            this.interval = Math.max(1, period(parts[1].trim()) / capacity);
+            this.tolerance = interval * (capacity - 1);
+            this.maxPerStripe = maxPerStripe;
+            for (int i = 0; i < STRIPES; i++) {
+                locks[i] = new Object();
+                stripes[i] = new HashMap<>();
+            }
+            this.rejected = Counter.builder("bank.ratelimit.rejected").tag("limit", name).register(registry);
+        }
+
+        private static long period(String p) {
+            char unit = p.charAt(p.length() - 1);
+            long n = p.length() > 1 ? Long.parseLong(p.substring(0, p.length() - 1)) : 1;
+            return switch (unit) {
+                case 's' -> TimeUnit.SECONDS.toNanos(n);
+                case 'm' -> TimeUnit.MINUTES.toNanos(n);
+                case 'h' -> TimeUnit.HOURS.toNanos(n);
+                default -> throw new IllegalArgumentException("Unknown rate limit period: " + p);
+            };
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /**
+         * Take a token from {@code key}'s bucket.
+         *
+         * @return 0 when admitted, otherwise how many nanoseconds until a token is available
+         */
+        public long tryAcquire(String key) {
+            long now = System.nanoTime();
+            int stripe = (key.hashCode() ^ (key.hashCode() >>> 16)) & (STRIPES - 1);
+            synchronized (locks[stripe]) {
+                Map<String, Cell> cells = stripes[stripe];
+                Cell cell = cells.get(key);
+                if (cell == null) {
+                    if (cells.size() >= maxPerStripe) evictFull(cells, now);
+                    if (cells.size() >= maxPerStripe) evictClosestToFull(cells);
+                    cell = new Cell();
+                    cell.fullAt = now;
+                    cells.put(key, cell);
+                }
+                long fullAt = cell.fullAt - now > 0 ? cell.fullAt : now;
+                if (fullAt - now > tolerance) {
+                    rejected.increment();
+                    return fullAt - tolerance - now;
+                }
+                cell.fullAt = fullAt + interval;
+                return 0;
+            }
+        }
+
+        void sweep(long now) {
+            for (int i = 0; i < STRIPES; i++) {
+                synchronized (locks[i]) {
+                    evictFull(stripes[i], now);
+                }
+            }
+        }
+
+        private static void evictFull(Map<String, Cell> cells, long now) {
+            cells.values().removeIf(cell -> cell.fullAt - now <= 0);
+        }
+
+        // every bucket is active: drop the one that will be full soonest, it has the least to forget
+        private static void evictClosestToFull(Map<String, Cell> cells) {
+            String soonest = null;
+            long soonestAt = 0;
+            for (Map.Entry<String, Cell> e : cells.entrySet()) {
+                if (soonest == null || e.getValue().fullAt - soonestAt < 0) {
+                    soonest = e.getKey();
+                    soonestAt = e.getValue().fullAt;
+                }
+            }
+            cells.remove(soonest);
+        }
+    }
+}
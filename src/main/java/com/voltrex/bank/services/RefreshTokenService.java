@@ -0,0 +1,125 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.entities.RefreshToken;
+import com.voltrex.bank.repositories.RefreshTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Opaque, rotating refresh tokens. Only their SHA-256 is stored (see RefreshToken).
+ */
+@Service
+@Slf4j
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshRepo;
+    private final TransactionTemplate requiresNew;
+    private final long lifetimeDays;
+
+    /**
+     * A refresh that succeeded: the user it belongs to and the token that replaces it.
+     */
+    public record Rotation(Long userId, String refreshToken) {}
+
+    public RefreshTokenService(RefreshTokenRepository refreshRepo,
+                               PlatformTransactionManager txManager,
+                               @Value("${jwt.refresh-token-days:14}") long lifetimeDays) {
+        this.refreshRepo = refreshRepo;
+        this.requiresNew = new TransactionTemplate(txManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.lifetimeDays = lifetimeDays;
+    }
+
+    /**
+     * Start a new token family for a fresh login.
+     */
+    @Transactional
+    public String issue(Long userId) {
+        return create(userId, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchange {@code token} for a new one in the same family. Empty when the token is unknown, expired
+     * or revoked; a token that was already rotated gets its whole family revoked as well.
+     */
+    @Transactional
+    public Optional<Rotation> rotate(String token) {
+        Optional<RefreshToken> found = refreshRepo.findByTokenHashForUpdate(hash(token));
+        if (found.isEmpty()) return Optional.empty();
+        RefreshToken current = found.get();
+
+        if (current.getRotatedAt() != null) {
+            log.warn("Refresh token reuse for user {}; revoking family {}", current.getUserId(), current.getFamilyId());
+            refreshRepo.revokeFamily(current.getFamilyId());
+            return Optional.empty();
+        }
+        if (current.isRevoked() || !current.getExpiresAt().isAfter(LocalDateTime.now())) return Optional.empty();
+
+        current.setRotatedAt(LocalDateTime.now());
+        return Optional.of(new Rotation(current.getUserId(), create(current.getUserId(), current.getFamilyId())));
+    }
+
+    /**
+     * Revoke the family {@code token} belongs to (logout). Unknown tokens are ignored.
+     */
+    @Transactional
+    public void revokeFamilyOf(String token) {
+        refreshRepo.findByTokenHash(hash(token)).ifPresent(t -> refreshRepo.revokeFamily(t.getFamilyId()));
+    }
+
+    /**
+     * Revoke every refresh token of the user, e.g. after a password change.
+     */
+    @Transactional
+    public int revokeAllForUser(Long userId) {
+        return refreshRepo.revokeAllForUser(userId);
+    }
+
+    @Scheduled(cron = "${jwt.refresh-token-purge-cron:0 50 * * * *}")
+    public void purgeExpired() {
+        Integer removed = requiresNew.execute(status -> refreshRepo.deleteExpired(LocalDateTime.now()));
+        log.info("Purged {} expired refresh tokens", removed);
+    }
+
+    private String create(Long userId, String familyId) {
+        byte[] raw = new byte[32];
+        RANDOM.nextBytes(raw);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+        LocalDateTime now = LocalDateTime.now();
+        refreshRepo.save(RefreshToken.builder()
+                .userId(userId)
+                .tokenHash(hash(token))
+                .familyId(familyId)
+                .createdAt(now)
+                .expiresAt(now.plusDays(lifetimeDays))
+                .build());
+        return token;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 not available", ex);
+        }
+    }
+}
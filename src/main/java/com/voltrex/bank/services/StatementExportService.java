@@ -0,0 +1,130 @@
+package com.voltrex.bank.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.voltrex.bank.dto.TransactionResponse;
+import com.voltrex.bank.repositories.TransactionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes a user's transaction history as CSV or NDJSON straight from a forward-only DB cursor.
+ * Rows are DTO projections (nothing enters the persistence context) and are written as they are
+ * read, so memory stays flat regardless of the number of rows. Archived days are written first, one
+ * day's rows at a time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StatementExportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final String CSV_HEADER = "id,referenceNumber,executedAt,type,direction,amount,"
+            + "fromAccountNumber,senderName,toAccountNumber,receiverName,description,status,"
+            + "fromAccountBalanceAfter,toAccountBalanceAfter";
+
+    private final TransactionRepository txnRepo;
+    private final TransactionArchiveService archive;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Stream the statement into {@code out}. Runs in its own read-only transaction, which the cursor
+     * needs, so call it from the response-writing thread. Does not close {@code out}.
+     *
+     * @return number of rows written
+     */
+    @Transactional(readOnly = true)
+    public long writeStatement(long userId, LocalDateTime from, LocalDateTime to, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 16 * 1024);
+        ObjectWriter json = objectMapper.writerFor(TransactionResponse.class);
+        long rows = 0;
+
+        if (format == Format.CSV) writer.write(CSV_HEADER + "\n");
+
+        // archived days first (all older than any hot row), one day in memory at a time
+        long[] archived = {0};
+        try {
+            archive.forEachForUser(userId, from, to, t -> {
+                try {
+                    writeRow(writer, json, format, t);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                archived[0]++;
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        rows += archived[0];
+
+        try (Stream<TransactionResponse> stream = txnRepo.streamForUserBetween(userId, from, to)) {
+            Iterator<TransactionResponse> it = stream.iterator();
+            while (it.hasNext()) {
+                writeRow(writer, json, format, it.next());
+                rows++;
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        writer.flush();
+        log.info("Exported {} transactions for user {} as {}", rows, userId, format);
+        return rows;
+    }
+
+    private void writeRow(Writer writer, ObjectWriter json, Format format, TransactionResponse t) throws IOException {
+        if (format == Format.CSV) {
+            writeCsvRow(writer, t);
+        } else {
+            writer.write(json.writeValueAsString(t));
+            writer.write('\n');
+        }
+    }
+
+    private void writeCsvRow(Writer w, TransactionResponse t) throws IOException {
+        w.write(String.join(",",
+                csv(t.getId()),
+                csv(t.getReferenceNumber()),
+                csv(t.getExecutedAt()),
+                csv(t.getType()),
+                csv(t.getDirection()),
+                csv(t.getAmount() == null ? null : t.getAmount().toPlainString()),
+                csv(t.getFromAccountNumber()),
+                csv(t.getSenderName()),
+                csv(t.getToAccountNumber()),
+                csv(t.getReceiverName()),
+                csv(t.getDescription()),
+                csv(t.getStatus()),
+                csv(t.getFromAccountBalanceAfter() == null ? null : t.getFromAccountBalanceAfter().toPlainString()),
+                csv(t.getToAccountBalanceAfter() == null ? null : t.getToAccountBalanceAfter().toPlainString())));
+        w.write('\n');
+    }
+
+    // RFC 4180 quoting; free-text cells starting with a formula character are prefixed with '
+    // so spreadsheets do not evaluate them
+    private static String csv(Object value) {
+        if (value == null) return "";
+        String s = value.toString();
+        if (!s.isEmpty() && "=+-@".indexOf(s.charAt(0)) >= 0 && !(value instanceof Number)) {
+            s = "'" + s;
+        }
+        if (s.contains(",") || s.contains("\"") || s.contains("\n") || s.contains("\r")) {
+            s = "\"" + s.replace("\"", "\"\"") + "\"";
+        }
+        return s;
+    }
+}
@@ -0,0 +1,189 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.entities.Account;
+import com.voltrex.bank.entities.AccountBalanceStripe;
+import com.voltrex.bank.exception.NotFoundException;
+import com.voltrex.bank.repositories.AccountBalanceStripeRepository;
+import com.voltrex.bank.repositories.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Opt-in balance striping for high fan-in receivers such as merchant accounts, switched on per
+ * account through the admin endpoint. Monthly fees do not move the bank account's balance (see
+ * MonthlyService), so the monthly job never credits through here.
+ *
+ * A striped account has K account_balance_stripe rows. Credits add to one stripe chosen by hashing
+ * a caller key and never touch the account row, so K credits can commit in parallel. Debits stay
+ * strictly consistent: every debit path folds the stripes into Account.balance (under the account
+ * and stripe row locks) before checking funds. A scheduled pass also folds them periodically.
+ *
+ * A stripe credit writes no row of the receiver but its stripe. The receiver's account_summary row and
+ * its owner's change version are updated when the stripes are folded rather than by each credit, so
+ * they lag the credit by at most one consolidation interval.
+ *
+ * Striped accounts are exempt from the daily deposit limit; their stripe credits are added to the
+ * daily usage counters when folded, on the day they were credited. A stripe holds one day's credits:
+ * after midnight a stripe that still holds yesterday's is skipped in favour of a row credit until the
+ * next pass folds it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StripedBalanceService {
+
+    private static final int MAX_STRIPES = 64;
+
+    private final AccountRepository accountRepo;
+    private final AccountBalanceStripeRepository stripeRepo;
+    private final DailyUsageService dailyUsage;
+    private final AccountSummaryService summaries;
+    private final ChangeVersionService changeVersions;
+    private final PlatformTransactionManager txManager;
+
+    // accountId -> stripe count and accountNumber -> accountId, refreshed on every consolidation pass.
+    // A stale view is safe: an unknown striped account is simply credited on its row under lock.
+    private volatile Map<Long, Integer> stripesById = Map.of();
+    private volatile Map<String, Long> stripedByNumber = Map.of();
+
+    public boolean isStriped(Long accountId) {
+        return stripesById.containsKey(accountId);
+    }
+
+    public boolean isStriped(String accountNumber) {
+        return stripedByNumber.containsKey(accountNumber);
+    }
+
+    public boolean anyStriped() {
+        return !stripesById.isEmpty();
+    }
+
+    /**
+     * Credit an account without taking its row lock up front. Striped accounts are credited on the
+     * stripe picked by {@code key} (e.g. the sender's account id); anything else, including an account
+     * whose stripes were removed since the last refresh or whose stripe still holds an earlier day's
+     * credits, gets a single-statement row credit.
+     * Must run inside a transaction, and the caller must not hold the account as a dirty entity.
+     *
+     * @return true when the credit landed on a stripe, false when the row was credited
+     */
+    public boolean credit(Long accountId, BigDecimal amount, long key) {
+        LocalDate today = LocalDate.now();
+        Integer k = stripesById.get(accountId);
+        if (k != null) {
+            int stripe = Math.floorMod(Long.hashCode(key * 0x9E3779B97F4A7C15L), k);
+            if (stripeRepo.addToStripe(accountId, stripe, today, amount) == 1) return true;
+        }
+        accountRepo.credit(accountId, amount);
+        dailyUsage.recordDeposit(accountRepo.getReferenceById(accountId), today, amount);
+        return false;
+    }
+
+    /**
+     * Amount currently sitting on the account's stripes (zero for unstriped accounts).
+     */
+    public BigDecimal stripedAmount(Long accountId) {
+        return isStriped(accountId) ? stripeRepo.sumByAccountId(accountId) : BigDecimal.ZERO;
+    }
+
+    /**
+     * Logical balance: the row balance plus whatever the stripes currently hold.
+     */
+    public BigDecimal balanceOf(Account account) {
+        return account.getBalance().add(stripedAmount(account.getId()));
+    }
+
+    /**
+     * Fold the stripes of a managed (already row-locked or version-checked) account into its balance,
+     * and their credits into its daily usage and summary.
+     */
+    public void consolidate(Account account) {
+        Map<LocalDate, BigDecimal> byDay = new TreeMap<>();
+        Map<LocalDate, BigDecimal> unsummarised = new TreeMap<>();
+        for (AccountBalanceStripe s : stripeRepo.findByAccountIdForUpdate(account.getId())) {
+            if (s.getAmount().signum() == 0) continue;
+            // stripes filled before credit_date existed count as today and were summarised when credited
+            LocalDate day = s.getCreditDate() != null ? s.getCreditDate() : LocalDate.now();
+            byDay.merge(day, s.getAmount(), BigDecimal::add);
+            if (s.getCreditDate() != null) unsummarised.merge(day, s.getAmount(), BigDecimal::add);
+            s.setAmount(BigDecimal.ZERO);
+        }
+        if (byDay.isEmpty()) return;
+        for (Map.Entry<LocalDate, BigDecimal> e : byDay.entrySet()) {
+            account.setBalance(account.getBalance().add(e.getValue()));
+            dailyUsage.recordDeposit(account, e.getKey(), e.getValue());
+        }
+        summaries.recordFolded(account.getId(), unsummarised);
+        changeVersions.bump(account.getOwner().getId());
+    }
+
+    /**
+     * Lock the account row, then fold its stripes. Locks are always taken row first, stripes second.
+     */
+    public void consolidate(Long accountId) {
+        accountRepo.findByIdForUpdate(accountId).ifPresent(this::consolidate);
+    }
+
+    /**
+     * Turn striping on/off or change K for an account. Existing stripes are folded first; credits
+     * racing with the change fall back to a row credit. Other nodes pick the change up on their next pass.
+     */
+    @Transactional
+    public void configure(String accountNumber, int stripes) {
+        if (stripes < 0 || stripes > MAX_STRIPES) {
+            throw new IllegalArgumentException("Stripe count must be between 0 and " + MAX_STRIPES);
+        }
+        Account account = accountRepo.findByAccountNumberForUpdate(accountNumber)
+                .orElseThrow(() -> new NotFoundException("Account not found"));
+
+        consolidate(account);
+        stripeRepo.deleteByAccountId(account.getId());
+        for (int i = 0; i < stripes; i++) {
+            stripeRepo.save(AccountBalanceStripe.builder()
+                    .account(account)
+                    .stripeNo(i)
+                    .amount(BigDecimal.ZERO)
+                    .build());
+        }
+        account.setBalanceStripes(stripes);
+        accountRepo.save(account);
+        log.info("Account {} now has {} balance stripes", accountNumber, stripes);
+    }
+
+    @Scheduled(fixedDelayString = "${account.striping.consolidate-interval-ms:5000}")
+    public void consolidateAll() {
+        refresh();
+        TransactionTemplate tt = new TransactionTemplate(txManager);
+        for (Long accountId : stripesById.keySet()) {
+            try {
+                tt.executeWithoutResult(status -> consolidate(accountId));
+            } catch (Exception ex) {
+                log.error("Failed to consolidate stripes for account {}: {}", accountId, ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private void refresh() {
+        List<Object[]> rows = accountRepo.findStripedAccounts();
+        Map<Long, Integer> byId = new HashMap<>();
+        Map<String, Long> byNumber = new HashMap<>();
+        for (Object[] row : rows) {
+            byId.put((Long) row[0], (Integer) row[2]);
+            byNumber.put((String) row[1], (Long) row[0]);
+        }
+        stripesById = Map.copyOf(byId);
+        stripedByNumber = Map.copyOf(byNumber);
+    }
+}
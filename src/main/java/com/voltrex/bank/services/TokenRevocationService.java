@@ -0,0 +1,198 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.entities.RevokedToken;
+import com.voltrex.bank.repositories.RevokedTokenRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Revoked access tokens, answered from memory so JwtFilter never goes to the database.
+ *
+ * The live rows of revoked_token are held as a Bloom filter plus the exact set of jtis. Nearly every
+ * token is not revoked, and the filter says so from a few bit reads; only its positives are settled by
+ * the set. Revocations made on this node are visible at once; those made elsewhere are picked up by
+ * {@link #refresh} every auth.revocation.refresh-ms. Both structures are rebuilt from the table every
+ * auth.revocation.rebuild-minutes, which also drops tokens that have expired in the meantime.
+ */
+@Service
+@Slf4j
+public class TokenRevocationService {
+
+    private final RevokedTokenRepository revokedRepo;
+    private final TransactionTemplate tt;
+    private final int expectedRevocations;
+    private final Duration rebuildEvery;
+    private final Duration refreshOverlap;
+
+    private volatile Snapshot snapshot;
+    private volatile LocalDateTime lastRebuild;
+    private volatile LocalDateTime lastRefresh;
+
+    private record Snapshot(BloomFilter bloom, Set<String> exact) {
+        boolean contains(String jti) {
+            return bloom.mightContain(jti) && exact.contains(jti);
+        }
+
+        void add(String jti) {
+            exact.add(jti);
+            bloom.put(jti);
+        }
+    }
+
+    public TokenRevocationService(RevokedTokenRepository revokedRepo,
+                                  PlatformTransactionManager txManager,
+                                  MeterRegistry registry,
+                                  @Value("${auth.revocation.expected:100000}") int expectedRevocations,
+                                  @Value("${auth.revocation.rebuild-minutes:10}") long rebuildMinutes,
+                                  @Value("${auth.revocation.refresh-ms:5000}") long refreshMs) {
+        this.revokedRepo = revokedRepo;
+        this.tt = new TransactionTemplate(txManager);
+        this.expectedRevocations = expectedRevocations;
+        this.rebuildEvery = Duration.ofMinutes(rebuildMinutes);
+        // re-read a little before the last refresh so rows committed late are not missed
+        this.refreshOverlap = Duration.ofMillis(refreshMs * 2);
+        this.snapshot = new Snapshot(new BloomFilter(expectedRevocations), ConcurrentHashMap.newKeySet());
+        Gauge.builder("bank.auth.revoked.tokens", this, s -> s.snapshot.exact().size()).register(registry);
+    }
+
+    @PostConstruct
+    void init() {
+        rebuild();
+    }
+
+    public boolean isRevoked(String jti) {
+        return jti != null && snapshot.contains(jti);
+    }
+
+    /**
+     * Revoke an access token until it expires. Takes effect on this node immediately and on the others
+     * with their next refresh.
+     */
+    public void revoke(String jti, Long userId, LocalDateTime expiresAt) {
+        if (jti == null || !expiresAt.isAfter(LocalDateTime.now())) return;
+        try {
+            tt.executeWithoutResult(status -> revokedRepo.saveAndFlush(RevokedToken.builder()
+                    .jti(jti)
+                    .userId(userId)
+                    .expiresAt(expiresAt)
+                    .revokedAt(LocalDateTime.now())
+                    .build()));
+        } catch (DataIntegrityViolationException ex) {
+            // already revoked
+        }
+        snapshot.add(jti);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.refresh-ms:5000}")
+    public void refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        if (lastRebuild == null || lastRebuild.plus(rebuildEvery).isBefore(now)) {
+            rebuild();
+            return;
+        }
+        try {
+            List<String> jtis = revokedRepo.findLiveJtisRevokedSince(lastRefresh.minus(refreshOverlap), now);
+            Snapshot current = snapshot;
+            jtis.forEach(current::add);
+            lastRefresh = now;
+        } catch (Exception ex) {
+            log.warn("Failed to refresh revoked tokens: {}", ex.getMessage());
+        }
+    }
+
+    private void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            List<String> jtis = revokedRepo.findLiveJtis(now);
+            Snapshot fresh = new Snapshot(new BloomFilter(Math.max(expectedRevocations, jtis.size())), ConcurrentHashMap.newKeySet());
+            jtis.forEach(fresh::add);
+            snapshot = fresh;
+            // revocations committed while the table was read went into the old snapshot; revoke()
+            // commits before it adds, so reading once more after the swap catches all of them
+            revokedRepo.findLiveJtisRevokedSince(now.minus(refreshOverlap), LocalDateTime.now()).forEach(fresh::add);
+            lastRebuild = now;
+            lastRefresh = now;
+            log.debug("Rebuilt revocation filter with {} tokens", fresh.exact().size());
+        } catch (Exception ex) {
+            log.warn("Failed to rebuild revoked tokens: {}", ex.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${auth.revocation.purge-cron:0 45 * * * *}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        Integer revoked = tt.execute(status -> revokedRepo.deleteExpired(now));
+        log.info("Purged {} expired revoked tokens", revoked);
+    }
+
+    /**
+     * Bloom filter over strings with a ~1% false-positive rate at its expected size. Bits are set with
+     * CAS so concurrent adds never lose each other; it only grows, until the next rebuild.
+     */
+    static final class BloomFilter {
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashes;
+
+        BloomFilter(int expected) {
+            long m = (long) Math.ceil(-Math.max(expected, 1) * Math.log(0.01) / (Math.log(2) * Math.log(2)));
+            this.bitCount = Math.max(64, m);
+            this.bits = new AtomicLongArray((int) ((bitCount + 63) / 64));
+            this.hashes = Math.max(1, (int) Math.round((double) bitCount / Math.max(expected, 1) * Math.log(2)));
+        }
+
+        void put(String value) {
+            long h1 = fnv1a(value), h2 = mix(h1);
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << (bit & 63);
+                long old;
+                do {
+                    old = bits.get(word);
+                    if ((old & mask) != 0) break;
+                } while (!bits.compareAndSet(word, old, old | mask));
+            }
+        }
+
+        boolean mightContain(String value) {
+            long h1 = fnv1a(value), h2 = mix(h1);
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << (bit & 63))) == 0) return false;
+            }
+            return true;
+        }
+
+        private static long fnv1a(String value) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            return h;
+        }
+
+        // splitmix64 finaliser; odd, so successive probes never repeat a bit early
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return (z ^ (z >>> 31)) | 1L;
+        }
+    }
+}
@@ -0,0 +1,477 @@
+package com.voltrex.bank.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.voltrex.bank.dto.TransactionResponse;
+import com.voltrex.bank.entities.ArchiveSegment;
+import com.voltrex.bank.entities.TransactionType;
+import com.voltrex.bank.repositories.AccountRepository;
+import com.voltrex.bank.repositories.ArchiveSegmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.io.OutputStreamWriter;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold storage for old transaction_record rows.
+ *
+ * Whole days older than archive.horizon-days are moved, oldest first, into one immutable segment
+ * file per day under archive.dir (yyyy/MM/yyyy-MM-dd.seg). A segment is a series of gzip members,
+ * one per account, each holding that account's rows of the day as NDJSON in (executedAt, id) order;
+ * the sidecar .idx lists "accountId offset length rows" so a reader only inflates the blocks of the
+ * accounts it asks for, and "u ownerId rows" so a user's rows of a day can be counted without inflating
+ * any. History pages use the counts to skip whole days and read only the days they return rows from.
+ * Rows carry account numbers and owner names as they were when archived.
+ *
+ * The files are written and synced first, then the day's rows are deleted and an archive_segment
+ * row recorded in one DB transaction. Every day before the newest archive_segment day is therefore
+ * either empty or fully in the archive, and everything after it is in the hot table. With more than
+ * one node, archive.dir must be storage they all share.
+ */
+@Service
+@Slf4j
+public class TransactionArchiveService {
+
+    // keeps month-to-date totals, daily limits and the default feed on the hot table
+    private static final int MIN_HORIZON_DAYS = 90;
+
+    private static final String DAY_SELECT = """
+            SELECT t.id, t.reference_number, t.type, t.amount, t.description, t.status, t.executed_at,
+                   t.from_account_id, t.to_account_id, t.from_owner_id, t.to_owner_id,
+                   fa.account_number, ta.account_number,
+                   fo.first_name, fo.last_name, tu.first_name, tu.last_name,
+                   t.from_account_balance_after, t.to_account_balance_after
+            FROM transaction_record t
+            LEFT JOIN account fa ON fa.id = t.from_account_id
+            LEFT JOIN bank_user fo ON fo.id = fa.owner_id
+            LEFT JOIN account ta ON ta.id = t.to_account_id
+            LEFT JOIN bank_user tu ON tu.id = ta.owner_id
+            WHERE t.executed_at >= ? AND t.executed_at < ?
+            ORDER BY t.executed_at, t.id
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final ArchiveSegmentRepository segmentRepo;
+    private final AccountRepository accountRepo;
+    private final TransactionTemplate tt;
+    private final ObjectWriter rowWriter;
+    private final ObjectReader rowReader;
+    private final boolean enabled;
+    private final Path dir;
+    private final int horizonDays;
+    private final int maxDaysPerRun;
+
+    private final Counter blocksRead;
+
+    // segment indexes never change once written
+    private final Cache<LocalDate, Index> indexes = Caffeine.newBuilder().maximumSize(1000).build();
+
+    /**
+     * One archived transaction as stored in a segment.
+     */
+    public record Row(Long id, String referenceNumber, TransactionType type, BigDecimal amount,
+                      String description, String status, LocalDateTime executedAt,
+                      Long fromAccountId, Long toAccountId, Long fromOwnerId, Long toOwnerId,
+                      String fromAccountNumber, String toAccountNumber, String senderName, String receiverName,
+                      BigDecimal fromAccountBalanceAfter, BigDecimal toAccountBalanceAfter) {}
+
+    private record Block(long offset, int length, int rows) {}
+
+    // owners is null for segments written before the index carried per-owner counts
+    private record Index(Map<Long, Block> blocks, Map<Long, Integer> owners) {}
+
+    public TransactionArchiveService(JdbcTemplate jdbc,
+                                     ArchiveSegmentRepository segmentRepo,
+                                     AccountRepository accountRepo,
+                                     PlatformTransactionManager txManager,
+                                     ObjectMapper objectMapper,
+                                     MeterRegistry registry,
+                                     @Value("${archive.enabled:false}") boolean enabled,
+                                     @Value("${archive.dir:./archive}") String dir,
+                                     @Value("${archive.horizon-days:365}") int horizonDays,
+                                     @Value("${archive.max-days-per-run:31}") int maxDaysPerRun) {
+        if (horizonDays < MIN_HORIZON_DAYS) {
+            throw new IllegalStateException("archive.horizon-days must be at least " + MIN_HORIZON_DAYS);
+        }
+        this.jdbc = jdbc;
+        this.segmentRepo = segmentRepo;
+        this.accountRepo = accountRepo;
+        this.tt = new TransactionTemplate(txManager);
+        this.rowWriter = objectMapper.writerFor(Row.class);
+        this.rowReader = objectMapper.readerFor(Row.class);
+        this.enabled = enabled;
+        this.dir = Paths.get(dir);
+        this.horizonDays = horizonDays;
+        this.maxDaysPerRun = maxDaysPerRun;
+        this.blocksRead = Counter.builder("bank.archive.blocks.read").register(registry);
+    }
+
+    /**
+     * Start of the first day still in the hot table, or null when nothing has been archived. Rows
+     * executed before it are only in the archive.
+     */
+    public LocalDateTime boundary() {
+        LocalDate last = segmentRepo.findLastDay();
+        return last == null ? null : last.plusDays(1).atStartOfDay();
+    }
+
+    @Scheduled(cron = "${archive.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (!enabled) return;
+        try {
+            archiveDue();
+        } catch (Exception ex) {
+            log.error("Transaction archival failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Archive every day older than the horizon, oldest first, at most max-days-per-run days.
+     *
+     * @return number of days archived
+     */
+    public int archiveDue() {
+        LocalDate cutoff = LocalDate.now().minusDays(horizonDays);
+        int days = 0;
+        while (days < maxDaysPerRun) {
+            Timestamp oldest = jdbc.queryForObject("SELECT MIN(executed_at) FROM transaction_record", Timestamp.class);
+            if (oldest == null) break;
+            LocalDate day = oldest.toLocalDateTime().toLocalDate();
+            if (!day.isBefore(cutoff)) break;
+            archiveDay(day);
+            days++;
+        }
+        return days;
+    }
+
+    private void archiveDay(LocalDate day) {
+        LocalDateTime start = day.atStartOfDay();
+        List<Row> rows = jdbc.query(DAY_SELECT, (rs, n) -> new Row(
+                rs.getLong(1), rs.getString(2),
+                rs.getString(3) == null ? null : TransactionType.valueOf(rs.getString(3)),
+                rs.getBigDecimal(4), rs.getString(5), rs.getString(6), rs.getTimestamp(7).toLocalDateTime(),
+                rs.getObject(8, Long.class), rs.getObject(9, Long.class),
+                rs.getObject(10, Long.class), rs.getObject(11, Long.class),
+                rs.getString(12), rs.getString(13),
+                fullName(rs.getString(14), rs.getString(15)), fullName(rs.getString(16), rs.getString(17)),
+                rs.getBigDecimal(18), rs.getBigDecimal(19)),
+                Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(1)));
+        if (rows.isEmpty()) return;
+
+        long bytes;
+        try {
+            bytes = writeSegment(day, rows);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to write archive segment for " + day, ex);
+        }
+
+        long maxId = rows.stream().mapToLong(Row::id).max().orElseThrow();
+        tt.executeWithoutResult(status -> {
+            int deleted = jdbc.update(
+                    "DELETE FROM transaction_record WHERE executed_at >= ? AND executed_at < ? AND id <= ?",
+                    Timestamp.valueOf(start), Timestamp.valueOf(start.plusDays(1)), maxId);
+            if (deleted != rows.size()) {
+                // the day changed under us; keep it hot and let the next run write a fresh segment
+                throw new IllegalStateException("Archive of " + day + " wrote " + rows.size() + " rows but would delete " + deleted);
+            }
+            segmentRepo.save(ArchiveSegment.builder()
+                    .day(day)
+                    .rows(rows.size())
+                    .bytes(bytes)
+                    .archivedAt(LocalDateTime.now())
+                    .build());
+        });
+        log.info("Archived {} transactions of {} ({} bytes)", rows.size(), day, bytes);
+    }
+
+    // write <day>.seg and <day>.idx via temp files; a crash before the DB commit leaves files that the
+    // next run simply replaces
+    private long writeSegment(LocalDate day, List<Row> rows) throws IOException {
+        Map<Long, List<Row>> byAccount = new TreeMap<>();
+        Map<Long, Integer> byOwner = new TreeMap<>();
+        for (Row r : rows) {
+            if (r.fromAccountId() != null) byAccount.computeIfAbsent(r.fromAccountId(), k -> new ArrayList<>()).add(r);
+            if (r.toAccountId() != null && !r.toAccountId().equals(r.fromAccountId())) {
+                byAccount.computeIfAbsent(r.toAccountId(), k -> new ArrayList<>()).add(r);
+            }
+            // an internal transfer is one row of its owner's history
+            if (r.fromOwnerId() != null) byOwner.merge(r.fromOwnerId(), 1, Integer::sum);
+            if (r.toOwnerId() != null && !r.toOwnerId().equals(r.fromOwnerId())) byOwner.merge(r.toOwnerId(), 1, Integer::sum);
+        }
+
+        Path seg = segmentPath(day);
+        Path idx = indexPath(day);
+        Files.createDirectories(seg.getParent());
+        Path segTmp = seg.resolveSibling(seg.getFileName() + ".tmp");
+        Path idxTmp = idx.resolveSibling(idx.getFileName() + ".tmp");
+
+        StringBuilder index = new StringBuilder();
+        long offset = 0;
+        try (FileChannel ch = FileChannel.open(segTmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Map.Entry<Long, List<Row>> e : byAccount.entrySet()) {
+                byte[] block = compress(e.getValue());
+                ch.write(ByteBuffer.wrap(block));
+                index.append(e.getKey()).append(' ').append(offset).append(' ')
+                        .append(block.length).append(' ').append(e.getValue().size()).append('\n');
+                offset += block.length;
+            }
+            ch.force(true);
+        }
+        byOwner.forEach((ownerId, n) -> index.append("u ").append(ownerId).append(' ').append(n).append('\n'));
+        try (FileChannel ch = FileChannel.open(idxTmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ch.write(ByteBuffer.wrap(index.toString().getBytes(StandardCharsets.UTF_8)));
+            ch.force(true);
+        }
+
+        Files.move(segTmp, seg, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(idxTmp, idx, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        seg.toFile().setReadOnly();
+        idx.toFile().setReadOnly();
+        indexes.invalidate(day);
+        return offset;
+    }
+
+    private byte[] compress(List<Row> rows) throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try (Writer w = new OutputStreamWriter(new GZIPOutputStream(buf), StandardCharsets.UTF_8)) {
+            for (Row r : rows) {
+                w.write(rowWriter.writeValueAsString(r));
+                w.write('\n');
+            }
+        }
+        return buf.toByteArray();
+    }
+
+    /**
+     * A user's archived transactions executed within [from, to], oldest first, as history rows.
+     */
+    public List<TransactionResponse> findForUser(long userId, LocalDateTime from, LocalDateTime to) {
+        List<TransactionResponse> out = new ArrayList<>();
+        forEachForUser(userId, from, to, out::add);
+        return out;
+    }
+
+    /**
+     * Like {@link #findForUser} but hands rows over one day at a time, for exports.
+     */
+    public void forEachForUser(long userId, LocalDateTime from, LocalDateTime to, Consumer<TransactionResponse> sink) {
+        List<LocalDate> days = archivedDays(from, to);
+        if (days.isEmpty()) return;
+        List<Long> accountIds = accountRepo.findIdsByOwnerId(userId);
+        if (accountIds.isEmpty()) return;
+
+        for (LocalDate day : days) {
+            dayRows(day, accountIds, from, to).forEach(r -> sink.accept(toResponse(r, userId)));
+        }
+    }
+
+    /**
+     * Number of a user's archived transactions executed within [from, to]. Days wholly inside the range
+     * are counted from their index; only the two days the range cuts can need their blocks read.
+     */
+    public long countForUser(long userId, LocalDateTime from, LocalDateTime to) {
+        List<LocalDate> days = archivedDays(from, to);
+        if (days.isEmpty()) return 0;
+        List<Long> accountIds = accountRepo.findIdsByOwnerId(userId);
+        if (accountIds.isEmpty()) return 0;
+
+        long total = 0;
+        for (LocalDate day : days) total += dayCount(day, userId, accountIds, from, to);
+        return total;
+    }
+
+    /**
+     * Rows [offset, offset + limit) of a user's archived transactions within [from, to], by executedAt
+     * in the given direction. Days that lie wholly before the offset are skipped by their index counts,
+     * and reading stops at the day that fills the page.
+     */
+    public List<TransactionResponse> pageForUser(long userId, LocalDateTime from, LocalDateTime to,
+                                                 long offset, int limit, boolean newestFirst) {
+        List<LocalDate> days = new ArrayList<>(archivedDays(from, to));
+        if (days.isEmpty() || limit <= 0) return List.of();
+        List<Long> accountIds = accountRepo.findIdsByOwnerId(userId);
+        if (accountIds.isEmpty()) return List.of();
+        if (newestFirst) Collections.reverse(days);
+
+        List<TransactionResponse> out = new ArrayList<>(limit);
+        long skip = offset;
+        for (LocalDate day : days) {
+            if (skip > 0) {
+                int n = dayCount(day, userId, accountIds, from, to);
+                if (skip >= n) {
+                    skip -= n;
+                    continue;
+                }
+            }
+            List<Row> rows = dayRows(day, accountIds, from, to);
+            if (newestFirst) Collections.reverse(rows);
+            for (int i = (int) skip; i < rows.size() && out.size() < limit; i++) out.add(toResponse(rows.get(i), userId));
+            skip = 0;
+            if (out.size() == limit) break;
+        }
+        return out;
+    }
+
+    /**
+     * Up to {@code limit} of a user's archived transactions within [from, to] that come before
+     * (beforeAt, beforeId), newest first: the keyset continuation of a history page. Days are read
+     * newest first, starting at the cursor's day, until the page is full.
+     */
+    public List<TransactionResponse> findForUserBefore(long userId, LocalDateTime from, LocalDateTime to,
+                                                       LocalDateTime beforeAt, long beforeId, int limit) {
+        LocalDateTime until = beforeAt.isBefore(to) ? beforeAt : to;
+        List<LocalDate> days = new ArrayList<>(archivedDays(from, until));
+        if (days.isEmpty() || limit <= 0) return List.of();
+        List<Long> accountIds = accountRepo.findIdsByOwnerId(userId);
+        if (accountIds.isEmpty()) return List.of();
+        Collections.reverse(days);
+
+        List<TransactionResponse> out = new ArrayList<>(limit);
+        for (LocalDate day : days) {
+            List<Row> rows = dayRows(day, accountIds, from, until);
+            for (int i = rows.size() - 1; i >= 0 && out.size() < limit; i--) {
+                Row r = rows.get(i);
+                if (r.executedAt().isBefore(beforeAt) || (r.executedAt().equals(beforeAt) && r.id() < beforeId)) {
+                    out.add(toResponse(r, userId));
+                }
+            }
+            if (out.size() == limit) break;
+        }
+        return out;
+    }
+
+    // archived days within [from, to], oldest first
+    private List<LocalDate> archivedDays(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime boundary = boundary();
+        if (boundary == null || !from.isBefore(boundary) || to.isBefore(from)) return List.of();
+        return segmentRepo.findDaysBetween(from.toLocalDate(), to.toLocalDate());
+    }
+
+    // the user's rows of one day within [from, to], oldest first; an internal transfer sits in both
+    // accounts' blocks but is returned once
+    private List<Row> dayRows(LocalDate day, List<Long> accountIds, LocalDateTime from, LocalDateTime to) {
+        Index index = indexes.get(day, this::readIndex);
+        Map<Long, Row> rows = new HashMap<>();
+        for (Long accountId : accountIds) {
+            Block block = index.blocks().get(accountId);
+            if (block == null) continue;
+            for (Row r : readBlock(day, block)) {
+                if (!r.executedAt().isBefore(from) && !r.executedAt().isAfter(to)) rows.putIfAbsent(r.id(), r);
+            }
+        }
+        List<Row> sorted = new ArrayList<>(rows.values());
+        sorted.sort(Comparator.comparing(Row::executedAt).thenComparing(Row::id));
+        return sorted;
+    }
+
+    // dayRows(...).size(), from the index alone when the whole day is inside [from, to]
+    private int dayCount(LocalDate day, long userId, List<Long> accountIds, LocalDateTime from, LocalDateTime to) {
+        Index index = indexes.get(day, this::readIndex);
+        boolean wholeDay = !from.isAfter(day.atStartOfDay()) && !to.isBefore(day.atTime(LocalTime.MAX));
+        if (wholeDay && index.owners() != null) return index.owners().getOrDefault(userId, 0);
+        return dayRows(day, accountIds, from, to).size();
+    }
+
+    private Index readIndex(LocalDate day) {
+        try {
+            Map<Long, Block> blocks = new LinkedHashMap<>();
+            Map<Long, Integer> owners = new HashMap<>();
+            for (String line : Files.readAllLines(indexPath(day), StandardCharsets.UTF_8)) {
+                if (line.isBlank()) continue;
+                String[] f = line.split(" ");
+                if ("u".equals(f[0])) {
+                    owners.put(Long.parseLong(f[1]), Integer.parseInt(f[2]));
+                } else {
+                    blocks.put(Long.parseLong(f[0]), new Block(Long.parseLong(f[1]), Integer.parseInt(f[2]), Integer.parseInt(f[3])));
+                }
+            }
+            // a day with rows always has owners, unless the index predates the counts
+            return new Index(Map.copyOf(blocks), owners.isEmpty() && !blocks.isEmpty() ? null : Map.copyOf(owners));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read archive index for " + day, ex);
+        }
+    }
+
+    private List<Row> readBlock(LocalDate day, Block block) {
+        blocksRead.increment();
+        try (FileChannel ch = FileChannel.open(segmentPath(day), StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(block.length());
+            while (buf.hasRemaining()) {
+                if (ch.read(buf, block.offset() + buf.position()) < 0) break;
+            }
+            List<Row> rows = new ArrayList<>(block.rows());
+            try (BufferedReader r = new BufferedReader(new InputStreamReader(
+                    new GZIPInputStream(new ByteArrayInputStream(buf.array())), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = r.readLine()) != null) rows.add(rowReader.readValue(line));
+            }
+            return rows;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read archive segment for " + day, ex);
+        }
+    }
+
+    private static TransactionResponse toResponse(Row r, long userId) {
+        boolean out = Long.valueOf(userId).equals(r.fromOwnerId());
+        boolean in = Long.valueOf(userId).equals(r.toOwnerId());
+        String direction = out && in ? "INTERNAL" : out ? "DEBIT" : in ? "CREDIT" : "UNKNOWN";
+        return new TransactionResponse(r.id(), r.referenceNumber(), r.type(), r.amount(), r.description(),
+                r.status(), r.executedAt(), r.fromAccountNumber(), r.toAccountNumber(),
+                r.senderName(), r.receiverName(), direction,
+                r.fromAccountBalanceAfter(), r.toAccountBalanceAfter());
+    }
+
+    private static String fullName(String first, String last) {
+        String name = ((first == null ? "" : first) + " " + (last == null ? "" : last)).trim();
+        return name.isEmpty() ? null : name;
+    }
+
+    private Path segmentPath(LocalDate day) {
+        return dir.resolve(String.format("%04d/%02d/%s.seg", day.getYear(), day.getMonthValue(), day));
+    }
+
+    private Path indexPath(LocalDate day) {
+        return dir.resolve(String.format("%04d/%02d/%s.idx", day.getYear(), day.getMonthValue(), day));
+    }
+}
@@ -0,0 +1,111 @@
+package com.voltrex.bank.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.voltrex.bank.dto.TransactionResponse;
+import com.voltrex.bank.repositories.TransactionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Per-user cache of the default history view: the newest rows of the last DEFAULT_WINDOW_DAYS days
+ * plus their total count, as of when the entry was loaded.
+ *
+ * Every path that writes transaction_record evicts both owners after its transaction commits, so an
+ * entry never misses a committed row; it can only lag the rolling lower bound of the window by up to
+ * the TTL. A load racing with an eviction is safe: Caffeine makes the invalidation wait for the load.
+ *
+ * Caffeine's hit/miss/eviction stats are published as cache.* meters with cache=transactionFeed.
+ */
+@Service
+public class TransactionFeedCache {
+
+    // same window GET /api/transactions uses when from/to are omitted
+    public static final int DEFAULT_WINDOW_DAYS = 30;
+
+    private final TransactionRepository txnRepo;
+    private final int rows;
+    private final Cache<Long, Feed> cache;
+    private final Counter invalidations;
+
+    /**
+     * Newest-first rows (at most {@code rows}) and the total row count of the window [from, to].
+     */
+    public record Feed(List<TransactionResponse> rows, long total, LocalDateTime from, LocalDateTime to) {}
+
+    public TransactionFeedCache(TransactionRepository txnRepo,
+                                MeterRegistry registry,
+                                @Value("${transactions.feed.cache.rows:50}") int rows,
+                                @Value("${transactions.feed.cache.max-users:10000}") long maxUsers,
+                                @Value("${transactions.feed.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.txnRepo = txnRepo;
+        this.rows = rows;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "transactionFeed");
+        this.invalidations = Counter.builder("bank.transaction.feed.invalidations").register(registry);
+    }
+
+    /**
+     * Largest page size that can be answered from the cache.
+     */
+    public int rows() {
+        return rows;
+    }
+
+    public Feed get(long userId) {
+        return cache.get(userId, this::load);
+    }
+
+    private Feed load(Long userId) {
+        LocalDateTime to = LocalDateTime.now();
+        LocalDateTime from = to.minusDays(DEFAULT_WINDOW_DAYS);
+        List<TransactionResponse> newest = txnRepo.findForUserBetweenAfter(userId, from, to, to, Long.MAX_VALUE, Limit.of(rows));
+        long total = newest.size() < rows ? newest.size() : txnRepo.countForUserBetween(userId, from, to);
+        return new Feed(List.copyOf(newest), total, from, to);
+    }
+
+    /**
+     * Drop the feeds of the given users once the current transaction commits (immediately when there
+     * is none). Nulls are ignored, so callers can pass both owners of a row as they are.
+     */
+    public void evictAfterCommit(Collection<Long> userIds) {
+        List<Long> ids = userIds.stream().filter(Objects::nonNull).distinct().toList();
+        if (ids.isEmpty()) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(ids);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(ids);
+            }
+        });
+    }
+
+    public void evictAfterCommit(Long fromOwnerId, Long toOwnerId) {
+        evictAfterCommit(Arrays.asList(fromOwnerId, toOwnerId));
+    }
+
+    private void evict(List<Long> ids) {
+        cache.invalidateAll(ids);
+        invalidations.increment(ids.size());
+    }
+}
@@ -1,16 +1,18 @@
 package com.voltrex.bank.services;
 
+import com.voltrex.bank.dto.TransactionCursorPage;
 import com.voltrex.bank.dto.TransactionResponse;
-import com.voltrex.bank.entities.Transaction;
 import com.voltrex.bank.repositories.TransactionRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
-import java.util.stream.Collectors;
 
 // imports omitted for brevity
 @Service
@@ -18,7 +20,14 @@ import java.util.stream.Collectors;
 public class TransactionService {
 
     private final TransactionRepository txnRepo;
-
+    private final TransactionFeedCache feedCache;
+    private final TransactionArchiveService archive;
+
+    /**
+     * Offset page of a user's history. Ranges reaching back past the archive boundary are merged from
+     * the archive (all older than any hot row) and can only be sorted by executedAt. The archive is
+     * counted from its indexes and only the days the page draws rows from are read.
+     */
     @Transactional(readOnly = true)
     public Page<TransactionResponse> getTransactionsForUser(long userId,
                                                             LocalDateTime from,
@@ -29,70 +38,130 @@ public class TransactionService {
                                                             Sort.Direction direction) {
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
 
-        Page<Transaction> pageTx = txnRepo.findForUserBetween(userId, from, to, pageable);
+        LocalDateTime boundary = archive.boundary();
+        if (boundary == null || !from.isBefore(boundary)) {
+            return txnRepo.findForUserBetween(userId, from, to, pageable);
+        }
+        if (!"executedAt".equals(sortBy)) {
+            throw new IllegalArgumentException("Only executedAt sorting is supported for ranges before " + boundary.toLocalDate());
+        }
+
+        long coldTotal = archive.countForUser(userId, from, to);
+        long hotTotal = to.isBefore(boundary) ? 0 : txnRepo.countForUserBetween(userId, from, to);
+        long offset = pageable.getOffset();
+        List<TransactionResponse> rows = new ArrayList<>(size);
+        if (direction == Sort.Direction.DESC) {
+            // hot rows first, then the archive newest first
+            if (offset < hotTotal) rows.addAll(hotSlice(userId, from, to, Sort.by(direction, sortBy), offset, size));
+            if (rows.size() < size && coldTotal > 0) {
+                rows.addAll(archive.pageForUser(userId, from, to, Math.max(0, offset - hotTotal), size - rows.size(), true));
+            }
+        } else {
+            if (offset < coldTotal) rows.addAll(archive.pageForUser(userId, from, to, offset, size, false));
+            if (rows.size() < size && hotTotal > 0) {
+                long hotOffset = Math.max(0, offset - coldTotal);
+                rows.addAll(hotSlice(userId, from, to, Sort.by(direction, sortBy), hotOffset, size - rows.size()));
+            }
+        }
+        return new PageImpl<>(rows, pageable, hotTotal + coldTotal);
+    }
 
-        List<TransactionResponse> content = pageTx.stream()
-                .map(t -> toDto(t, userId))
-                .collect(Collectors.toList());
+    // hot rows [offset, offset + count) in the given order, read as at most two pages of size count
+    private List<TransactionResponse> hotSlice(long userId, LocalDateTime from, LocalDateTime to, Sort sort, long offset, int count) {
+        int page = (int) (offset / count);
+        int skip = (int) (offset % count);
+        List<TransactionResponse> rows = new ArrayList<>(txnRepo.listForUserBetween(userId, from, to, PageRequest.of(page, count, sort)));
+        if (skip > 0 && rows.size() == count) {
+            rows.addAll(txnRepo.listForUserBetween(userId, from, to, PageRequest.of(page + 1, count, sort)));
+        }
+        return rows.subList(Math.min(skip, rows.size()), Math.min(skip + count, rows.size()));
+    }
 
-        return new PageImpl<>(content, pageable, pageTx.getTotalElements());
+    /**
+     * First page of the default view (last DEFAULT_WINDOW_DAYS days, newest first), served from the
+     * per-user feed cache. Falls back to the database when {@code size} is larger than the cache holds.
+     */
+    public Page<TransactionResponse> getRecentTransactionsForUser(long userId, int size) {
+        if (size > feedCache.rows()) {
+            LocalDateTime to = LocalDateTime.now();
+            return getTransactionsForUser(userId, to.minusDays(TransactionFeedCache.DEFAULT_WINDOW_DAYS), to,
+                    0, size, "executedAt", Sort.Direction.DESC);
+        }
+        TransactionFeedCache.Feed feed = feedCache.get(userId);
+        List<TransactionResponse> rows = feed.rows().subList(0, Math.min(size, feed.rows().size()));
+        return new PageImpl<>(rows, PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "executedAt")), feed.total());
     }
 
-    private TransactionResponse toDto(Transaction t, long currentUserId) {
-        TransactionResponse r = new TransactionResponse();
-        r.setId(t.getId());
-        r.setReferenceNumber(t.getReferenceNumber());
-        r.setType(t.getType());
-        r.setAmount(t.getAmount());
-        r.setDescription(t.getDescription());
-        r.setStatus(t.getStatus());
-        r.setExecutedAt(t.getExecutedAt());
-
-        // account numbers
-        r.setFromAccountNumber(t.getFromAccount() != null ? t.getFromAccount().getAccountNumber() : null);
-        r.setToAccountNumber(t.getToAccount() != null ? t.getToAccount().getAccountNumber() : null);
-
-        // sender / receiver names
-        r.setSenderName(ownerFullNameSafe(t.getFromAccount() != null ? t.getFromAccount().getOwner() : null));
-        r.setReceiverName(ownerFullNameSafe(t.getToAccount() != null ? t.getToAccount().getOwner() : null));
-
-        r.setFromAccountBalanceAfter(t.getFromAccountBalanceAfter());
-        r.setToAccountBalanceAfter(t.getToAccountBalanceAfter());
-
-        // direction logic from current user's perspective
-        boolean isFromOwnedByUser = t.getFromAccount() != null &&
-                t.getFromAccount().getOwner() != null &&
-                t.getFromAccount().getOwner().getId() != null &&
-                t.getFromAccount().getOwner().getId().equals(currentUserId);
-
-        boolean isToOwnedByUser = t.getToAccount() != null &&
-                t.getToAccount().getOwner() != null &&
-                t.getToAccount().getOwner().getId() != null &&
-                t.getToAccount().getOwner().getId().equals(currentUserId);
-
-        if (isFromOwnedByUser && isToOwnedByUser) {
-            r.setDirection("INTERNAL"); // transfer between user's own accounts
-        } else if (isFromOwnedByUser) {
-            r.setDirection("DEBIT"); // money left user's account
-        } else if (isToOwnedByUser) {
-            r.setDirection("CREDIT"); // money entered user's account
-        } else {
-            // Shouldn't happen because query filters by userId, but fallback:
-            r.setDirection("UNKNOWN");
+    /**
+     * Cursor-mode counterpart of {@link #getRecentTransactionsForUser}: the first keyset page of the
+     * default view, from the feed cache when it holds enough rows.
+     */
+    public TransactionCursorPage getRecentTransactionsForUserFirst(long userId, int size) {
+        if (size > feedCache.rows()) {
+            LocalDateTime to = LocalDateTime.now();
+            return getTransactionsForUserAfter(userId, to.minusDays(TransactionFeedCache.DEFAULT_WINDOW_DAYS), to, null, size);
+        }
+        TransactionFeedCache.Feed feed = feedCache.get(userId);
+        List<TransactionResponse> rows = feed.rows().subList(0, Math.min(size, feed.rows().size()));
+        String nextCursor = null;
+        if (feed.total() > size) {
+            TransactionResponse last = rows.get(size - 1);
+            nextCursor = encodeCursor(last.getExecutedAt(), last.getId());
+        }
+        return new TransactionCursorPage(rows, nextCursor);
+    }
+
+    /**
+     * Keyset page, newest first on (executedAt, id). Pass the previous page's nextCursor, or null for
+     * the first page. No count query, and the cost does not grow with how far the user has scrolled.
+     */
+    @Transactional(readOnly = true)
+    public TransactionCursorPage getTransactionsForUserAfter(long userId,
+                                                            LocalDateTime from,
+                                                            LocalDateTime to,
+                                                            String cursor,
+                                                            int size) {
+        LocalDateTime afterAt = to;
+        long afterId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            afterAt = LocalDateTime.parse(parts[0]);
+            afterId = Long.parseLong(parts[1]);
         }
 
-        // optional balances after (if stored on Transaction)
-        // r.setFromAccountBalanceAfter(t.getFromAccountBalanceAfter());
-        // r.setToAccountBalanceAfter(t.getToAccountBalanceAfter());
+        // one extra row tells us whether there is a next page
+        List<TransactionResponse> rows = new ArrayList<>(
+                txnRepo.findForUserBetweenAfter(userId, from, to, afterAt, afterId, Limit.of(size + 1)));
 
-        return r;
+        // past the hot rows, continue into the archive from the cursor's day
+        if (rows.size() <= size) {
+            rows.addAll(archive.findForUserBefore(userId, from, to, afterAt, afterId, size + 1 - rows.size()));
+        }
+
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows.remove(size);
+            TransactionResponse last = rows.get(size - 1);
+            nextCursor = encodeCursor(last.getExecutedAt(), last.getId());
+        }
+        return new TransactionCursorPage(rows, nextCursor);
     }
 
-    private String ownerFullNameSafe(com.voltrex.bank.entities.User u) {
-        if (u == null) return null;
-        String fn = u.getFirstName() == null ? "" : u.getFirstName().trim();
-        String ln = u.getLastName() == null ? "" : u.getLastName().trim();
-        String full = (fn + " " + ln).trim();
-        return full.isEmpty() ? null : full;
+    private static String encodeCursor(LocalDateTime executedAt, Long id) {
+        String raw = executedAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) throw new IllegalArgumentException();
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
     }
 }
@@ -0,0 +1,116 @@
+package com.voltrex.bank.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs single transfers under the configured concurrency mode.
+ *
+ * PESSIMISTIC (default): TransferService locks both account rows with SELECT ... FOR UPDATE.
+ * OPTIMISTIC: accounts are read without locks and the Account @Version check catches conflicting
+ * writers at flush; the whole transfer is then retried with jittered exponential backoff.
+ * ATOMIC: no entities are loaded; balances move with conditional UPDATE statements whose row
+ * counts decide the outcome (see TransferService#moveFunds).
+ *
+ * All three modes record bank.transfer.* meters tagged with the mode so conflict rate and throughput
+ * can be compared side by side.
+ */
+@Component
+@Slf4j
+public class TransferExecutor {
+
+    public enum Mode { PESSIMISTIC, OPTIMISTIC, ATOMIC }
+
+    private final Mode mode;
+    private final int maxAttempts;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+
+    private final Timer successTimer;
+    private final Timer failureTimer;
+    private final Counter attempts;
+    private final Counter conflicts;
+    private final Counter exhausted;
+
+    public TransferExecutor(MeterRegistry registry,
+                            @Value("${transfer.concurrency.mode:PESSIMISTIC}") Mode mode,
+                            @Value("${transfer.concurrency.max-attempts:5}") int maxAttempts,
+                            @Value("${transfer.concurrency.backoff-ms:5}") long backoffMs,
+                            @Value("${transfer.concurrency.max-backoff-ms:200}") long maxBackoffMs) {
+        this.mode = mode;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+
+        String tag = mode.name().toLowerCase();
+        this.successTimer = Timer.builder("bank.transfer").tag("mode", tag).tag("outcome", "success").register(registry);
+        this.failureTimer = Timer.builder("bank.transfer").tag("mode", tag).tag("outcome", "failure").register(registry);
+        this.attempts = Counter.builder("bank.transfer.attempts").tag("mode", tag).register(registry);
+        this.conflicts = Counter.builder("bank.transfer.conflicts").tag("mode", tag).register(registry);
+        this.exhausted = Counter.builder("bank.transfer.retries.exhausted").tag("mode", tag).register(registry);
+
+        log.info("Transfer concurrency mode: {}", mode);
+    }
+
+    public boolean isOptimistic() {
+        return mode == Mode.OPTIMISTIC;
+    }
+
+    public boolean isAtomic() {
+        return mode == Mode.ATOMIC;
+    }
+
+    /**
+     * Run one transfer. {@code work} must start its own transaction (i.e. call a @Transactional
+     * TransferService method) so each retry gets a fresh persistence context.
+     */
+    public <T> T execute(Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            T result = runWithRetry(work);
+            successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (RuntimeException ex) {
+            failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw ex;
+        }
+    }
+
+    private <T> T runWithRetry(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            attempts.increment();
+            try {
+                return work.get();
+            } catch (OptimisticLockingFailureException ex) {
+                conflicts.increment();
+                if (!isOptimistic() || attempt >= maxAttempts) {
+                    exhausted.increment();
+                    throw ex;
+                }
+                log.debug("Transfer conflict on attempt {}/{}, retrying", attempt, maxAttempts);
+                sleepBackoff(attempt, ex);
+            }
+        }
+    }
+
+    // full jitter: uniform in [0, min(max, base * 2^(attempt-1))]
+    private void sleepBackoff(int attempt, RuntimeException cause) {
+        long cap = Math.min(maxBackoffMs, backoffMs << Math.min(attempt - 1, 20));
+        long sleep = cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
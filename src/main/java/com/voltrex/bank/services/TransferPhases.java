@@ -0,0 +1,81 @@
+package com.voltrex.bank.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-phase timing for single transfers, published as bank.transfer.phase with tags
+ * path (account/receiver), phase, outcome (success/failure) and exception (simple class name or none).
+ *
+ * Phases: lookup (receiver resolution), lock (loading/locking rows, or the conditional UPDATEs in
+ * ATOMIC mode), verify (ownership and name checks), limits (funds, stripe folding and daily limits),
+ * persist (balances, usage counters, transaction_record) and publish (alert events). The commit
+ * itself is not included; it shows up as the difference to the end-to-end bank.transfer timer.
+ *
+ * Timings are buffered and only recorded once the transfer finishes, so every phase of a failed
+ * transfer carries the failure's outcome and exception tags.
+ */
+@Component
+public class TransferPhases {
+
+    private final MeterRegistry registry;
+
+    public TransferPhases(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public Trace start(String path) {
+        return new Trace(path);
+    }
+
+    public final class Trace {
+
+        private final String path;
+        // a phase entered more than once (persist around publish) is recorded as one sample
+        private final Map<String, Long> nanosByPhase = new LinkedHashMap<>();
+        private String current;
+        private long currentStart;
+
+        private Trace(String path) {
+            this.path = path;
+        }
+
+        /** Close the running phase (if any) and start timing {@code phase}. */
+        public void enter(String phase) {
+            long now = System.nanoTime();
+            closeCurrent(now);
+            current = phase;
+            currentStart = now;
+        }
+
+        public void success() {
+            finish("success", "none");
+        }
+
+        public void failure(Throwable ex) {
+            finish("failure", ex.getClass().getSimpleName());
+        }
+
+        private void closeCurrent(long now) {
+            if (current == null) return;
+            nanosByPhase.merge(current, now - currentStart, Long::sum);
+            current = null;
+        }
+
+        private void finish(String outcome, String exception) {
+            closeCurrent(System.nanoTime());
+            nanosByPhase.forEach((phase, nanos) -> Timer.builder("bank.transfer.phase")
+                    .tag("path", path)
+                    .tag("phase", phase)
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .register(registry)
+                    .record(nanos, TimeUnit.NANOSECONDS));
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.voltrex.bank.services;
 
+import com.voltrex.bank.dto.AccountTransferView;
+import com.voltrex.bank.dto.AuthenticatedUser;
 import com.voltrex.bank.dto.TransferByAccountRequest;
 import com.voltrex.bank.dto.TransferByReceiverRequest;
+import com.voltrex.bank.dto.TransferResponse;
 import com.voltrex.bank.entities.Account;
+import com.voltrex.bank.entities.AccountType;
 import com.voltrex.bank.entities.Transaction;
+import com.voltrex.bank.entities.TransactionType;
 import com.voltrex.bank.entities.User;
 import com.voltrex.bank.events.TransactionEvent;
 import com.voltrex.bank.exception.InsufficientFundsException;
@@ -12,9 +17,12 @@ import com.voltrex.bank.exception.NotFoundException;
 import com.voltrex.bank.exception.NotOwnerException;
 import com.voltrex.bank.exception.TransferException;
 import com.voltrex.bank.repositories.AccountRepository;
+import com.voltrex.bank.repositories.TransactionBatchRepository;
 import com.voltrex.bank.repositories.TransactionRepository;
 import com.voltrex.bank.repositories.UserRepository;
 import com.voltrex.bank.utils.ReferenceGenerator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
@@ -26,8 +34,14 @@ import org.slf4j.LoggerFactory;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 @RequiredArgsConstructor
@@ -38,6 +52,15 @@ public class TransferService {
     private final UserRepository userRepo;
     private final ReferenceGenerator refGen; // your bean (UUID-based)
     private final ApplicationEventPublisher publisher;
+    private final DailyUsageService dailyUsage;
+    private final TransactionBatchRepository txnBatchRepo;
+    private final TransferExecutor executor;
+    private final TransferPhases phases;
+    private final StripedBalanceService stripes;
+    private final EntityManager entityManager;
+    private final TransactionFeedCache feedCache;
+    private final AccountSummaryService summaries;
+    private final ChangeVersionService changeVersions;
 
     private static final Logger log = LoggerFactory.getLogger(TransferService.class);
 
@@ -45,7 +68,21 @@ public class TransferService {
      * Transfer using receiver's account number + name verification.
      */
     @Transactional
-    public String transferByAccount(TransferByAccountRequest req, User currentUser) {
+    public String transferByAccount(TransferByAccountRequest req, AuthenticatedUser currentUser) {
+        TransferPhases.Trace trace = phases.start("account");
+        try {
+            String ref = executor.isAtomic()
+                    ? transferByAccountAtomic(req, currentUser, trace)
+                    : transferByAccountLocked(req, currentUser, trace);
+            trace.success();
+            return ref;
+        } catch (RuntimeException ex) {
+            trace.failure(ex);
+            throw ex;
+        }
+    }
+
+    private String transferByAccountLocked(TransferByAccountRequest req, AuthenticatedUser currentUser, TransferPhases.Trace trace) {
         // basic validation (DTO does @Valid, but double-check)
         BigDecimal amount = req.getAmount();
 
@@ -56,18 +93,23 @@ public class TransferService {
 
         boolean swap = accA.compareTo(accB) > 0;
 
+        // striped receivers are credited on a stripe, so their row is neither locked nor modified
+        boolean creditViaStripe = !accA.equals(accB) && stripes.isStriped(accB);
+
         Account fromAccount;
         Account toAccount;
 
+        trace.enter("lock");
         if (!swap) {
-            fromAccount = accountRepo.findByAccountNumberForUpdate(accA).orElseThrow(() -> new NotFoundException("Sender account not found"));
-            toAccount = accountRepo.findByAccountNumberForUpdate(accB).orElseThrow(() -> new NotFoundException("Receiver account not found"));
+            fromAccount = loadAccount(accA).orElseThrow(() -> new NotFoundException("Sender account not found"));
+            toAccount = loadReceiver(accB, creditViaStripe).orElseThrow(() -> new NotFoundException("Receiver account not found"));
         } else {
-            toAccount = accountRepo.findByAccountNumberForUpdate(accB).orElseThrow(() -> new NotFoundException("Receiver account not found"));
-            fromAccount = accountRepo.findByAccountNumberForUpdate(accA).orElseThrow(() -> new NotFoundException("Sender account not found"));
+            toAccount = loadReceiver(accB, creditViaStripe).orElseThrow(() -> new NotFoundException("Receiver account not found"));
+            fromAccount = loadAccount(accA).orElseThrow(() -> new NotFoundException("Sender account not found"));
         }
 
         // Ownership check
+        trace.enter("verify");
         if (!fromAccount.getOwner().getId().equals(currentUser.getId())) {
             throw new NotOwnerException("You are not allowed to transfer from this account");
         }
@@ -77,17 +119,20 @@ public class TransferService {
             throw new TransferException("Receiver details are incorrect");
         }
 
+        // a striped sender's credits sit on its stripes until folded into the balance
+        trace.enter("limits");
+        if (stripes.isStriped(fromAccount.getId())) stripes.consolidate(fromAccount);
+
         // Insufficient funds
         if (fromAccount.getBalance().compareTo(amount) < 0) {
             throw new InsufficientFundsException("Insufficient balance");
         }
 
         // Check daily withdrawal/deposit limits
-        LocalDateTime dayStart = LocalDate.now().atStartOfDay();
-        LocalDateTime dayEnd = LocalDate.now().atTime(LocalTime.MAX);
+        LocalDate today = LocalDate.now();
 
-        BigDecimal alreadyWithdrawnToday = txnRepo.sumWithdrawnBetween(fromAccount.getId(), dayStart, dayEnd);
-        BigDecimal alreadyDepositedToday = txnRepo.sumDepositedBetween(toAccount.getId(), dayStart, dayEnd);
+        BigDecimal alreadyWithdrawnToday = dailyUsage.withdrawnOn(fromAccount.getId(), today);
+        BigDecimal alreadyDepositedToday = dailyUsage.depositedOn(toAccount.getId(), today);
 
         BigDecimal senderDailyLimit = resolveMaxDailyWithdrawal(fromAccount);
         if (senderDailyLimit != null && alreadyWithdrawnToday.add(amount).compareTo(senderDailyLimit) > 0) {
@@ -100,54 +145,39 @@ public class TransferService {
         }
 
         // Perform debit/credit
+        trace.enter("persist");
         fromAccount.setBalance(fromAccount.getBalance().subtract(amount));
-        toAccount.setBalance(toAccount.getBalance().add(amount));
+        if (!creditViaStripe) toAccount.setBalance(toAccount.getBalance().add(amount));
 
         // persist accounts & transaction
         accountRepo.save(fromAccount);
         accountRepo.save(toAccount);
-
-        if(fromAccount.isTransactionAlert()){
-            User fromUser = fromAccount.getOwner();
-            String email = fromUser.getEmail();
-            String name = fromUser.getFirstName() + " " + fromUser.getLastName();
-            publisher.publishEvent(new TransactionEvent(
-                    email,
-                    name,
-                    "debit",
-                    fromAccount.getType(),
-                    fromAccount.getAccountNumber(),
-                    req.getAmount(),
-                    fromAccount.getBalance()
-            ));
+        boolean onStripe = false;
+        if (creditViaStripe) {
+            dailyUsage.recordWithdrawal(fromAccount, today, amount);
+            onStripe = stripes.credit(toAccount.getId(), amount, fromAccount.getId());
+        } else {
+            dailyUsage.recordTransfer(fromAccount, toAccount, today, amount);
         }
 
-        if(toAccount.isTransactionAlert()){
-            User toUser = toAccount.getOwner();
-            String email = toUser.getEmail();
-            String name = toUser.getFirstName() + " " + toUser.getLastName();
-            publisher.publishEvent(new TransactionEvent(
-                    email,
-                    name,
-                    "credit",
-                    toAccount.getType(),
-                    toAccount.getAccountNumber(),
-                    req.getAmount(),
-                    toAccount.getBalance()
-            ));
-        }
+        trace.enter("publish");
+        publishAlerts(fromAccount, toAccount, req.getAmount());
 
+        trace.enter("persist");
         Transaction tx = Transaction.builder()
                 .referenceNumber(refGen.generate())
                 .amount(amount)
                 .fromAccount(fromAccount)
                 .toAccount(toAccount)
+                .fromOwnerId(fromAccount.getOwner().getId())
+                .toOwnerId(toAccount.getOwner().getId())
                 .description(req.getDescription())
                 .type(req.getType())
                 .status("COMPLETED")
                 .build();
 
         txnRepo.save(tx);
+        ledgerWritten(tx, onStripe);
 
         return tx.getReferenceNumber();
     }
@@ -156,54 +186,75 @@ public class TransferService {
      * Transfer using receiver identifier (CRN or email) — deposits to receiver's primary account.
      */
     @Transactional
-    public String transferByReceiver(TransferByReceiverRequest req, User currentUser) {
+    public String transferByReceiver(TransferByReceiverRequest req, AuthenticatedUser currentUser) {
+        TransferPhases.Trace trace = phases.start("receiver");
+        try {
+            String ref = executor.isAtomic()
+                    ? transferByReceiverAtomic(req, currentUser, trace)
+                    : transferByReceiverLocked(req, currentUser, trace);
+            trace.success();
+            return ref;
+        } catch (RuntimeException ex) {
+            trace.failure(ex);
+            throw ex;
+        }
+    }
+
+    private String transferByReceiverLocked(TransferByReceiverRequest req, AuthenticatedUser currentUser, TransferPhases.Trace trace) {
         BigDecimal amount = req.getAmount();
 
         // find receiver user by CRN or email
+        trace.enter("lookup");
         Optional<User> maybe = userRepo.findByCrn(req.getReceiverIdentifier());
         if (maybe.isEmpty()) maybe = userRepo.findByEmail(req.getReceiverIdentifier());
         if (maybe.isEmpty()) throw new NotFoundException("Receiver not found");
 
         User receiver = maybe.get();
 
+        trace.enter("verify");
         if (!matchesName(receiver, req.getReceiverName())) {
             throw new TransferException("Receiver details are incorrect");
         }
 
-        // lock receiver primary account
-        Account receiverAccount = accountRepo.findPrimaryByOwnerIdForUpdate(receiver.getId())
+        // lock receiver primary account (left unlocked when it is striped and credited on a stripe)
+        trace.enter("lock");
+        String accA = req.getFromAccountNumber();
+        Account receiverAccount = loadPrimaryReceiver(receiver.getId(), accA)
                 .orElseThrow(() -> new NotFoundException("Receiver does not have a primary account"));
 
         // lock sender (deterministic order)
-        String accA = req.getFromAccountNumber();
         String accB = receiverAccount.getAccountNumber();
         boolean swap = accA.compareTo(accB) > 0;
+        boolean creditViaStripe = !accA.equals(accB) && stripes.isStriped(receiverAccount.getId());
 
         Account fromAccount;
         Account toAccount = receiverAccount;
 
         if (!swap) {
-            fromAccount = accountRepo.findByAccountNumberForUpdate(accA).orElseThrow(() -> new NotFoundException("Sender account not found"));
+            fromAccount = loadAccount(accA).orElseThrow(() -> new NotFoundException("Sender account not found"));
         } else {
-            fromAccount = accountRepo.findByAccountNumberForUpdate(accA).orElseThrow(() -> new NotFoundException("Sender account not found"));
+            fromAccount = loadAccount(accA).orElseThrow(() -> new NotFoundException("Sender account not found"));
         }
 
         // ownership check
+        trace.enter("verify");
         if (!fromAccount.getOwner().getId().equals(currentUser.getId())) {
             throw new NotOwnerException("You are not allowed to transfer from this account");
         }
 
+        trace.enter("limits");
+        if (stripes.isStriped(fromAccount.getId())) stripes.consolidate(fromAccount);
+
         // Insufficient funds
         if (fromAccount.getBalance().compareTo(amount) < 0) {
             throw new InsufficientFundsException("Insufficient balance");
         }
 
         // daily limits
-        LocalDateTime dayStart = LocalDate.now().atStartOfDay();
-        LocalDateTime dayEnd = LocalDate.now().atTime(LocalTime.MAX);
+        LocalDate today = LocalDate.now();
 
-        BigDecimal alreadyWithdrawnToday = txnRepo.sumWithdrawnBetween(fromAccount.getId(), dayStart, dayEnd);
-        BigDecimal alreadyDepositedToday = txnRepo.sumDepositedBetween(toAccount.getId(), dayStart, dayEnd);
+        BigDecimal alreadyWithdrawnToday = dailyUsage.withdrawnOn(fromAccount.getId(), today);
+        BigDecimal alreadyDepositedToday = dailyUsage.depositedOn(toAccount.getId(), today);
 
         BigDecimal senderDailyLimit = resolveMaxDailyWithdrawal(fromAccount);
         if (senderDailyLimit != null && alreadyWithdrawnToday.add(amount).compareTo(senderDailyLimit) > 0) {
@@ -216,89 +267,368 @@ public class TransferService {
         }
 
         // Perform debit/credit
+        trace.enter("persist");
         fromAccount.setBalance(fromAccount.getBalance().subtract(amount));
-        toAccount.setBalance(toAccount.getBalance().add(amount));
+        if (!creditViaStripe) toAccount.setBalance(toAccount.getBalance().add(amount));
 
         accountRepo.save(fromAccount);
         accountRepo.save(toAccount);
-
-        if(fromAccount.isTransactionAlert()){
-            User fromUser = fromAccount.getOwner();
-            String email = fromUser.getEmail();
-            String name = fromUser.getFirstName() + " " + fromUser.getLastName();
-            publisher.publishEvent(new TransactionEvent(
-                    email,
-                    name,
-                    "debit",
-                    fromAccount.getType(),
-                    fromAccount.getAccountNumber(),
-                    req.getAmount(),
-                    fromAccount.getBalance()
-            ));
+        boolean onStripe = false;
+        if (creditViaStripe) {
+            dailyUsage.recordWithdrawal(fromAccount, today, amount);
+            onStripe = stripes.credit(toAccount.getId(), amount, fromAccount.getId());
+        } else {
+            dailyUsage.recordTransfer(fromAccount, toAccount, today, amount);
         }
 
-        if(toAccount.isTransactionAlert()){
-            User toUser = toAccount.getOwner();
-            String email = toUser.getEmail();
-            String name = toUser.getFirstName() + " " + toUser.getLastName();
-            publisher.publishEvent(new TransactionEvent(
-                    email,
-                    name,
-                    "credit",
-                    toAccount.getType(),
-                    toAccount.getAccountNumber(),
-                    req.getAmount(),
-                    toAccount.getBalance()
-            ));
-        }
+        trace.enter("publish");
+        publishAlerts(fromAccount, toAccount, req.getAmount());
 
-        // after you have debited/credited the accounts and saved accountRepo.save(...)
+        trace.enter("persist");
         Transaction tx = Transaction.builder()
                 .referenceNumber(refGen.generate())
                 .amount(amount)
                 .fromAccount(fromAccount)
                 .toAccount(toAccount)
+                .fromOwnerId(fromAccount.getOwner().getId())
+                .toOwnerId(toAccount.getOwner().getId())
                 .description(req.getDescription())
                 .status("COMPLETED")
-                .type(req.getType()) // ensure your DTO supplies type
-                // set snapshots:
+                .type(req.getType())
+                .fromAccountBalanceAfter(fromAccount.getBalance())
+                .toAccountBalanceAfter(stripes.balanceOf(toAccount))
                 .build();
 
-        log.info("Before saving tx: fromBalanceAfter={}, toBalanceAfter={}", fromAccount.getBalance(), toAccount.getBalance());
-        log.info("Setting tx.fromAccountBalanceAfter={}, tx.toAccountBalanceAfter={}", fromAccount.getBalance(), toAccount.getBalance());
         txnRepo.save(tx);
+        ledgerWritten(tx, onStripe);
+
+        return tx.getReferenceNumber();
+    }
+
+    /**
+     * Apply many account-number transfers in one DB transaction.
+     * Every account involved is locked once, in account-number order, balances are moved in memory
+     * and the ledger rows are written with batched inserts. Items are checked independently and in
+     * request order: a failing item is reported and skipped, the others still apply.
+     */
+    @Transactional
+    public List<TransferResponse> transferBatch(List<TransferByAccountRequest> reqs, AuthenticatedUser currentUser) {
+        Set<String> numbers = new TreeSet<>();
+        for (TransferByAccountRequest req : reqs) {
+            numbers.add(req.getFromAccountNumber());
+            numbers.add(req.getToAccountNumber());
+        }
+
+        Map<String, Account> locked = new HashMap<>();
+        for (Account acc : accountRepo.findAllByAccountNumberInForUpdate(numbers)) {
+            locked.put(acc.getAccountNumber(), acc);
+            // every row is locked here, so striped accounts are simply folded and credited on the row
+            if (stripes.isStriped(acc.getId())) stripes.consolidate(acc);
+        }
+
+        LocalDate today = LocalDate.now();
+        // today's running totals per account id (counter value + this batch) and the batch's own share
+        Map<Long, BigDecimal> withdrawnToday = new HashMap<>();
+        Map<Long, BigDecimal> depositedToday = new HashMap<>();
+        Map<Long, BigDecimal> batchWithdrawn = new HashMap<>();
+        Map<Long, BigDecimal> batchDeposited = new HashMap<>();
+        Map<Long, Account> touched = new LinkedHashMap<>();
+
+        List<Transaction> pending = new ArrayList<>();
+        List<TransferResponse> results = new ArrayList<>(reqs.size());
+
+        for (TransferByAccountRequest req : reqs) {
+            try {
+                BigDecimal amount = req.getAmount();
+                Account fromAccount = locked.get(req.getFromAccountNumber());
+                if (fromAccount == null) throw new NotFoundException("Sender account not found");
+                Account toAccount = locked.get(req.getToAccountNumber());
+                if (toAccount == null) throw new NotFoundException("Receiver account not found");
+
+                if (!fromAccount.getOwner().getId().equals(currentUser.getId())) {
+                    throw new NotOwnerException("You are not allowed to transfer from this account");
+                }
+                if (!matchesName(toAccount.getOwner(), req.getToAccountName())) {
+                    throw new TransferException("Receiver details are incorrect");
+                }
+                if (fromAccount.getBalance().compareTo(amount) < 0) {
+                    throw new InsufficientFundsException("Insufficient balance");
+                }
+
+                BigDecimal alreadyWithdrawnToday = withdrawnToday.computeIfAbsent(fromAccount.getId(), id -> dailyUsage.withdrawnOn(id, today));
+                BigDecimal alreadyDepositedToday = depositedToday.computeIfAbsent(toAccount.getId(), id -> dailyUsage.depositedOn(id, today));
+
+                BigDecimal senderDailyLimit = resolveMaxDailyWithdrawal(fromAccount);
+                if (senderDailyLimit != null && alreadyWithdrawnToday.add(amount).compareTo(senderDailyLimit) > 0) {
+                    throw new LimitExceededException("Daily withdrawal limit exceeded for sender");
+                }
+                BigDecimal receiverDailyLimit = resolveMaxDailyDeposit(toAccount);
+                if (receiverDailyLimit != null && alreadyDepositedToday.add(amount).compareTo(receiverDailyLimit) > 0) {
+                    throw new LimitExceededException("Daily deposit limit exceeded for receiver");
+                }
+
+                fromAccount.setBalance(fromAccount.getBalance().subtract(amount));
+                toAccount.setBalance(toAccount.getBalance().add(amount));
+                withdrawnToday.merge(fromAccount.getId(), amount, BigDecimal::add);
+                depositedToday.merge(toAccount.getId(), amount, BigDecimal::add);
+                batchWithdrawn.merge(fromAccount.getId(), amount, BigDecimal::add);
+                batchDeposited.merge(toAccount.getId(), amount, BigDecimal::add);
+                touched.put(fromAccount.getId(), fromAccount);
+                touched.put(toAccount.getId(), toAccount);
+
+                Transaction tx = Transaction.builder()
+                        .referenceNumber(refGen.generate())
+                        .executedAt(LocalDateTime.now())
+                        .amount(amount)
+                        .fromAccount(fromAccount)
+                        .toAccount(toAccount)
+                        .fromOwnerId(fromAccount.getOwner().getId())
+                        .toOwnerId(toAccount.getOwner().getId())
+                        .description(req.getDescription())
+                        .type(req.getType())
+                        .status("COMPLETED")
+                        .fromAccountBalanceAfter(fromAccount.getBalance())
+                        .toAccountBalanceAfter(toAccount.getBalance())
+                        .build();
+                pending.add(tx);
+
+                publishAlerts(fromAccount, toAccount, amount);
+                results.add(new TransferResponse(true, "Transfer completed", tx.getReferenceNumber()));
+            } catch (TransferException ex) {
+                results.add(new TransferResponse(false, ex.getMessage(), null));
+            }
+        }
+
+        accountRepo.saveAll(touched.values());
+        txnBatchRepo.insertAll(pending);
+        pending.forEach(this::ledgerWritten);
+        batchWithdrawn.forEach((id, total) -> dailyUsage.recordWithdrawal(touched.get(id), today, total));
+        batchDeposited.forEach((id, total) -> dailyUsage.recordDeposit(touched.get(id), today, total));
+
+        log.info("Batch transfer by user {}: {} of {} applied", currentUser.getId(), pending.size(), reqs.size());
+        return results;
+    }
+
+    // ---- ATOMIC mode: projections + conditional UPDATEs, no Account/User hydration ----
+
+    private String transferByAccountAtomic(TransferByAccountRequest req, AuthenticatedUser currentUser, TransferPhases.Trace trace) {
+        trace.enter("lookup");
+        AccountTransferView from = accountRepo.findTransferViewByAccountNumber(req.getFromAccountNumber())
+                .orElseThrow(() -> new NotFoundException("Sender account not found"));
+        AccountTransferView to = accountRepo.findTransferViewByAccountNumber(req.getToAccountNumber())
+                .orElseThrow(() -> new NotFoundException("Receiver account not found"));
+
+        trace.enter("verify");
+        if (!from.getOwnerId().equals(currentUser.getId())) {
+            throw new NotOwnerException("You are not allowed to transfer from this account");
+        }
+        if (!matchesName(to.getOwnerFirstName(), to.getOwnerLastName(), req.getToAccountName())) {
+            throw new TransferException("Receiver details are incorrect");
+        }
+
+        return moveFunds(from, to, req.getAmount(), req.getType(), req.getDescription(), trace);
+    }
+
+    private String transferByReceiverAtomic(TransferByReceiverRequest req, AuthenticatedUser currentUser, TransferPhases.Trace trace) {
+        trace.enter("lookup");
+        AccountTransferView to = accountRepo.findPrimaryTransferViewByOwnerCrnOrEmail(req.getReceiverIdentifier())
+                .orElseThrow(() -> new NotFoundException("Receiver not found"));
+        trace.enter("verify");
+        if (!matchesName(to.getOwnerFirstName(), to.getOwnerLastName(), req.getReceiverName())) {
+            throw new TransferException("Receiver details are incorrect");
+        }
+
+        trace.enter("lookup");
+        AccountTransferView from = accountRepo.findTransferViewByAccountNumber(req.getFromAccountNumber())
+                .orElseThrow(() -> new NotFoundException("Sender account not found"));
+        trace.enter("verify");
+        if (!from.getOwnerId().equals(currentUser.getId())) {
+            throw new NotOwnerException("You are not allowed to transfer from this account");
+        }
+
+        return moveFunds(from, to, req.getAmount(), req.getType(), req.getDescription(), trace);
+    }
+
+    /**
+     * Move money with single-statement updates. The debit only applies if the balance covers it,
+     * so a zero row count means insufficient funds. The updates take the row locks, in account-number
+     * order like the locking paths, and the daily limits are checked while those locks are held;
+     * any failure rolls both updates back.
+     */
+    private String moveFunds(AccountTransferView from, AccountTransferView to, BigDecimal amount,
+                             TransactionType type, String description, TransferPhases.Trace trace) {
+        trace.enter("lock");
+        boolean creditViaStripe = !from.getId().equals(to.getId()) && stripes.isStriped(to.getId());
+        boolean onStripe = false;
+        if (creditViaStripe) {
+            // stripe locks are always taken last
+            debit(from, amount);
+            onStripe = stripes.credit(to.getId(), amount, from.getId());
+        } else if (from.getAccountNumber().compareTo(to.getAccountNumber()) <= 0) {
+            debit(from, amount);
+            accountRepo.credit(to.getId(), amount);
+        } else {
+            accountRepo.credit(to.getId(), amount);
+            debit(from, amount);
+        }
+
+        trace.enter("limits");
+        LocalDate today = LocalDate.now();
+        BigDecimal senderDailyLimit = resolveMaxDailyWithdrawal(from.getType());
+        if (senderDailyLimit != null && dailyUsage.withdrawnOn(from.getId(), today).add(amount).compareTo(senderDailyLimit) > 0) {
+            throw new LimitExceededException("Daily withdrawal limit exceeded for sender");
+        }
+        BigDecimal receiverDailyLimit = resolveMaxDailyDeposit(to.getId(), to.getType());
+        if (receiverDailyLimit != null && dailyUsage.depositedOn(to.getId(), today).add(amount).compareTo(receiverDailyLimit) > 0) {
+            throw new LimitExceededException("Daily deposit limit exceeded for receiver");
+        }
+
+        trace.enter("persist");
+        Account fromRef = accountRepo.getReferenceById(from.getId());
+        Account toRef = accountRepo.getReferenceById(to.getId());
+        dailyUsage.recordWithdrawal(fromRef, today, amount);
+        if (!creditViaStripe) dailyUsage.recordDeposit(toRef, today, amount);
 
-        tx.setFromAccountBalanceAfter(fromAccount.getBalance());
-        tx.setToAccountBalanceAfter(toAccount.getBalance());
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (Object[] row : accountRepo.findBalancesByIdIn(List.of(from.getId(), to.getId()))) {
+            balances.put((Long) row[0], (BigDecimal) row[1]);
+        }
+        if (creditViaStripe) balances.merge(to.getId(), stripes.stripedAmount(to.getId()), BigDecimal::add);
+
+        Transaction tx = Transaction.builder()
+                .referenceNumber(refGen.generate())
+                .amount(amount)
+                .fromAccount(fromRef)
+                .toAccount(toRef)
+                .fromOwnerId(from.getOwnerId())
+                .toOwnerId(to.getOwnerId())
+                .description(description)
+                .type(type)
+                .status("COMPLETED")
+                .fromAccountBalanceAfter(balances.get(from.getId()))
+                .toAccountBalanceAfter(balances.get(to.getId()))
+                .build();
         txnRepo.save(tx);
+        ledgerWritten(tx, onStripe);
+
+        trace.enter("publish");
+        if (from.isTransactionAlert()) {
+            publisher.publishEvent(new TransactionEvent(from.getOwnerEmail(),
+                    from.getOwnerFirstName() + " " + from.getOwnerLastName(), "debit",
+                    from.getType(), from.getAccountNumber(), amount, balances.get(from.getId())));
+        }
+        if (to.isTransactionAlert()) {
+            publisher.publishEvent(new TransactionEvent(to.getOwnerEmail(),
+                    to.getOwnerFirstName() + " " + to.getOwnerLastName(), "credit",
+                    to.getType(), to.getAccountNumber(), amount, balances.get(to.getId())));
+        }
 
         return tx.getReferenceNumber();
     }
 
+    // caches and read models that follow the ledger: summaries and change versions are written in this
+    // transaction, the feed cache is evicted once it commits
+    private void ledgerWritten(Transaction tx) {
+        ledgerWritten(tx, false);
+    }
+
+    // a credit that landed on a stripe leaves the receiver's summary and version to the next fold, so
+    // concurrent stripe credits do not queue on the receiver's rows
+    private void ledgerWritten(Transaction tx, boolean creditOnStripe) {
+        feedCache.evictAfterCommit(tx.getFromOwnerId(), tx.getToOwnerId());
+        summaries.record(tx, true, !creditOnStripe);
+        changeVersions.bump(tx.getFromOwnerId(), creditOnStripe ? null : tx.getToOwnerId());
+    }
+
+    private void debit(AccountTransferView from, BigDecimal amount) {
+        if (stripes.isStriped(from.getId())) stripes.consolidate(from.getId());
+        if (accountRepo.debitIfSufficient(from.getId(), amount) == 0) {
+            throw new InsufficientFundsException("Insufficient balance");
+        }
+    }
+
+    // row-locked read in pessimistic mode; plain read in optimistic mode (Account @Version guards the write)
+    private Optional<Account> loadAccount(String accountNumber) {
+        return executor.isOptimistic()
+                ? accountRepo.findByAccountNumber(accountNumber)
+                : accountRepo.findByAccountNumberForUpdate(accountNumber);
+    }
+
+    private Optional<Account> loadPrimaryAccount(Long ownerId) {
+        return executor.isOptimistic()
+                ? accountRepo.findByOwnerIdAndPrimaryAccountTrue(ownerId)
+                : accountRepo.findPrimaryByOwnerIdForUpdate(ownerId);
+    }
+
+    // a receiver credited on a stripe is read without a row lock
+    private Optional<Account> loadReceiver(String accountNumber, boolean creditViaStripe) {
+        return creditViaStripe ? accountRepo.findByAccountNumber(accountNumber) : loadAccount(accountNumber);
+    }
+
+    // the primary account is only known after the read, so with striping in use it is read plainly
+    // and then refreshed under lock unless it will be credited on a stripe
+    private Optional<Account> loadPrimaryReceiver(Long ownerId, String senderAccountNumber) {
+        if (executor.isOptimistic() || !stripes.anyStriped()) return loadPrimaryAccount(ownerId);
+        Optional<Account> receiver = accountRepo.findByOwnerIdAndPrimaryAccountTrue(ownerId);
+        receiver.filter(a -> a.getAccountNumber().equals(senderAccountNumber) || !stripes.isStriped(a.getId()))
+                .ifPresent(a -> entityManager.refresh(a, LockModeType.PESSIMISTIC_WRITE));
+        return receiver;
+    }
+
+    private void publishAlerts(Account fromAccount, Account toAccount, BigDecimal amount) {
+        if (fromAccount.isTransactionAlert()) {
+            User fromUser = fromAccount.getOwner();
+            publisher.publishEvent(new TransactionEvent(
+                    fromUser.getEmail(),
+                    fromUser.getFirstName() + " " + fromUser.getLastName(),
+                    "debit",
+                    fromAccount.getType(),
+                    fromAccount.getAccountNumber(),
+                    amount,
+                    fromAccount.getBalance()
+            ));
+        }
+
+        if (toAccount.isTransactionAlert()) {
+            User toUser = toAccount.getOwner();
+            publisher.publishEvent(new TransactionEvent(
+                    toUser.getEmail(),
+                    toUser.getFirstName() + " " + toUser.getLastName(),
+                    "credit",
+                    toAccount.getType(),
+                    toAccount.getAccountNumber(),
+                    amount,
+                    stripes.balanceOf(toAccount)
+            ));
+        }
+    }
+
     private BigDecimal resolveMaxDailyWithdrawal(Account acc) {
-        if (acc == null) return null;
-        try {
-            if (acc.getType() != null && acc.getType().getMaxDailyWithdrawal() != null) {
-                return acc.getType().getMaxDailyWithdrawal();
-            }
-        } catch (Exception ignored) { }
-        return null;
+        return acc == null ? null : resolveMaxDailyWithdrawal(acc.getType());
+    }
+
+    private BigDecimal resolveMaxDailyWithdrawal(AccountType type) {
+        return type == null ? null : type.getMaxDailyWithdrawal();
     }
 
     private BigDecimal resolveMaxDailyDeposit(Account acc) {
-        if (acc == null) return null;
-        try {
-            if (acc.getType() != null && acc.getType().getMaxDailyDeposit() != null) {
-                return acc.getType().getMaxDailyDeposit();
-            }
-        } catch (Exception ignored) { }
-        return null;
+        return acc == null ? null : resolveMaxDailyDeposit(acc.getId(), acc.getType());
+    }
+
+    // striped (high fan-in) accounts are exempt from the daily deposit limit
+    private BigDecimal resolveMaxDailyDeposit(Long accountId, AccountType type) {
+        if (stripes.isStriped(accountId)) return null;
+        return type == null ? null : type.getMaxDailyDeposit();
     }
 
     private boolean matchesName(User user, String provided) {
+        return matchesName(user.getFirstName(), user.getLastName(), provided);
+    }
+
+    private boolean matchesName(String firstName, String lastName, String provided) {
         if (provided == null || provided.isBlank()) return false;
-        String actual = (user.getFirstName()==null ? "" : user.getFirstName().trim()) +
-                " " + (user.getLastName()==null ? "" : user.getLastName().trim());
+        String actual = (firstName==null ? "" : firstName.trim()) +
+                " " + (lastName==null ? "" : lastName.trim());
         String a = actual.trim().replaceAll("\\s+", " ").toLowerCase();
         String p = provided.trim().replaceAll("\\s+", " ").toLowerCase();
         if (a.equals(p)) return true;
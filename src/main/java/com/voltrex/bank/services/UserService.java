@@ -13,9 +13,11 @@ import com.voltrex.bank.utils.AccountNumberGenerator;
 import com.voltrex.bank.utils.CRNGenerator;
 import com.voltrex.bank.utils.PasswordGenerator;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -27,7 +29,8 @@ import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
-public class UserService implements UserDetailsService{
+@Slf4j
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepo;
     private final AccountNumberGenerator accGen;
@@ -36,6 +39,8 @@ public class UserService implements UserDetailsService{
     private final PasswordGenerator passGen;
     private final PasswordEncoder passwordEncoder;
     private final ApplicationEventPublisher publisher;
+    private final ChangeVersionService changeVersions;
+    private final PrincipalCache principalCache;
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -43,6 +48,20 @@ public class UserService implements UserDetailsService{
                 .orElseThrow(null);
     }
 
+    /**
+     * Called by DaoAuthenticationProvider after a successful login whose stored hash was made with a
+     * different BCrypt cost than auth.bcrypt.strength; {@code newPassword} is already encoded.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User managed = userRepo.findByCrn(user.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        managed.setPassword(newPassword);
+        log.info("Rehashed password of user {} with the configured BCrypt cost", managed.getId());
+        return userRepo.save(managed);
+    }
+
     @Transactional
     public void approveUser(Long userId, String adminName) {
         User user = userRepo.findById(userId)
@@ -81,34 +100,50 @@ public class UserService implements UserDetailsService{
 
         accountRepo.save(savingsAccount);
 
-        // --- Generate CRN and temp password ---
+        // --- Generate CRN; the temp password is issued when the approval email is sent ---
         String crn = crnGen.generate();
-        String tempPassword = passGen.generate(12);
-        String hash = passwordEncoder.encode(tempPassword);
 
         user.setCrn(crn);
-        user.setPassword(hash);
         user.setStatus(Status.APPROVED);
         user.getAccounts().add(savingsAccount);
 
         userRepo.save(user);
+        principalCache.evictAfterCommit(user.getId());
+        changeVersions.bump(user.getId());
 
 
-        publisher.publishEvent(new UserApprovedEvent(user.getEmail(),
+        publisher.publishEvent(new UserApprovedEvent(user.getId(),
+                user.getEmail(),
                 user.getFirstName() + " " + user.getLastName(),
                 crn,
-                tempPassword,
                 accNumber
         ));
 
         // TODO: record audit with adminName if needed
     }
 
+    /**
+     * Give the user a new temporary password and return it in plain text. Called by OutboxDispatcher
+     * right before it sends a credential email, so the password only ever exists in that email.
+     */
+    @Transactional
+    public String issueTemporaryPassword(Long userId) {
+        User user = userRepo.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        String tempPassword = passGen.generate(12);
+        user.setPassword(passwordEncoder.encode(tempPassword));
+        userRepo.save(user);
+        principalCache.evictAfterCommit(user.getId());
+        return tempPassword;
+    }
+
     public User getUserById(Long id){
         return userRepo.findById(id).orElseThrow(null);
     }
 
-    public ResponseEntity<Map<String,Object>> updateUser(UserDataRequest req, User currentUser){
+    public ResponseEntity<Map<String,Object>> updateUser(UserDataRequest req, Long userId){
+        User currentUser = userRepo.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
         if (!currentUser.getEmail().equals(req.getEmail()) && userRepo.existsByEmail(req.getEmail())) {
             throw new EmailAlreadyExistsException("Email already exists");
         }
@@ -130,6 +165,8 @@ public class UserService implements UserDetailsService{
         currentUser.setAddress(address);
 
         userRepo.save(currentUser);
+        principalCache.evictAfterCommit(currentUser.getId());
+        changeVersions.bump(currentUser.getId());
         return ResponseEntity.ok(Map.of("success", true));
     }
 }
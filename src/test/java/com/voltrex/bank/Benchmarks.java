@@ -0,0 +1,88 @@
+package com.voltrex.bank;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Timing helper for the benchmark-tagged tests. They are excluded from the default build; run them
+ * with {@code mvn test -Pbenchmark} (add {@code -Dtest=...} for one) and read the "[benchmark]" lines.
+ *
+ * These are coarse in-process measurements on the H2 test database, meant for comparing the variants
+ * inside one run, not for absolute numbers. Every variant should be run once untimed to warm up first.
+ */
+public final class Benchmarks {
+
+    public static final String TAG = "benchmark";
+
+    private Benchmarks() {}
+
+    /**
+     * One timed run: wall time and the latency of every operation.
+     */
+    public record Result(String name, int ops, long wallNanos, long[] latencyNanos) {
+
+        public double opsPerSecond() {
+            return ops / (wallNanos / 1e9);
+        }
+
+        public double percentileMillis(double p) {
+            if (latencyNanos.length == 0) return 0;
+            long[] sorted = latencyNanos.clone();
+            Arrays.sort(sorted);
+            int i = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(i, sorted.length - 1))] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-40s %7d ops %11.1f ops/s  p50 %8.3f ms  p99 %8.3f ms",
+                    name, ops, opsPerSecond(), percentileMillis(50), percentileMillis(99));
+        }
+    }
+
+    /**
+     * Run {@code op} for indexes 0..ops-1, spread over {@code threads} threads that start together.
+     * Any exception thrown by {@code op} fails the run.
+     */
+    public static Result run(String name, int threads, int ops, IntConsumer op) {
+        long[] latencies = new long[ops];
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = next.getAndIncrement(); i < ops; i = next.getAndIncrement()) {
+                        long begin = System.nanoTime();
+                        op.accept(i);
+                        latencies[i] = System.nanoTime() - begin;
+                    }
+                    return null;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (Future<?> w : workers) w.get(10, TimeUnit.MINUTES);
+            return new Result(name, ops, System.nanoTime() - begin, latencies);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Benchmark " + name + " failed", ex);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public static void report(String title, Result... results) {
+        System.out.println("[benchmark] " + title);
+        for (Result r : results) System.out.println("[benchmark]   " + r);
+    }
+}
@@ -0,0 +1,65 @@
+package com.voltrex.bank.controllers;
+
+import com.voltrex.bank.entities.Status;
+import com.voltrex.bank.entities.User;
+import com.voltrex.bank.repositories.UserRepository;
+import com.voltrex.bank.services.JwtService;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The /api/admin maintenance operations are refused to anonymous callers and ordinary customers.
+ */
+@SpringBootTest(properties = "security.admin-crns=ADMIN00001")
+@AutoConfigureMockMvc
+class AdminSecurityTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired JwtService jwtService;
+    @Autowired UserRepository userRepo;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/admin/daily-usage/rebuild", "/api/admin/accounts/000000000000/stripes",
+            "/api/admin/archive/run", "/api/admin/account-summary/rebuild", "/api/admin/monthly/run"})
+    void maintenanceNeedsAdmin(String path) throws Exception {
+        mvc.perform(post(path)).andExpect(status().isForbidden());
+        mvc.perform(post(path).header(HttpHeaders.AUTHORIZATION, bearer(user("C" + ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999)))))
+                .andExpect(status().isForbidden());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/admin/daily-usage/rebuild", "/api/admin/accounts/000000000000/stripes",
+            "/api/admin/archive/run", "/api/admin/account-summary/rebuild"})
+    void adminMayRunMaintenance(String path) throws Exception {
+        String admin = bearer(userRepo.findByCrn("ADMIN00001").orElseGet(() -> user("ADMIN00001")));
+        mvc.perform(post(path).param("date", LocalDate.now().minusDays(1).toString()).param("count", "0")
+                        .header(HttpHeaders.AUTHORIZATION, admin))
+                .andExpect(status().isOk());
+    }
+
+    private User user(String crn) {
+        return userRepo.save(User.builder()
+                .crn(crn)
+                .firstName("Ada")
+                .lastName("Min")
+                .email(crn.toLowerCase() + "@example.com")
+                .phone(crn)
+                .status(Status.APPROVED)
+                .build());
+    }
+
+    private String bearer(User user) {
+        return "Bearer " + jwtService.generateToken(user);
+    }
+}
@@ -0,0 +1,112 @@
+package com.voltrex.bank.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.voltrex.bank.entities.Status;
+import com.voltrex.bank.entities.User;
+import com.voltrex.bank.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Refresh tokens rotate on every use; presenting a rotated one again revokes the whole chain, and
+ * logout revokes both the access token and the refresh chain.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuthFlowTest {
+
+    private static final String PASSWORD = "pw-123456";
+
+    @Autowired MockMvc mvc;
+    @Autowired UserRepository userRepo;
+    @Autowired PasswordEncoder passwordEncoder;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void reusedRefreshTokenRevokesTheChain() throws Exception {
+        JsonNode login = login(user());
+        String first = login.get("refreshToken").asText();
+
+        JsonNode rotated = body(refresh(first).andExpect(status().isOk()));
+        String second = rotated.get("refreshToken").asText();
+        assertNotEquals(first, second);
+
+        refresh(first).andExpect(status().isUnauthorized());
+        // the successor was handed out before the reuse was seen; it dies with the chain
+        refresh(second).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void loginsHaveIndependentChains() throws Exception {
+        User user = user();
+        String a = login(user).get("refreshToken").asText();
+        String b = login(user).get("refreshToken").asText();
+        refresh(a).andExpect(status().isOk());
+
+        refresh(a).andExpect(status().isUnauthorized());
+
+        refresh(b).andExpect(status().isOk());
+    }
+
+    @Test
+    void logoutRevokesAccessAndRefreshTokens() throws Exception {
+        JsonNode login = login(user());
+        String bearer = "Bearer " + login.get("token").asText();
+        String refreshToken = login.get("refreshToken").asText();
+        mvc.perform(get("/api/accounts").header(HttpHeaders.AUTHORIZATION, bearer)).andExpect(status().isOk());
+
+        mvc.perform(post("/api/auth/logout").header(HttpHeaders.AUTHORIZATION, bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"" + refreshToken + "\"}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/api/accounts").header(HttpHeaders.AUTHORIZATION, bearer)).andExpect(status().is4xxClientError());
+        refresh(refreshToken).andExpect(status().isUnauthorized());
+    }
+
+    private JsonNode login(User user) throws Exception {
+        return body(mvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"crn\":\"" + user.getCrn() + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .andExpect(status().isOk()));
+    }
+
+    private ResultActions refresh(String refreshToken) throws Exception {
+        return mvc.perform(post("/api/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"refreshToken\":\"" + refreshToken + "\"}"));
+    }
+
+    private JsonNode body(ResultActions result) throws Exception {
+        return mapper.readTree(result.andReturn().getResponse().getContentAsString());
+    }
+
+    private User user() {
+        String crn = "R" + ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999);
+        return userRepo.save(User.builder()
+                .crn(crn)
+                .firstName("Remy")
+                .lastName("Refresh")
+                .email(crn.toLowerCase() + "@example.com")
+                .phone(crn)
+                .password(passwordEncoder.encode(PASSWORD))
+                .status(Status.APPROVED)
+                .build());
+    }
+}
@@ -0,0 +1,108 @@
+package com.voltrex.bank.controllers;
+
+import com.voltrex.bank.entities.Account;
+import com.voltrex.bank.entities.AccountType;
+import com.voltrex.bank.entities.Status;
+import com.voltrex.bank.entities.User;
+import com.voltrex.bank.repositories.AccountRepository;
+import com.voltrex.bank.repositories.UserRepository;
+import com.voltrex.bank.services.ChangeVersionService;
+import com.voltrex.bank.services.JwtService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /api/accounts answers 304 to a current If-None-Match, and a new ETag once a committed write
+ * bumps the user's change version.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ConditionalGetTest {
+
+    @Autowired MockMvc mvc;
+    @Autowired JwtService jwtService;
+    @Autowired ChangeVersionService changeVersions;
+    @Autowired UserRepository userRepo;
+    @Autowired AccountRepository accountRepo;
+    @Autowired PlatformTransactionManager txManager;
+
+    private User user;
+    private String bearer;
+
+    @BeforeEach
+    void setUp() {
+        String crn = "E" + ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999);
+        user = userRepo.save(User.builder()
+                .crn(crn)
+                .firstName("Etta")
+                .lastName("Tag")
+                .email(crn.toLowerCase() + "@example.com")
+                .phone(crn)
+                .status(Status.APPROVED)
+                .build());
+        accountRepo.save(Account.builder()
+                .accountNumber(String.valueOf(ThreadLocalRandom.current().nextLong(100_000_000_000L, 999_999_999_999L)))
+                .balance(new BigDecimal("10.00"))
+                .owner(user)
+                .type(AccountType.CURRENT)
+                .build());
+        bearer = "Bearer " + jwtService.generateToken(user);
+    }
+
+    @Test
+    void unchangedAccountsAnswerNotModified() throws Exception {
+        String etag = etag();
+
+        mvc.perform(get("/api/accounts").header(HttpHeaders.AUTHORIZATION, bearer).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void committedChangeIssuesNewTag() throws Exception {
+        String etag = etag();
+
+        new TransactionTemplate(txManager).executeWithoutResult(status -> changeVersions.bump(user.getId()));
+
+        mvc.perform(get("/api/accounts").header(HttpHeaders.AUTHORIZATION, bearer).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        assertNotEquals(etag, etag());
+    }
+
+    @Test
+    void rolledBackChangeKeepsTag() throws Exception {
+        String etag = etag();
+
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            changeVersions.bump(user.getId());
+            status.setRollbackOnly();
+        });
+
+        mvc.perform(get("/api/accounts").header(HttpHeaders.AUTHORIZATION, bearer).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    private String etag() throws Exception {
+        String etag = mvc.perform(get("/api/accounts").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+}
@@ -0,0 +1,160 @@
+package com.voltrex.bank.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.voltrex.bank.Benchmarks;
+import com.voltrex.bank.dto.TransferByAccountRequest;
+import com.voltrex.bank.entities.Account;
+import com.voltrex.bank.entities.AccountType;
+import com.voltrex.bank.entities.Status;
+import com.voltrex.bank.entities.TransactionType;
+import com.voltrex.bank.entities.User;
+import com.voltrex.bank.repositories.AccountRepository;
+import com.voltrex.bank.repositories.UserRepository;
+import com.voltrex.bank.services.JwtService;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.NestedTestConfiguration;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Concurrent-transfer throughput and latency over HTTP with Tomcat on platform threads and on virtual
+ * threads. Each of 32 pairs of accounts has its own sender, so the runs compare request handling and
+ * connection-pool queuing rather than row-lock contention. The virtual-thread run needs Java 21
+ * ({@code mvn test -Pbenchmark,java21}); on 17 only the platform-thread line is printed.
+ *
+ * With virtual threads on, requests over the bulkhead's limit are answered 503; they are counted and
+ * reported next to the timings instead of failing the run.
+ */
+@Tag(Benchmarks.TAG)
+class VirtualThreadBenchmarkTest {
+
+    @Nested
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+            "spring.threads.virtual.enabled=false",
+            "rate-limit.enabled=false"
+    })
+    class PlatformThreads extends TransferLoad {
+    }
+
+    @Nested
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+            "spring.threads.virtual.enabled=true",
+            "rate-limit.enabled=false"
+    })
+    class VirtualThreads extends TransferLoad {
+    }
+
+    abstract static class TransferLoad {
+
+        private static final int PAIRS = 32;
+        private static final int CLIENTS = 128;
+        private static final int REQUESTS = 1280;
+
+        @LocalServerPort int port;
+        @Autowired JwtService jwtService;
+        @Autowired UserRepository userRepo;
+        @Autowired AccountRepository accountRepo;
+        @Autowired ObjectMapper objectMapper;
+
+        private final HttpClient http = HttpClient.newHttpClient();
+
+        @Test
+        void concurrentTransfers() {
+            List<String> tokens = new ArrayList<>();
+            List<String> bodies = new ArrayList<>();
+            for (int i = 0; i < PAIRS; i++) {
+                User sender = user("Sender");
+                User receiver = user("Receiver");
+                Account from = account(sender);
+                Account to = account(receiver);
+                tokens.add(jwtService.generateToken(sender));
+                bodies.add(body(from, to, receiver));
+            }
+            Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+
+            Benchmarks.run("warmup", PAIRS, PAIRS, i -> post(tokens.get(i), bodies.get(i)));
+            Benchmarks.Result result = Benchmarks.run(getClass().getSimpleName(), CLIENTS, REQUESTS, i -> {
+                int status = post(tokens.get(i % PAIRS), bodies.get(i % PAIRS));
+                statuses.computeIfAbsent(status, s -> new AtomicInteger()).incrementAndGet();
+            });
+
+            Benchmarks.report("POST /api/transfer/account from " + CLIENTS + " clients, responses " + statuses, result);
+            statuses.keySet().forEach(status -> assertTrue(status == 200 || status == 503, "status " + status));
+        }
+
+        private int post(String token, String body) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/transfer/account"))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            try {
+                return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        private String body(Account from, Account to, User receiver) {
+            TransferByAccountRequest req = new TransferByAccountRequest();
+            req.setFromAccountNumber(from.getAccountNumber());
+            req.setToAccountNumber(to.getAccountNumber());
+            req.setToAccountName(receiver.getFirstName() + " " + receiver.getLastName());
+            req.setAmount(BigDecimal.ONE);
+            req.setType(TransactionType.Transfer);
+            try {
+                return objectMapper.writeValueAsString(req);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private User user(String firstName) {
+            String crn = "V" + ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999);
+            return userRepo.save(User.builder()
+                    .crn(crn)
+                    .firstName(firstName)
+                    .lastName("Bench")
+                    .email(crn.toLowerCase() + "@example.com")
+                    .phone(crn)
+                    .status(Status.APPROVED)
+                    .build());
+        }
+
+        private Account account(User owner) {
+            return accountRepo.save(Account.builder()
+                    .accountNumber(String.valueOf(ThreadLocalRandom.current().nextLong(100_000_000_000L, 999_999_999_999L)))
+                    .balance(new BigDecimal("10000.00"))
+                    .owner(owner)
+                    .type(AccountType.CURRENT)
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.voltrex.bank.filter;
+
+import com.voltrex.bank.Benchmarks;
+import com.voltrex.bank.entities.Status;
+import com.voltrex.bank.entities.User;
+import com.voltrex.bank.repositories.UserRepository;
+import com.voltrex.bank.services.JwtService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Per-request cost of JwtFilter. "rebuild key and parser" replays what every request did before the
+ * key and parser were built once (HMAC key from the secret string, a new parser, full verification);
+ * the filter is then timed with a new token on every request (verified-token cache miss) and with one
+ * token repeated (cache hit). Single-threaded, so the numbers are per-request CPU cost.
+ */
+@Tag(Benchmarks.TAG)
+@SpringBootTest
+class JwtFilterBenchmarkTest {
+
+    private static final int REQUESTS = 20_000;
+
+    @Value("${jwt.secretKey}") String secret;
+    @Autowired JwtFilter filter;
+    @Autowired JwtService jwtService;
+    @Autowired UserRepository userRepo;
+
+    @Test
+    void filterCostPerRequest() {
+        User user = user();
+        List<String> fresh = new ArrayList<>(2 * REQUESTS);
+        for (int i = 0; i < 2 * REQUESTS; i++) fresh.add(jwtService.generateToken(user));
+        String repeated = jwtService.generateToken(user);
+
+        Benchmarks.run("warmup", 1, REQUESTS, i -> {
+            rebuildAndParse(fresh.get(i));
+            authenticate(fresh.get(REQUESTS + i));
+            authenticate(repeated);
+        });
+        List<String> unseen = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) unseen.add(jwtService.generateToken(user));
+
+        Benchmarks.report("JwtFilter per request, 1 thread",
+                Benchmarks.run("rebuild key and parser (before)", 1, REQUESTS, i -> rebuildAndParse(fresh.get(i))),
+                Benchmarks.run("filter, new token (cache miss)", 1, REQUESTS, i -> authenticate(unseen.get(i))),
+                Benchmarks.run("filter, repeated token (cache hit)", 1, REQUESTS, i -> authenticate(repeated)));
+    }
+
+    private void rebuildAndParse(String token) {
+        String subject = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload()
+                .getSubject();
+        assertNotNull(subject);
+    }
+
+    private void authenticate(String token) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/accounts");
+        request.addHeader("Authorization", "Bearer " + token);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> { });
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (ServletException ex) {
+            throw new IllegalStateException(ex);
+        }
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+        SecurityContextHolder.clearContext();
+    }
+
+    private User user() {
+        String crn = "J" + ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999);
+        return userRepo.save(User.builder()
+                .crn(crn)
+                .firstName("Jay")
+                .lastName("Bench")
+                .email(crn.toLowerCase() + "@example.com")
+                .phone(crn)
+                .status(Status.APPROVED)
+                .build());
+    }
+}
@@ -0,0 +1,95 @@
+package com.voltrex.bank.filter;
+
+import com.voltrex.bank.services.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * The per-CRN login limit applies whether or not the body declares its length, and the buffered
+ * body still reaches the controller.
+ */
+class RateLimitFilterTest {
+
+    private final RateLimitFilter filter = new RateLimitFilter(
+            new RateLimiter(new SimpleMeterRegistry(), true, 100_000, "100/1m", "10/1m", "60/1m", "300/1m"), null);
+
+    @Test
+    void eleventhLoginForOneCrnIsRejected() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(200, login(request("crn-a"), new MockFilterChain()).getStatus());
+        }
+        MockHttpServletResponse rejected = login(request("crn-a"), new MockFilterChain());
+
+        assertEquals(429, rejected.getStatus());
+        assertNotNull(rejected.getHeader("Retry-After"));
+        assertEquals(200, login(request("crn-b"), new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    void chunkedLoginBodyIsStillLimited() throws Exception {
+        for (int i = 0; i < 10; i++) login(chunked("crn-c"), new MockFilterChain());
+
+        assertEquals(429, login(chunked("crn-c"), new MockFilterChain()).getStatus());
+    }
+
+    @Test
+    void bufferedBodyReachesTheController() throws Exception {
+        MockHttpServletRequest request = chunked("crn-d");
+        MockFilterChain chain = new MockFilterChain();
+
+        login(request, chain);
+
+        assertArrayEquals(request.getContentAsByteArray(), chain.getRequest().getInputStream().readAllBytes());
+    }
+
+    @Test
+    void oversizedLoginBodyIsRefused() throws Exception {
+        MockHttpServletRequest request = request("crn-e");
+        request.setContent(("{\"crn\":\"crn-e\",\"password\":\"" + "x".repeat(5000) + "\"}").getBytes(StandardCharsets.UTF_8));
+        MockFilterChain chain = new MockFilterChain();
+
+        assertEquals(413, login(request, chain).getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    private MockHttpServletResponse login(MockHttpServletRequest request, MockFilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String crn) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setContentType("application/json");
+        request.setContent(("{\"crn\":\"" + crn + "\",\"password\":\"secret\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    // Transfer-Encoding: chunked, so no Content-Length
+    private static MockHttpServletRequest chunked(String crn) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login") {
+            @Override
+            public int getContentLength() {
+                return -1;
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.setContentType("application/json");
+        request.setContent(("{\"crn\":\"" + crn + "\",\"password\":\"secret\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
@@ -0,0 +1,120 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.dto.AccountResponse;
+import com.voltrex.bank.entities.Account;
+import com.voltrex.bank.entities.AccountType;
+import com.voltrex.bank.entities.Status;
+import com.voltrex.bank.entities.Transaction;
+import com.voltrex.bank.entities.TransactionType;
+import com.voltrex.bank.entities.User;
+import com.voltrex.bank.repositories.AccountRepository;
+import com.voltrex.bank.repositories.TransactionRepository;
+import com.voltrex.bank.repositories.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * GET /api/accounts must cost a fixed number of statements however many accounts the user has:
+ * one to load the accounts and one for their account_summary rows, with no aggregation over
+ * transaction_record. The summaries are rebuilt from the ledger first, which also checks the rebuild.
+ */
+// statistics are global, so keep the outbox dispatcher's background poll out of the counted window
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "outbox.poll-interval-ms=3600000"
+})
+@Transactional
+class AccountServiceQueryCountTest {
+
+    @Autowired AccountService accountService;
+    @Autowired AccountSummaryService accountSummaryService;
+    @Autowired UserRepository userRepo;
+    @Autowired AccountRepository accountRepo;
+    @Autowired TransactionRepository txnRepo;
+    @Autowired EntityManager entityManager;
+    @Autowired EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void accountsServedFromSummariesInTwoQueries() {
+        User owner = user("QC00001", "Quinn", "Count");
+        User other = user("QC00002", "Olive", "Other");
+        Account a1 = account(owner, "900000000001");
+        Account a2 = account(owner, "900000000002");
+        Account a3 = account(owner, "900000000003");
+        Account x = account(other, "900000000004");
+
+        transaction(x, a1, "100.00");
+        transaction(a1, a2, "40.00");
+        transaction(a3, x, "25.00");
+        Transaction lastMonth = transaction(x, a1, "500.00");
+        entityManager.flush();
+        entityManager.createQuery("UPDATE Transaction t SET t.executedAt = t.executedAt - 40 day WHERE t.id = :id")
+                .setParameter("id", lastMonth.getId())
+                .executeUpdate();
+        for (Account a : new Account[]{a1, a2, a3, x}) accountSummaryService.rebuildAccount(a.getId());
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        Map<String, AccountResponse> byNumber = accountService.getAccountsForUser(owner.getId()).stream()
+                .collect(Collectors.toMap(AccountResponse::number, Function.identity()));
+
+        assertEquals(2, stats.getPrepareStatementCount(), "accounts + their summaries");
+        assertEquals(3, byNumber.size());
+        assertTotals(byNumber.get("900000000001"), "100.00", "40.00");
+        assertTotals(byNumber.get("900000000002"), "40.00", "0");
+        assertTotals(byNumber.get("900000000003"), "0", "25.00");
+    }
+
+    private void assertTotals(AccountResponse acc, String in, String out) {
+        assertEquals(0, new BigDecimal(in).compareTo(acc.monthIn()), acc.number() + " monthIn");
+        assertEquals(0, new BigDecimal(out).compareTo(acc.monthOut()), acc.number() + " monthOut");
+    }
+
+    private User user(String crn, String firstName, String lastName) {
+        return userRepo.save(User.builder()
+                .crn(crn)
+                .firstName(firstName)
+                .lastName(lastName)
+                .email(crn.toLowerCase() + "@example.com")
+                .phone(crn)
+                .status(Status.APPROVED)
+                .build());
+    }
+
+    private Account account(User owner, String number) {
+        return accountRepo.save(Account.builder()
+                .accountNumber(number)
+                .balance(new BigDecimal("1000.00"))
+                .owner(owner)
+                .type(AccountType.CURRENT)
+                .build());
+    }
+
+    private Transaction transaction(Account from, Account to, String amount) {
+        return txnRepo.save(Transaction.builder()
+                .referenceNumber(UUID.randomUUID().toString())
+                .amount(new BigDecimal(amount))
+                .fromAccount(from)
+                .toAccount(to)
+                .type(TransactionType.Transfer)
+                .status("COMPLETED")
+                .build());
+    }
+}
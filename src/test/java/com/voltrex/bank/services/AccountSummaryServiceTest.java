@@ -0,0 +1,182 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.dto.AuthenticatedUser;
+import com.voltrex.bank.dto.TransferByAccountRequest;
+import com.voltrex.bank.entities.Account;
+import com.voltrex.bank.entities.AccountSummary;
+import com.voltrex.bank.entities.AccountType;
+import com.voltrex.bank.entities.Status;
+import com.voltrex.bank.entities.Transaction;
+import com.voltrex.bank.entities.TransactionType;
+import com.voltrex.bank.entities.User;
+import com.voltrex.bank.repositories.AccountRepository;
+import com.voltrex.bank.repositories.AccountSummaryRepository;
+import com.voltrex.bank.repositories.TransactionRepository;
+import com.voltrex.bank.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Summaries are written in the ledger transaction: they commit and roll back with it and always match
+ * the ledger, whether the row existed before the write or is created by it.
+ */
+@SpringBootTest
+class AccountSummaryServiceTest {
+
+    @Autowired AccountSummaryService summaryService;
+    @Autowired TransferService transferService;
+    @Autowired AccountSummaryRepository summaryRepo;
+    @Autowired UserRepository userRepo;
+    @Autowired AccountRepository accountRepo;
+    @Autowired TransactionRepository txnRepo;
+    @Autowired PlatformTransactionManager txManager;
+
+    @Test
+    void transferUpdatesExistingSummaries() {
+        User alice = user("Alice", "Summary");
+        User bob = user("Bob", "Summary");
+        Account from = account(alice, "1000.00");
+        Account to = account(bob, "1000.00");
+        summaryService.rebuildAccount(from.getId());
+        summaryService.rebuildAccount(to.getId());
+
+        transfer(alice, from, to, bob, "100.00");
+
+        assertSummary(from, "900.00", "0", "100.00");
+        assertSummary(to, "1100.00", "100.00", "0");
+    }
+
+    @Test
+    void missingSummaryIsBuiltFromTheLedgerOnce() {
+        User alice = user("Alice", "Missing");
+        User bob = user("Bob", "Missing");
+        Account from = account(alice, "500.00");
+        Account to = account(bob, "500.00");
+
+        transfer(alice, from, to, bob, "50.00");
+
+        assertSummary(from, "450.00", "0", "50.00");
+        assertSummary(to, "550.00", "50.00", "0");
+    }
+
+    @Test
+    void rolledBackWriteLeavesSummaryUntouched() {
+        User alice = user("Alice", "Rollback");
+        User bob = user("Bob", "Rollback");
+        Account from = account(alice, "300.00");
+        Account to = account(bob, "300.00");
+        summaryService.rebuildAccount(from.getId());
+        summaryService.rebuildAccount(to.getId());
+
+        new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            Transaction tx = txnRepo.save(Transaction.builder()
+                    .referenceNumber(UUID.randomUUID().toString())
+                    .amount(new BigDecimal("25.00"))
+                    .fromAccount(from)
+                    .toAccount(to)
+                    .fromOwnerId(alice.getId())
+                    .toOwnerId(bob.getId())
+                    .type(TransactionType.Transfer)
+                    .status("COMPLETED")
+                    .executedAt(LocalDateTime.now())
+                    .build());
+            summaryService.record(tx);
+            status.setRollbackOnly();
+        });
+
+        assertSummary(from, "300.00", "0", "0");
+        assertSummary(to, "300.00", "0", "0");
+    }
+
+    @Test
+    void concurrentTransfersBothWaysKeepSummariesExact() throws Exception {
+        User alice = user("Alice", "Busy");
+        User bob = user("Bob", "Busy");
+        Account a = account(alice, "10000.00");
+        Account b = account(bob, "10000.00");
+
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 30; i++) {
+                boolean aToB = i % 2 == 0;
+                results.add(pool.submit(() -> {
+                    // small random delay so both directions overlap
+                    sleep(ThreadLocalRandom.current().nextInt(5));
+                    if (aToB) transfer(alice, a, b, bob, "10.00");
+                    else transfer(bob, b, a, alice, "7.00");
+                }));
+            }
+            for (Future<?> f : results) f.get(60, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // 15 x 10.00 one way, 15 x 7.00 the other
+        assertSummary(a, "9955.00", "105.00", "150.00");
+        assertSummary(b, "10045.00", "150.00", "105.00");
+    }
+
+    private void assertSummary(Account account, String balance, String monthIn, String monthOut) {
+        AccountSummary s = summaryRepo.findById(account.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal(balance).compareTo(s.getBalance()), "balance");
+        assertEquals(0, new BigDecimal(monthIn).compareTo(s.getMonthIn()), "monthIn");
+        assertEquals(0, new BigDecimal(monthOut).compareTo(s.getMonthOut()), "monthOut");
+        assertEquals(0, accountRepo.findById(account.getId()).orElseThrow().getBalance().compareTo(s.getBalance()), "matches account");
+    }
+
+    private void transfer(User sender, Account from, Account to, User receiver, String amount) {
+        TransferByAccountRequest req = new TransferByAccountRequest();
+        req.setFromAccountNumber(from.getAccountNumber());
+        req.setToAccountNumber(to.getAccountNumber());
+        req.setToAccountName(receiver.getFirstName() + " " + receiver.getLastName());
+        req.setAmount(new BigDecimal(amount));
+        req.setType(TransactionType.Transfer);
+        transferService.transferByAccount(req, AuthenticatedUser.from(sender));
+    }
+
+    private User user(String firstName, String lastName) {
+        String crn = "S" + ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999);
+        return userRepo.save(User.builder()
+                .crn(crn)
+                .firstName(firstName)
+                .lastName(lastName)
+                .email(crn.toLowerCase() + "@example.com")
+                .phone(crn)
+                .status(Status.APPROVED)
+                .build());
+    }
+
+    private Account account(User owner, String balance) {
+        return accountRepo.save(Account.builder()
+                .accountNumber(String.valueOf(ThreadLocalRandom.current().nextLong(100_000_000_000L, 999_999_999_999L)))
+                .balance(new BigDecimal(balance))
+                .owner(owner)
+                .type(AccountType.CURRENT)
+                .build());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
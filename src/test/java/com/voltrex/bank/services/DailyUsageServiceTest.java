@@ -0,0 +1,168 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.entities.Account;
+import com.voltrex.bank.entities.AccountType;
+import com.voltrex.bank.entities.Status;
+import com.voltrex.bank.entities.Transaction;
+import com.voltrex.bank.entities.TransactionType;
+import com.voltrex.bank.entities.User;
+import com.voltrex.bank.repositories.AccountRepository;
+import com.voltrex.bank.repositories.TransactionRepository;
+import com.voltrex.bank.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counters are upserted in one statement (a day's first write creates the row, later ones add to it),
+ * and a day can be rebuilt from the ledger while transfers keep writing to it.
+ */
+@SpringBootTest
+class DailyUsageServiceTest {
+
+    @Autowired DailyUsageService dailyUsage;
+    @Autowired UserRepository userRepo;
+    @Autowired AccountRepository accountRepo;
+    @Autowired TransactionRepository txnRepo;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void firstWriteOfADayCreatesTheRowAndLaterWritesAdd() {
+        Account account = account(user());
+        LocalDate day = LocalDate.now();
+        TransactionTemplate tt = new TransactionTemplate(txManager);
+
+        tt.executeWithoutResult(status -> dailyUsage.recordDeposit(account, day, new BigDecimal("5.00")));
+        assertAmount("5.00", dailyUsage.depositedOn(account.getId(), day));
+        assertAmount("0", dailyUsage.withdrawnOn(account.getId(), day));
+
+        tt.executeWithoutResult(status -> {
+            dailyUsage.recordWithdrawal(account, day, new BigDecimal("2.00"));
+            dailyUsage.recordDeposit(account, day, new BigDecimal("5.00"));
+            dailyUsage.recordWithdrawal(account, day, new BigDecimal("1.50"));
+        });
+        assertAmount("10.00", dailyUsage.depositedOn(account.getId(), day));
+        assertAmount("3.50", dailyUsage.withdrawnOn(account.getId(), day));
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM account_daily_usage WHERE account_id = ?", Integer.class, account.getId()));
+    }
+
+    @Test
+    void rebuildReplacesClosedDayFromLedger() {
+        User user = user();
+        Account from = account(user);
+        Account to = account(user);
+        LocalDate day = LocalDate.now().minusDays(3);
+        Transaction tx = ledger(user, from, to, "30.00");
+        // executed_at is a creation timestamp, so backdate it directly
+        jdbc.update("UPDATE transaction_record SET executed_at = ? WHERE id = ?", day.atTime(12, 0), tx.getId());
+        // drifted counter that the rebuild has to overwrite
+        new TransactionTemplate(txManager).executeWithoutResult(status ->
+                dailyUsage.recordWithdrawal(from, day, new BigDecimal("999.00")));
+
+        dailyUsage.rebuild(day);
+
+        assertAmount("30.00", dailyUsage.withdrawnOn(from.getId(), day));
+        assertAmount("0", dailyUsage.depositedOn(from.getId(), day));
+        assertAmount("30.00", dailyUsage.depositedOn(to.getId(), day));
+    }
+
+    @Test
+    void rebuildOfTodayWaitsForTransfersInFlight() throws Exception {
+        User user = user();
+        Account from = account(user);
+        Account to = account(user);
+        LocalDate today = LocalDate.now();
+        TransactionTemplate tt = new TransactionTemplate(txManager);
+        tt.executeWithoutResult(status -> {
+            ledger(user, from, to, "30.00");
+            dailyUsage.recordTransfer(from, to, today, new BigDecimal("30.00"));
+        });
+        // drifted counter that the rebuild has to overwrite
+        tt.executeWithoutResult(status -> dailyUsage.recordWithdrawal(from, today, new BigDecimal("999.00")));
+
+        // a transfer that has written its counters but not committed yet
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> transfer = CompletableFuture.runAsync(() -> tt.executeWithoutResult(status -> {
+            ledger(user, from, to, "5.00");
+            dailyUsage.recordTransfer(from, to, today, new BigDecimal("5.00"));
+            written.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Integer> rebuild = CompletableFuture.supplyAsync(() -> dailyUsage.rebuild(today));
+        Thread.sleep(300);
+        assertFalse(rebuild.isDone());
+        release.countDown();
+        transfer.get(5, TimeUnit.SECONDS);
+        rebuild.get(5, TimeUnit.SECONDS);
+
+        assertAmount("35.00", dailyUsage.withdrawnOn(from.getId(), today));
+        assertAmount("35.00", dailyUsage.depositedOn(to.getId(), today));
+    }
+
+    @Test
+    void rebuildRejectsFutureDays() {
+        assertThrows(IllegalArgumentException.class, () -> dailyUsage.rebuild(LocalDate.now().plusDays(1)));
+    }
+
+    private Transaction ledger(User user, Account from, Account to, String amount) {
+        return txnRepo.save(Transaction.builder()
+                .referenceNumber(UUID.randomUUID().toString())
+                .amount(new BigDecimal(amount))
+                .fromAccount(from)
+                .toAccount(to)
+                .fromOwnerId(user.getId())
+                .toOwnerId(user.getId())
+                .type(TransactionType.Transfer)
+                .status("COMPLETED")
+                .build());
+    }
+
+    private static void assertAmount(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), () -> expected + " != " + actual);
+    }
+
+    private User user() {
+        String crn = "D" + ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999);
+        return userRepo.save(User.builder()
+                .crn(crn)
+                .firstName("Dana")
+                .lastName("Usage")
+                .email(crn.toLowerCase() + "@example.com")
+                .phone(crn)
+                .status(Status.APPROVED)
+                .build());
+    }
+
+    private Account account(User owner) {
+        return accountRepo.save(Account.builder()
+                .accountNumber(String.valueOf(ThreadLocalRandom.current().nextLong(100_000_000_000L, 999_999_999_999L)))
+                .balance(new BigDecimal("1000.00"))
+                .owner(owner)
+                .type(AccountType.CURRENT)
+                .build());
+    }
+}
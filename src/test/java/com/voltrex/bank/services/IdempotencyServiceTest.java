@@ -0,0 +1,139 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.dto.TransferByAccountRequest;
+import com.voltrex.bank.entities.TransactionType;
+import com.voltrex.bank.exception.TransferException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A key runs its transfer once per user: replays and concurrent duplicates get the first
+ * referenceNumber, and the same key with a different body is rejected.
+ */
+@SpringBootTest
+class IdempotencyServiceTest {
+
+    @Autowired IdempotencyService idempotencyService;
+
+    @Test
+    void replayReturnsFirstReferenceWithoutRunningAgain() {
+        AtomicInteger runs = new AtomicInteger();
+        String key = UUID.randomUUID().toString();
+
+        String first = idempotencyService.execute(1L, key, request("100.00", null), () -> newReference(runs));
+        String replay = idempotencyService.execute(1L, key, request("100", null), () -> newReference(runs));
+
+        assertEquals(first, replay);
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void keyIsScopedToTheUser() {
+        AtomicInteger runs = new AtomicInteger();
+        String key = UUID.randomUUID().toString();
+
+        String mine = idempotencyService.execute(1L, key, request("10.00", null), () -> newReference(runs));
+        String theirs = idempotencyService.execute(2L, key, request("10.00", null), () -> newReference(runs));
+
+        assertNotEquals(mine, theirs);
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void reusingKeyForDifferentRequestIsRejected() {
+        AtomicInteger runs = new AtomicInteger();
+        String key = UUID.randomUUID().toString();
+
+        idempotencyService.execute(1L, key, request("10.00", "rent"), () -> newReference(runs));
+
+        assertThrows(TransferException.class,
+                () -> idempotencyService.execute(1L, key, request("11.00", "rent"), () -> newReference(runs)));
+        assertThrows(TransferException.class,
+                () -> idempotencyService.execute(1L, key, request("10.00", "food"), () -> newReference(runs)));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void failedTransferStoresNothing() {
+        AtomicInteger runs = new AtomicInteger();
+        String key = UUID.randomUUID().toString();
+
+        assertThrows(TransferException.class, () -> idempotencyService.execute(1L, key, request("10.00", null), () -> {
+            runs.incrementAndGet();
+            throw new TransferException("Insufficient funds");
+        }));
+        idempotencyService.execute(1L, key, request("10.00", null), () -> newReference(runs));
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void concurrentDuplicatesRunOnce() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        String key = UUID.randomUUID().toString();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<?>[] results = new Future<?>[4];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = pool.submit(() -> idempotencyService.execute(1L, key, request("5.00", null), () -> {
+                    await(release);
+                    return newReference(runs);
+                }));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            Object first = results[0].get(10, TimeUnit.SECONDS);
+            for (Future<?> r : results) assertEquals(first, r.get(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void fingerprintIgnoresNullsAndTrailingZeros() {
+        assertEquals(IdempotencyService.fingerprint(request("100", null)),
+                IdempotencyService.fingerprint(request("100.000", null)));
+        assertNotEquals(IdempotencyService.fingerprint(request("100", null)),
+                IdempotencyService.fingerprint(request("100", "")));
+    }
+
+    private static TransferByAccountRequest request(String amount, String description) {
+        TransferByAccountRequest req = new TransferByAccountRequest();
+        req.setFromAccountNumber("100000000001");
+        req.setToAccountNumber("100000000002");
+        req.setToAccountName("Ada Lovelace");
+        req.setAmount(new BigDecimal(amount));
+        req.setDescription(description);
+        req.setType(TransactionType.Transfer);
+        return req;
+    }
+
+    private static String newReference(AtomicInteger runs) {
+        runs.incrementAndGet();
+        return UUID.randomUUID().toString();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.controllers.JwksController;
+import com.voltrex.bank.entities.User;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.PublicJwk;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Key rotation through the PKCS#12 keystore: a new entry is published at once but only signs once it
+ * has been published for key-activation-seconds, tokens signed by a key verify until it is removed,
+ * and kid-less HS256 tokens keep verifying after the switch.
+ */
+class JwtKeysTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789";
+    private static final String PASSWORD = "changeit";
+
+    @TempDir Path dir;
+
+    @Test
+    void newKeyIsPublishedBeforeItSigns() throws Exception {
+        Path store = dir.resolve("jwt.p12");
+        addKey(store, "k1");
+        JwtKeys keys = new JwtKeys(JwtKeys.Algorithm.ES256, store.toString(), PASSWORD, "", 300);
+        JwtService jwt = jwtService(keys);
+        String before = jwt.generateToken(user());
+
+        addKey(store, "k2");
+        keys.reloadIfChanged();
+
+        assertEquals(Set.of("k1", "k2"), kids(keys.publicJwks()));
+        assertEquals("k1", kid(jwt.generateToken(user())));
+        assertEquals(42L, jwt.verify(before).userId());
+    }
+
+    @Test
+    void activatedKeySignsAndRemovedKeyStopsVerifying() throws Exception {
+        Path store = dir.resolve("jwt.p12");
+        addKey(store, "k1");
+        JwtKeys keys = new JwtKeys(JwtKeys.Algorithm.ES256, store.toString(), PASSWORD, "", 0);
+        JwtService jwt = jwtService(keys);
+        String signedByK1 = jwt.generateToken(user());
+
+        addKey(store, "k2");
+        keys.reloadIfChanged();
+        String signedByK2 = jwt.generateToken(user());
+
+        assertEquals("k2", kid(signedByK2));
+        assertEquals(42L, jwt.verify(signedByK1).userId());
+
+        keytool("-delete", "-alias", "k1", "-keystore", store.toString(), "-storepass", PASSWORD);
+        touch(store);
+        keys.reloadIfChanged();
+
+        assertEquals(Set.of("k2"), kids(keys.publicJwks()));
+        assertEquals(42L, jwt.verify(signedByK2).userId());
+        // a fresh service, so the verified-token cache does not answer for k1
+        assertThrows(UnsupportedJwtException.class, () -> jwtService(keys).verify(signedByK1));
+    }
+
+    @Test
+    void hmacTokensStillVerifyAfterSwitchingToEs256() throws Exception {
+        JwtService hmac = jwtService(new JwtKeys(JwtKeys.Algorithm.HS256, "", "", "", 300));
+        String legacy = hmac.generateToken(user());
+
+        JwtService es256 = jwtService(new JwtKeys(JwtKeys.Algorithm.ES256, "", "", "", 300));
+
+        assertEquals(42L, es256.verify(legacy).userId());
+    }
+
+    @Test
+    void jwksEndpointIsCacheableAndEmptyForHmac() throws Exception {
+        ResponseEntity<Map<String, Object>> hmac = new JwksController(new JwtKeys(JwtKeys.Algorithm.HS256, "", "", "", 300)).jwks();
+        assertEquals(List.of(), hmac.getBody().get("keys"));
+        assertTrue(hmac.getHeaders().getFirst(HttpHeaders.CACHE_CONTROL).contains("max-age=60"));
+
+        ResponseEntity<Map<String, Object>> es256 = new JwksController(new JwtKeys(JwtKeys.Algorithm.ES256, "", "", "", 300)).jwks();
+        assertEquals(1, ((List<?>) es256.getBody().get("keys")).size());
+    }
+
+    private static JwtService jwtService(JwtKeys keys) {
+        return new JwtService(SECRET, keys, 10, 100, new SimpleMeterRegistry());
+    }
+
+    private static User user() {
+        return User.builder().id(42L).crn("K0000001").email("keys@example.com").firstName("Kim").build();
+    }
+
+    private static Set<String> kids(List<PublicJwk<?>> jwks) {
+        return jwks.stream().map(PublicJwk::getId).collect(Collectors.toSet());
+    }
+
+    private static String kid(String token) {
+        String header = new String(Base64.getUrlDecoder().decode(token.split("\\.")[0]), StandardCharsets.UTF_8);
+        return header.replaceAll(".*\"kid\":\"([^\"]+)\".*", "$1");
+    }
+
+    private static void addKey(Path store, String alias) throws Exception {
+        keytool("-genkeypair", "-alias", alias, "-keyalg", "EC", "-groupname", "secp256r1", "-dname", "CN=" + alias,
+                "-keystore", store.toString(), "-storetype", "PKCS12", "-storepass", PASSWORD);
+        touch(store);
+    }
+
+    // the keystore is reloaded when its modification time changes; make sure it does
+    private static void touch(Path store) throws Exception {
+        FileTime previous = Files.getLastModifiedTime(store);
+        Files.setLastModifiedTime(store, FileTime.fromMillis(Math.max(System.currentTimeMillis(), previous.toMillis() + 1000)));
+    }
+
+    private static void keytool(String... args) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "keytool").toString());
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertEquals(0, process.waitFor(), output);
+    }
+}
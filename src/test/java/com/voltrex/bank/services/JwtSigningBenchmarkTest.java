@@ -0,0 +1,39 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.Benchmarks;
+import com.voltrex.bank.entities.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Token signing and verification cost per jwt.algorithm, single-threaded. Every token is verified
+ * once, so verification never hits the verified-token cache. Keys are the ephemeral ones generated
+ * when no keystore is configured.
+ */
+@Tag(Benchmarks.TAG)
+class JwtSigningBenchmarkTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789";
+    private static final int TOKENS = 5_000;
+
+    @Test
+    void signAndVerifyCostPerAlgorithm() throws Exception {
+        List<Benchmarks.Result> results = new ArrayList<>();
+        for (JwtKeys.Algorithm algorithm : JwtKeys.Algorithm.values()) {
+            JwtService jwt = new JwtService(SECRET, new JwtKeys(algorithm, "", "", "", 0), 10, 100, new SimpleMeterRegistry());
+            User user = User.builder().id(42L).crn("S0000001").email("sign@example.com").firstName("Sam").build();
+            String[] tokens = new String[TOKENS];
+
+            Benchmarks.run("warmup", 1, TOKENS, i -> jwt.verify(jwt.generateToken(user)));
+            results.add(Benchmarks.run(algorithm + " sign", 1, TOKENS, i -> tokens[i] = jwt.generateToken(user)));
+            results.add(Benchmarks.run(algorithm + " verify", 1, TOKENS, i -> assertEquals(42L, jwt.verify(tokens[i]).userId())));
+        }
+        Benchmarks.report("JWT sign/verify per algorithm, 1 thread", results.toArray(Benchmarks.Result[]::new));
+    }
+}
@@ -0,0 +1,179 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.entities.Account;
+import com.voltrex.bank.entities.AccountType;
+import com.voltrex.bank.entities.JobRun;
+import com.voltrex.bank.entities.JobRunPartition;
+import com.voltrex.bank.entities.Status;
+import com.voltrex.bank.entities.User;
+import com.voltrex.bank.repositories.AccountRepository;
+import com.voltrex.bank.repositories.AccountSummaryRepository;
+import com.voltrex.bank.repositories.JobRunPartitionRepository;
+import com.voltrex.bank.repositories.JobRunRepository;
+import com.voltrex.bank.repositories.TransactionRepository;
+import com.voltrex.bank.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The month is split into id ranges worked off in parallel, every account is charged exactly once,
+ * and a FAILED run resumes after the last account that committed. The bank account's side of the
+ * charges is applied per page, outside the accounts' transactions, and still agrees with the ledger. CURRENT accounts with 10000.00
+ * pay only the 500.00 monthly fee.
+ */
+@SpringBootTest(properties = {
+        "monthly.partition-size=2",
+        "monthly.workers=3"
+})
+class MonthlyServiceTest {
+
+    private static final String JOB_NAME = "monthly_account_processing";
+
+    @Autowired MonthlyService monthlyService;
+    @Autowired JobRunRepository jobRunRepo;
+    @Autowired JobRunPartitionRepository partitionRepo;
+    @Autowired UserRepository userRepo;
+    @Autowired AccountRepository accountRepo;
+    @Autowired TransactionRepository txnRepo;
+    @Autowired AccountSummaryRepository summaryRepo;
+    @Autowired DailyUsageService dailyUsage;
+
+    @Test
+    void runChargesEveryAccountOnceAcrossPartitions() {
+        List<Account> accounts = accounts(5);
+        YearMonth period = YearMonth.of(2001, 1);
+
+        assertEquals("COMPLETED", monthlyService.run(period));
+
+        accounts.forEach(a -> assertBalance(a, "9500.00"));
+        JobRun run = jobRunRepo.findByJobNameAndPeriodYearAndPeriodMonth(JOB_NAME, 2001, 1).orElseThrow();
+        List<JobRunPartition> partitions = partitionRepo.findByJobRunIdOrderByPartitionNo(run.getId());
+        assertTrue(partitions.size() >= 3, "partitions " + partitions.size());
+        partitions.forEach(p -> assertEquals("COMPLETED", p.getStatus()));
+        assertEquals(accountRepo.count(), partitions.stream().mapToLong(p -> p.getProcessedAccounts() + p.getFailedAccounts()).sum());
+
+        // a completed month is not charged again
+        assertEquals("COMPLETED", monthlyService.run(period));
+        accounts.forEach(a -> assertBalance(a, "9500.00"));
+    }
+
+    @Test
+    void bankSideIsAppliedInBulkAndMatchesTheLedger() {
+        accounts(5);
+        Account bank = accountRepo.findByAccountNumber("000000000000").orElseThrow();
+        LocalDate today = LocalDate.now();
+
+        assertEquals("COMPLETED", monthlyService.run(YearMonth.of(2001, 4)));
+
+        BigDecimal ledger = txnRepo.sumDepositedByAccountBetween(today.atStartOfDay(), today.atTime(LocalTime.MAX)).stream()
+                .filter(row -> bank.getId().equals(row[0]))
+                .map(row -> (BigDecimal) row[1])
+                .findFirst().orElseThrow();
+        assertAmount(ledger, dailyUsage.depositedOn(bank.getId(), today));
+        BigDecimal monthIn = (BigDecimal) txnRepo.sumInOutByAccountBetween(bank.getId(),
+                today.withDayOfMonth(1).atStartOfDay(), today.atTime(LocalTime.MAX)).get(0)[0];
+        assertAmount(monthIn, summaryRepo.findById(bank.getId()).orElseThrow().getMonthIn());
+    }
+
+    @Test
+    void failedRunResumesAfterLastCommittedAccount() {
+        List<Account> a = accounts(5);
+        JobRun run = jobRun(2001, 2, "FAILED");
+        // range 0 finished; range 1 failed after its first account
+        partitionRepo.saveAll(List.of(
+                partition(run, 0, a.get(0), a.get(1), "COMPLETED", a.get(1), 2),
+                partition(run, 1, a.get(2), a.get(4), "FAILED", a.get(2), 1)));
+        // what the failed run had already charged
+        for (int i = 0; i < 3; i++) charged(a.get(i));
+
+        assertEquals("COMPLETED", monthlyService.run(YearMonth.of(2001, 2)));
+
+        a.forEach(acc -> assertBalance(acc, "9500.00"));
+        List<JobRunPartition> partitions = partitionRepo.findByJobRunIdOrderByPartitionNo(run.getId());
+        assertEquals("COMPLETED", partitions.get(1).getStatus());
+        assertEquals(a.get(4).getId(), partitions.get(1).getLastAccountId());
+        assertEquals(3, partitions.get(1).getProcessedAccounts());
+    }
+
+    @Test
+    void runInProgressIsLeftAlone() {
+        Account account = accounts(1).get(0);
+        jobRun(2001, 3, "IN_PROGRESS");
+
+        assertEquals("IN_PROGRESS", monthlyService.run(YearMonth.of(2001, 3)));
+
+        assertBalance(account, "10000.00");
+    }
+
+    private void charged(Account account) {
+        account.setBalance(new BigDecimal("9500.00"));
+        accountRepo.save(account);
+    }
+
+    private JobRun jobRun(int year, int month, String status) {
+        JobRun run = new JobRun();
+        run.setJobName(JOB_NAME);
+        run.setPeriodYear(year);
+        run.setPeriodMonth(month);
+        run.setStartedAt(LocalDateTime.now());
+        run.setStatus(status);
+        return jobRunRepo.save(run);
+    }
+
+    private static JobRunPartition partition(JobRun run, int no, Account from, Account to, String status, Account last, long processed) {
+        return JobRunPartition.builder()
+                .jobRunId(run.getId())
+                .partitionNo(no)
+                .fromId(from.getId())
+                .toId(to.getId())
+                .status(status)
+                .lastAccountId(last.getId())
+                .processedAccounts(processed)
+                .build();
+    }
+
+    private static void assertAmount(BigDecimal expected, BigDecimal actual) {
+        assertEquals(0, expected.compareTo(actual), () -> expected + " != " + actual);
+    }
+
+    private void assertBalance(Account account, String expected) {
+        BigDecimal balance = accountRepo.findById(account.getId()).orElseThrow().getBalance();
+        assertEquals(0, new BigDecimal(expected).compareTo(balance), () -> "account " + account.getId() + ": " + balance);
+    }
+
+    // consecutive ids, as nothing else creates accounts in this context
+    private List<Account> accounts(int n) {
+        String crn = "M" + ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999);
+        User owner = userRepo.save(User.builder()
+                .crn(crn)
+                .firstName("Mona")
+                .lastName("Monthly")
+                .email(crn.toLowerCase() + "@example.com")
+                .phone(crn)
+                .status(Status.APPROVED)
+                .build());
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            accounts.add(accountRepo.save(Account.builder()
+                    .accountNumber(String.valueOf(ThreadLocalRandom.current().nextLong(100_000_000_000L, 999_999_999_999L)))
+                    .balance(new BigDecimal("10000.00"))
+                    .owner(owner)
+                    .type(AccountType.CURRENT)
+                    .build()));
+        }
+        return accounts;
+    }
+}
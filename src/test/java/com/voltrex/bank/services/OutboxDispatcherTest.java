@@ -0,0 +1,169 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.entities.OutboxMessage;
+import com.voltrex.bank.entities.OutboxStatus;
+import com.voltrex.bank.entities.Status;
+import com.voltrex.bank.entities.User;
+import com.voltrex.bank.repositories.OutboxMessageRepository;
+import com.voltrex.bank.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Delivery retries with backoff until max-attempts, and approval emails get their temporary password
+ * at send time so it is never stored in outbox_message. The poller is effectively off and backoff is
+ * zero, so each dispatch() call below is exactly one attempt.
+ */
+@SpringBootTest(properties = {
+        "outbox.poll-interval-ms=3600000",
+        "outbox.backoff-seconds=0",
+        "outbox.max-attempts=3",
+        "management.health.mail.enabled=false"
+})
+class OutboxDispatcherTest {
+
+    private static final Pattern PASSWORD = Pattern.compile("Temporary Password: (\\S+)");
+
+    @MockitoBean JavaMailSender mailSender;
+    @Autowired OutboxDispatcher dispatcher;
+    @Autowired OutboxService outboxService;
+    @Autowired OutboxMessageRepository outboxRepo;
+    @Autowired UserService userService;
+    @Autowired UserRepository userRepo;
+    @Autowired PasswordEncoder passwordEncoder;
+
+    @Test
+    void failedSendIsRetriedThenDeleted() {
+        String to = recipient();
+        outboxService.enqueue(new Object(), to, "Hello", "body");
+        doThrow(new MailSendException("smtp down")).when(mailSender).send(to(to));
+
+        dispatcher.dispatch();
+        OutboxMessage row = only(to);
+        assertEquals(OutboxStatus.PENDING, row.getStatus());
+        assertEquals(1, row.getAttempts());
+        assertEquals("smtp down", row.getLastError());
+
+        reset(mailSender);
+        dispatcher.dispatch();
+        assertTrue(outboxRepo.findAll().stream().noneMatch(m -> m.getRecipient().equals(to)));
+    }
+
+    @Test
+    void messageIsMarkedFailedAfterMaxAttempts() {
+        String to = recipient();
+        outboxService.enqueue(new Object(), to, "Hello", "body");
+        doThrow(new MailSendException("smtp down")).when(mailSender).send(to(to));
+
+        for (int i = 0; i < 5; i++) dispatcher.dispatch();
+
+        OutboxMessage row = only(to);
+        assertEquals(OutboxStatus.FAILED, row.getStatus());
+        assertEquals(3, row.getAttempts());
+        verify(mailSender, times(3)).send(to(to));
+    }
+
+    @Test
+    void approvalEmailPasswordIsIssuedAtSendTime() {
+        User user = pendingUser();
+        userService.approveUser(user.getId(), "admin");
+
+        OutboxMessage queued = only(user.getEmail());
+        assertEquals(user.getId(), queued.getCredentialUserId());
+        assertTrue(queued.getBody().contains("Temporary Password: " + OutboxMessage.TEMP_PASSWORD));
+        assertNull(userRepo.findById(user.getId()).orElseThrow().getPassword());
+
+        dispatcher.dispatch();
+
+        String password = sentPassword(user.getEmail());
+        assertTrue(passwordEncoder.matches(password, userRepo.findById(user.getId()).orElseThrow().getPassword()));
+        assertTrue(outboxRepo.findAll().stream().noneMatch(m -> m.getRecipient().equals(user.getEmail())));
+    }
+
+    @Test
+    void failedApprovalEmailKeepsNoPassword() {
+        User user = pendingUser();
+        userService.approveUser(user.getId(), "admin");
+        doThrow(new MailSendException("smtp down")).when(mailSender).send(to(user.getEmail()));
+
+        dispatcher.dispatch();
+
+        OutboxMessage row = only(user.getEmail());
+        assertEquals(1, row.getAttempts());
+        assertFalse(row.getBody().contains(sentPassword(user.getEmail())));
+        assertTrue(row.getBody().contains(OutboxMessage.TEMP_PASSWORD));
+
+        // the retry hands out a new password; the one from the failed attempt no longer works
+        String first = sentPassword(user.getEmail());
+        reset(mailSender);
+        dispatcher.dispatch();
+        String second = sentPassword(user.getEmail());
+        assertNotEquals(first, second);
+        String hash = userRepo.findById(user.getId()).orElseThrow().getPassword();
+        assertTrue(passwordEncoder.matches(second, hash));
+        assertFalse(passwordEncoder.matches(first, hash));
+    }
+
+    private OutboxMessage only(String recipient) {
+        List<OutboxMessage> rows = outboxRepo.findAll().stream()
+                .filter(m -> m.getRecipient().equals(recipient))
+                .toList();
+        assertEquals(1, rows.size());
+        return rows.get(0);
+    }
+
+    private String sentPassword(String recipient) {
+        ArgumentCaptor<SimpleMailMessage> sent = ArgumentCaptor.forClass(SimpleMailMessage.class);
+        verify(mailSender, atLeastOnce()).send(sent.capture());
+        SimpleMailMessage last = sent.getAllValues().stream()
+                .filter(m -> m.getTo()[0].equals(recipient))
+                .reduce((a, b) -> b)
+                .orElseThrow();
+        Matcher m = PASSWORD.matcher(last.getText());
+        assertTrue(m.find());
+        return m.group(1);
+    }
+
+    private static SimpleMailMessage to(String recipient) {
+        return argThat((SimpleMailMessage m) -> m != null && m.getTo()[0].equals(recipient));
+    }
+
+    private static String recipient() {
+        return "outbox" + ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999) + "@example.com";
+    }
+
+    private User pendingUser() {
+        String phone = "P" + ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999);
+        return userRepo.save(User.builder()
+                .firstName("Olive")
+                .lastName("Outbox")
+                .email(phone.toLowerCase() + "@example.com")
+                .phone(phone)
+                .status(Status.PENDING)
+                .build());
+    }
+}
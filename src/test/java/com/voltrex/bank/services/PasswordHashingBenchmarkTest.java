@@ -0,0 +1,121 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.Benchmarks;
+import com.voltrex.bank.dto.AuthenticatedUser;
+import com.voltrex.bank.dto.LoginRequest;
+import com.voltrex.bank.dto.TransferByAccountRequest;
+import com.voltrex.bank.entities.Account;
+import com.voltrex.bank.entities.AccountType;
+import com.voltrex.bank.entities.Status;
+import com.voltrex.bank.entities.TransactionType;
+import com.voltrex.bank.entities.User;
+import com.voltrex.bank.exception.HashingBusyException;
+import com.voltrex.bank.repositories.AccountRepository;
+import com.voltrex.bank.repositories.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transfer latency on its own and while a login burst runs next to it. Logins hash on the bounded
+ * pool (auth.hashing.*), so the burst is throttled there and rejected fast once the queue is full,
+ * instead of taking the CPU the transfers need. Login outcomes are reported by status; "429" is a
+ * HashingBusyException, which GlobalExceptionHandler turns into 429 over HTTP.
+ */
+@Tag(Benchmarks.TAG)
+@SpringBootTest
+class PasswordHashingBenchmarkTest {
+
+    private static final String PASSWORD = "Secret123!";
+    private static final int PAIRS = 8;
+    private static final int TRANSFERS = 400;
+    private static final int LOGIN_CLIENTS = 64;
+    private static final int LOGINS = 640;
+
+    @Autowired AuthService authService;
+    @Autowired TransferExecutor executor;
+    @Autowired TransferService transferService;
+    @Autowired PasswordEncoder passwordEncoder;
+    @Autowired UserRepository userRepo;
+    @Autowired AccountRepository accountRepo;
+
+    @Test
+    void transferLatencyDuringLoginBurst() {
+        List<Account[]> pairs = new ArrayList<>();
+        for (int i = 0; i < PAIRS; i++) pairs.add(new Account[]{account(user("Sender")), account(user("Receiver"))});
+        User login = user("Login");
+        login.setPassword(passwordEncoder.encode(PASSWORD));
+        userRepo.save(login);
+        Map<String, AtomicInteger> outcomes = new ConcurrentHashMap<>();
+
+        Benchmarks.run("warmup", PAIRS, TRANSFERS / 4, i -> pay(pairs.get(i % PAIRS)));
+        Benchmarks.run("warmup", 4, 8, i -> login(login, new ConcurrentHashMap<>()));
+
+        Benchmarks.Result alone = Benchmarks.run("transfers alone", PAIRS, TRANSFERS, i -> pay(pairs.get(i % PAIRS)));
+
+        CompletableFuture<Benchmarks.Result> burst = CompletableFuture.supplyAsync(() ->
+                Benchmarks.run("logins", LOGIN_CLIENTS, LOGINS, i -> login(login, outcomes)));
+        Benchmarks.Result contended = Benchmarks.run("transfers during login burst", PAIRS, TRANSFERS, i -> pay(pairs.get(i % PAIRS)));
+        Benchmarks.Result logins = burst.join();
+
+        Benchmarks.report(PAIRS + " transfer threads, " + LOGIN_CLIENTS + " login threads, login outcomes " + outcomes,
+                alone, contended, logins);
+    }
+
+    private void login(User user, Map<String, AtomicInteger> outcomes) {
+        LoginRequest req = new LoginRequest();
+        req.setCrn(user.getCrn());
+        req.setPassword(PASSWORD);
+        String outcome;
+        try {
+            outcome = String.valueOf(authService.login(req).getStatusCode().value());
+        } catch (HashingBusyException ex) {
+            outcome = "429";
+        }
+        outcomes.computeIfAbsent(outcome, o -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private void pay(Account[] pair) {
+        Account from = pair[0];
+        Account to = pair[1];
+        TransferByAccountRequest req = new TransferByAccountRequest();
+        req.setFromAccountNumber(from.getAccountNumber());
+        req.setToAccountNumber(to.getAccountNumber());
+        req.setToAccountName(to.getOwner().getFirstName() + " " + to.getOwner().getLastName());
+        req.setAmount(BigDecimal.ONE);
+        req.setType(TransactionType.Transfer);
+        executor.execute(() -> transferService.transferByAccount(req, AuthenticatedUser.from(from.getOwner())));
+    }
+
+    private User user(String firstName) {
+        String crn = "H" + ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999);
+        return userRepo.save(User.builder()
+                .crn(crn)
+                .firstName(firstName)
+                .lastName("Bench")
+                .email(crn.toLowerCase() + "@example.com")
+                .phone(crn)
+                .status(Status.APPROVED)
+                .build());
+    }
+
+    private Account account(User owner) {
+        return accountRepo.save(Account.builder()
+                .accountNumber(String.valueOf(ThreadLocalRandom.current().nextLong(100_000_000_000L, 999_999_999_999L)))
+                .balance(new BigDecimal("10000.00"))
+                .owner(owner)
+                .type(AccountType.CURRENT)
+                .build());
+    }
+}
@@ -0,0 +1,45 @@
+package com.voltrex.bank.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Buckets admit their capacity and then report how long to wait; a stripe full of active buckets
+ * still admits new keys, evicting the bucket closest to refilled.
+ */
+class RateLimiterTest {
+
+    @Test
+    void admitsCapacityThenRejectsWithWait() {
+        RateLimiter.Limit limit = limiter(100_000, "3/1m").loginCrn();
+
+        for (int i = 0; i < 3; i++) assertEquals(0, limit.tryAcquire("CRN1"));
+        long wait = limit.tryAcquire("CRN1");
+
+        assertTrue(wait > 0 && wait <= TimeUnit.SECONDS.toNanos(20), "wait " + wait);
+        assertEquals(0, limit.tryAcquire("CRN2"));
+    }
+
+    @Test
+    void fullStripesAdmitNewKeysAndKeepTheMostUsedBuckets() {
+        // max-keys 0 leaves the minimum of 16 buckets in each of the 64 stripes
+        RateLimiter.Limit limit = limiter(0, "3/1h").loginCrn();
+        for (int i = 0; i < 3; i++) assertEquals(0, limit.tryAcquire("victim"));
+
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(0, limit.tryAcquire("key-" + i), "key-" + i);
+        }
+
+        // the sprayed keys each used one token, so they were evicted before the exhausted bucket
+        assertTrue(limit.tryAcquire("victim") > 0);
+    }
+
+    private static RateLimiter limiter(int maxKeys, String loginCrn) {
+        return new RateLimiter(new SimpleMeterRegistry(), true, maxKeys, "30/1m", loginCrn, "60/1m", "300/1m");
+    }
+}
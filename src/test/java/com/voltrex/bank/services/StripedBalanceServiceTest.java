@@ -0,0 +1,197 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.dto.AuthenticatedUser;
+import com.voltrex.bank.dto.TransferByAccountRequest;
+import com.voltrex.bank.entities.Account;
+import com.voltrex.bank.entities.AccountSummary;
+import com.voltrex.bank.entities.AccountType;
+import com.voltrex.bank.entities.Status;
+import com.voltrex.bank.entities.TransactionType;
+import com.voltrex.bank.entities.User;
+import com.voltrex.bank.repositories.AccountRepository;
+import com.voltrex.bank.repositories.AccountSummaryRepository;
+import com.voltrex.bank.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Stripe credits are folded into the balance and booked as deposits of the day they were credited.
+ * Credits touch no row of the receiver while they commit, so they do not wait for each other; the
+ * receiver's summary and change version move with the fold.
+ */
+@SpringBootTest(properties = "account.striping.consolidate-interval-ms=3600000")
+class StripedBalanceServiceTest {
+
+    @Autowired StripedBalanceService stripes;
+    @Autowired DailyUsageService dailyUsage;
+    @Autowired ChangeVersionService changeVersions;
+    @Autowired AccountSummaryService summaries;
+    @Autowired TransferService transferService;
+    @Autowired UserRepository userRepo;
+    @Autowired AccountRepository accountRepo;
+    @Autowired AccountSummaryRepository summaryRepo;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void foldedCreditsAreBookedOnTheirCreditDay() {
+        Account receiver = account(user());
+        long sender = account(user()).getId();
+        LocalDate today = LocalDate.now();
+        LocalDate yesterday = today.minusDays(1);
+        stripes.configure(receiver.getAccountNumber(), 2);
+        // refreshes the striped-account view
+        stripes.consolidateAll();
+        TransactionTemplate tt = new TransactionTemplate(txManager);
+
+        tt.executeWithoutResult(status -> stripes.credit(receiver.getId(), new BigDecimal("5.00"), sender));
+        // pretend the credit landed before midnight and has not been folded yet
+        jdbc.update("UPDATE account_balance_stripe SET credit_date = ? WHERE account_id = ? AND amount <> 0", yesterday, receiver.getId());
+        // the same stripe cannot take today's credit until it is folded, so this one goes to the row
+        tt.executeWithoutResult(status -> stripes.credit(receiver.getId(), new BigDecimal("7.00"), sender));
+
+        assertAmount("0", dailyUsage.depositedOn(receiver.getId(), yesterday));
+        assertAmount("7.00", dailyUsage.depositedOn(receiver.getId(), today));
+
+        stripes.consolidateAll();
+
+        assertAmount("5.00", dailyUsage.depositedOn(receiver.getId(), yesterday));
+        assertAmount("7.00", dailyUsage.depositedOn(receiver.getId(), today));
+        assertAmount("1012.00", accountRepo.findById(receiver.getId()).orElseThrow().getBalance());
+        assertAmount("0", stripes.stripedAmount(receiver.getId()));
+    }
+
+    @Test
+    void stripeCreditBumpsTheReceiverWhenFolded() {
+        Account receiver = account(user());
+        Account sender = account(user());
+        Long owner = receiver.getOwner().getId();
+        stripes.configure(receiver.getAccountNumber(), 4);
+        stripes.consolidateAll();
+        long before = changeVersions.current(owner);
+
+        pay(sender, receiver, "10.00");
+        assertEquals(before, changeVersions.current(owner));
+
+        stripes.consolidateAll();
+        assertEquals(before + 1, changeVersions.current(owner));
+    }
+
+    @Test
+    void stripeCreditsToOneAccountDoNotWaitForEachOther() throws Exception {
+        Account receiver = account(user());
+        stripes.configure(receiver.getAccountNumber(), 16);
+        stripes.consolidateAll();
+        summaries.summariesFor(receiver.getOwner().getId(), List.of(receiver));
+        // two senders whose credits land on different stripes
+        Account first = account(user());
+        Account second = account(user());
+        while (stripeOf(second, 16) == stripeOf(first, 16)) second = account(user());
+        Account other = second;
+
+        CountDownLatch committing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> held = CompletableFuture.runAsync(() -> new TransactionTemplate(txManager).executeWithoutResult(status -> {
+            pay(first, receiver, "10.00");
+            // registered last, so it runs after the services' own before-commit work
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    committing.countDown();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }));
+        assertTrue(committing.await(5, TimeUnit.SECONDS));
+
+        // the second credit commits while the first is still committing
+        CompletableFuture.runAsync(() -> pay(other, receiver, "20.00")).get(5, TimeUnit.SECONDS);
+        release.countDown();
+        held.get(5, TimeUnit.SECONDS);
+
+        assertAmount("0", summaryRepo.findById(receiver.getId()).orElseThrow().getMonthIn());
+        stripes.consolidateAll();
+
+        AccountSummary summary = summaryRepo.findById(receiver.getId()).orElseThrow();
+        assertAmount("30.00", summary.getMonthIn());
+        assertAmount("1030.00", summary.getBalance());
+        assertTrue(summary.getLastReferenceNumber() != null);
+    }
+
+    @Test
+    void summaryBuiltFromLedgerCountsStripeCreditsOnce() {
+        Account receiver = account(user());
+        Account sender = account(user());
+        stripes.configure(receiver.getAccountNumber(), 4);
+        stripes.consolidateAll();
+        pay(sender, receiver, "10.00");
+
+        // the first read builds the summary from the ledger while the credit still sits on a stripe
+        AccountSummary built = summaries.summariesFor(receiver.getOwner().getId(), List.of(receiver)).get(receiver.getId());
+        assertAmount("0", built.getMonthIn());
+        stripes.consolidateAll();
+
+        assertAmount("10.00", summaryRepo.findById(receiver.getId()).orElseThrow().getMonthIn());
+    }
+
+    // the stripe StripedBalanceService.credit picks for a sender
+    private static int stripeOf(Account sender, int stripes) {
+        return Math.floorMod(Long.hashCode(sender.getId() * 0x9E3779B97F4A7C15L), stripes);
+    }
+
+    private void pay(Account from, Account to, String amount) {
+        TransferByAccountRequest req = new TransferByAccountRequest();
+        req.setFromAccountNumber(from.getAccountNumber());
+        req.setToAccountNumber(to.getAccountNumber());
+        req.setToAccountName(to.getOwner().getFirstName() + " " + to.getOwner().getLastName());
+        req.setAmount(new BigDecimal(amount));
+        req.setType(TransactionType.Transfer);
+        transferService.transferByAccount(req, AuthenticatedUser.from(from.getOwner()));
+    }
+
+    private static void assertAmount(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual), () -> expected + " != " + actual);
+    }
+
+    private User user() {
+        String crn = "S" + ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999);
+        return userRepo.save(User.builder()
+                .crn(crn)
+                .firstName("Stella")
+                .lastName("Stripe")
+                .email(crn.toLowerCase() + "@example.com")
+                .phone(crn)
+                .status(Status.APPROVED)
+                .build());
+    }
+
+    private Account account(User owner) {
+        return accountRepo.save(Account.builder()
+                .accountNumber(String.valueOf(ThreadLocalRandom.current().nextLong(100_000_000_000L, 999_999_999_999L)))
+                .balance(new BigDecimal("1000.00"))
+                .owner(owner)
+                .type(AccountType.CURRENT)
+                .build());
+    }
+}
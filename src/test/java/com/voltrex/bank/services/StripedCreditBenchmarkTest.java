@@ -0,0 +1,100 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.Benchmarks;
+import com.voltrex.bank.dto.AuthenticatedUser;
+import com.voltrex.bank.dto.TransferByAccountRequest;
+import com.voltrex.bank.entities.Account;
+import com.voltrex.bank.entities.AccountType;
+import com.voltrex.bank.entities.Status;
+import com.voltrex.bank.entities.TransactionType;
+import com.voltrex.bank.entities.User;
+import com.voltrex.bank.repositories.AccountRepository;
+import com.voltrex.bank.repositories.UserRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Credit throughput into one hot receiver by stripe count: 16 senders pay the same account
+ * concurrently, first on its row (K=0), then spread over K stripes. The logical balance is checked
+ * after each run so the numbers are only reported for runs that lost nothing.
+ */
+@Tag(Benchmarks.TAG)
+@SpringBootTest(properties = {
+        "account.striping.consolidate-interval-ms=3600000",
+        // H2 emulates the summaries' ON CONFLICT DO NOTHING by catching the key violation, which is
+        // logged first; concurrent first credits to a striped receiver hit it routinely
+        "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF"
+})
+class StripedCreditBenchmarkTest {
+
+    private static final int SENDERS = 16;
+    private static final int TRANSFERS = 800;
+
+    @Autowired StripedBalanceService stripes;
+    @Autowired TransferExecutor executor;
+    @Autowired TransferService transferService;
+    @Autowired UserRepository userRepo;
+    @Autowired AccountRepository accountRepo;
+
+    @Test
+    void creditThroughputByStripeCount() {
+        List<Benchmarks.Result> results = new ArrayList<>();
+        for (int k : new int[]{0, 4, 16}) {
+            Account receiver = account(user("Hot"), "0.00");
+            List<Account> senders = new ArrayList<>();
+            for (int i = 0; i < SENDERS; i++) senders.add(account(user("Payer"), "10000.00"));
+            stripes.configure(receiver.getAccountNumber(), k);
+            // refreshes the striped-account view
+            stripes.consolidateAll();
+
+            Benchmarks.run("warmup", SENDERS, SENDERS, i -> pay(senders.get(i), receiver));
+            results.add(Benchmarks.run("K=" + k, SENDERS, TRANSFERS, i -> pay(senders.get(i % SENDERS), receiver)));
+
+            stripes.consolidateAll();
+            BigDecimal balance = accountRepo.findById(receiver.getId()).orElseThrow().getBalance();
+            assertEquals(0, BigDecimal.valueOf(SENDERS + TRANSFERS).compareTo(balance), "K=" + k + ": " + balance);
+        }
+        Benchmarks.report("transfers into one receiver from " + SENDERS + " threads, by stripe count",
+                results.toArray(Benchmarks.Result[]::new));
+    }
+
+    private void pay(Account from, Account to) {
+        TransferByAccountRequest req = new TransferByAccountRequest();
+        req.setFromAccountNumber(from.getAccountNumber());
+        req.setToAccountNumber(to.getAccountNumber());
+        req.setToAccountName(to.getOwner().getFirstName() + " " + to.getOwner().getLastName());
+        req.setAmount(BigDecimal.ONE);
+        req.setType(TransactionType.Transfer);
+        executor.execute(() -> transferService.transferByAccount(req, AuthenticatedUser.from(from.getOwner())));
+    }
+
+    private User user(String firstName) {
+        String crn = "B" + ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999);
+        return userRepo.save(User.builder()
+                .crn(crn)
+                .firstName(firstName)
+                .lastName("Bench")
+                .email(crn.toLowerCase() + "@example.com")
+                .phone(crn)
+                .status(Status.APPROVED)
+                .build());
+    }
+
+    private Account account(User owner, String balance) {
+        return accountRepo.save(Account.builder()
+                .accountNumber(String.valueOf(ThreadLocalRandom.current().nextLong(100_000_000_000L, 999_999_999_999L)))
+                .balance(new BigDecimal(balance))
+                .owner(owner)
+                .type(AccountType.CURRENT)
+                .build());
+    }
+}
@@ -0,0 +1,230 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.dto.TransactionCursorPage;
+import com.voltrex.bank.dto.TransactionResponse;
+import com.voltrex.bank.entities.Account;
+import com.voltrex.bank.entities.AccountType;
+import com.voltrex.bank.entities.Status;
+import com.voltrex.bank.entities.Transaction;
+import com.voltrex.bank.entities.TransactionType;
+import com.voltrex.bank.entities.User;
+import com.voltrex.bank.repositories.AccountRepository;
+import com.voltrex.bank.repositories.TransactionRepository;
+import com.voltrex.bank.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * History ranges that cross the archive boundary: offset pages in either direction and keyset pages
+ * read the hot rows and the archived days as one list. Three days past the horizon are archived once
+ * for the class, plus two months of a busier user whose pages must read only the days they return;
+ * the context has its own archive dir, so no other test sees a boundary.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TransactionArchiveServiceTest {
+
+    @DynamicPropertySource
+    static void archiveDir(DynamicPropertyRegistry registry) {
+        try {
+            registry.add("archive.dir", Files.createTempDirectory("archive-test")::toString);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Autowired TransactionArchiveService archive;
+    @Autowired TransactionService transactionService;
+    @Autowired UserRepository userRepo;
+    @Autowired AccountRepository accountRepo;
+    @Autowired TransactionRepository txnRepo;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired MeterRegistry registry;
+
+    private static final int BUSY_DAYS = 60;
+    private static final int BUSY_ROWS_PER_DAY = 3;
+
+    private User user;
+    // every row of the user's history, newest first
+    private final List<Long> newestFirst = new ArrayList<>();
+    private User busy;
+    private final List<Long> busyNewestFirst = new ArrayList<>();
+
+    @BeforeAll
+    void archiveOldDays() {
+        user = user();
+        Account a = account(user);
+        Account b = account(user);
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        // hot: the last few days
+        for (int d = 1; d <= 3; d++) newestFirst.add(transaction(a, b, now.minusDays(d)));
+        // cold: two rows on each of three days past the 365-day horizon
+        for (int d = 400; d <= 402; d++) {
+            newestFirst.add(transaction(b, a, now.minusDays(d).withHour(15)));
+            newestFirst.add(transaction(a, b, now.minusDays(d).withHour(9)));
+        }
+
+        busy = user();
+        Account c = account(busy);
+        Account d = account(busy);
+        for (int day = 1; day <= 2; day++) busyNewestFirst.add(transaction(c, d, now.minusDays(day)));
+        for (int day = 403; day < 403 + BUSY_DAYS; day++) {
+            for (int h = BUSY_ROWS_PER_DAY; h > 0; h--) busyNewestFirst.add(transaction(c, d, now.minusDays(day).withHour(h * 5)));
+        }
+
+        int archived = 0;
+        for (int n = archive.archiveDue(); n > 0; n = archive.archiveDue()) archived += n;
+        assertEquals(3 + BUSY_DAYS, archived);
+        assertEquals(now.minusDays(400).toLocalDate().plusDays(1).atStartOfDay(), archive.boundary());
+        assertEquals(3, txnRepo.countForUserBetween(user.getId(), LocalDate.of(1970, 1, 1).atStartOfDay(), now));
+    }
+
+    @Test
+    void offsetPagesNewestFirstSpanHotAndArchivedRows() {
+        List<Long> paged = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            Page<TransactionResponse> p = transactionService.getTransactionsForUser(user.getId(), from(), LocalDateTime.now(),
+                    page, 4, "executedAt", Sort.Direction.DESC);
+            assertEquals(9, p.getTotalElements());
+            paged.addAll(p.getContent().stream().map(TransactionResponse::getId).toList());
+        }
+        assertEquals(newestFirst, paged);
+    }
+
+    @Test
+    void offsetPagesOldestFirstSpanArchivedAndHotRows() {
+        List<Long> paged = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            paged.addAll(transactionService.getTransactionsForUser(user.getId(), from(), LocalDateTime.now(),
+                    page, 4, "executedAt", Sort.Direction.ASC).getContent().stream().map(TransactionResponse::getId).toList());
+        }
+        List<Long> oldestFirst = new ArrayList<>(newestFirst);
+        Collections.reverse(oldestFirst);
+        assertEquals(oldestFirst, paged);
+    }
+
+    @Test
+    void cursorPagesContinueIntoTheArchive() {
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionCursorPage page = transactionService.getTransactionsForUserAfter(user.getId(), from(), LocalDateTime.now(), cursor, 4);
+            walked.addAll(page.transactions().stream().map(TransactionResponse::getId).toList());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        assertEquals(newestFirst, walked);
+    }
+
+    @Test
+    void pagesDeepInALargeArchiveReadOnlyTheDaysTheyReturn() {
+        // a page of 4 (plus the look-ahead row) spans at most three days, each read as two account blocks
+        int maxBlocks = 3 * 2;
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            double before = blocksRead();
+            TransactionCursorPage page = transactionService.getTransactionsForUserAfter(busy.getId(), from(), LocalDateTime.now(), cursor, 4);
+            assertTrue(blocksRead() - before <= maxBlocks, () -> "cursor page read " + (blocksRead() - before) + " blocks");
+            walked.addAll(page.transactions().stream().map(TransactionResponse::getId).toList());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        assertEquals(busyNewestFirst, walked);
+
+        int total = busyNewestFirst.size();
+        for (Sort.Direction direction : Sort.Direction.values()) {
+            int page = total / 4 - 5;
+            double before = blocksRead();
+            Page<TransactionResponse> p = transactionService.getTransactionsForUser(busy.getId(), from(), LocalDateTime.now(),
+                    page, 4, "executedAt", direction);
+            assertTrue(blocksRead() - before <= maxBlocks, () -> direction + " offset page read " + (blocksRead() - before) + " blocks");
+            assertEquals(total, p.getTotalElements());
+            List<Long> expected = new ArrayList<>(busyNewestFirst);
+            if (direction == Sort.Direction.ASC) Collections.reverse(expected);
+            assertEquals(expected.subList(page * 4, page * 4 + 4), p.getContent().stream().map(TransactionResponse::getId).toList());
+        }
+    }
+
+    @Test
+    void archivedRowsKeepTheirDirection() {
+        List<TransactionResponse> cold = archive.findForUser(user.getId(), from(), LocalDateTime.now());
+        assertEquals(6, cold.size());
+        cold.forEach(t -> assertEquals("INTERNAL", t.getDirection()));
+    }
+
+    @Test
+    void rangesIntoTheArchiveOnlySortByExecutedAt() {
+        assertThrows(IllegalArgumentException.class, () -> transactionService.getTransactionsForUser(
+                user.getId(), from(), LocalDateTime.now(), 0, 4, "amount", Sort.Direction.DESC));
+    }
+
+    private double blocksRead() {
+        return registry.get("bank.archive.blocks.read").counter().count();
+    }
+
+    private static LocalDateTime from() {
+        return LocalDateTime.now().minusDays(500);
+    }
+
+    private long transaction(Account from, Account to, LocalDateTime executedAt) {
+        Transaction tx = txnRepo.save(Transaction.builder()
+                .referenceNumber(UUID.randomUUID().toString())
+                .amount(new BigDecimal("1.00"))
+                .fromAccount(from)
+                .toAccount(to)
+                .fromOwnerId(from.getOwner().getId())
+                .toOwnerId(to.getOwner().getId())
+                .type(TransactionType.Transfer)
+                .status("COMPLETED")
+                .build());
+        // executed_at is a creation timestamp, so backdate it directly
+        jdbc.update("UPDATE transaction_record SET executed_at = ? WHERE id = ?", executedAt, tx.getId());
+        return tx.getId();
+    }
+
+    private User user() {
+        String crn = "A" + ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999);
+        return userRepo.save(User.builder()
+                .crn(crn)
+                .firstName("Arlo")
+                .lastName("Archive")
+                .email(crn.toLowerCase() + "@example.com")
+                .phone(crn)
+                .status(Status.APPROVED)
+                .build());
+    }
+
+    private Account account(User owner) {
+        return accountRepo.save(Account.builder()
+                .accountNumber(String.valueOf(ThreadLocalRandom.current().nextLong(100_000_000_000L, 999_999_999_999L)))
+                .balance(new BigDecimal("1000.00"))
+                .owner(owner)
+                .type(AccountType.CURRENT)
+                .build());
+    }
+}
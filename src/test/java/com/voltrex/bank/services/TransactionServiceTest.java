@@ -0,0 +1,170 @@
+package com.voltrex.bank.services;
+
+import com.voltrex.bank.dto.TransactionCursorPage;
+import com.voltrex.bank.dto.TransactionResponse;
+import com.voltrex.bank.entities.Account;
+import com.voltrex.bank.entities.AccountType;
+import com.voltrex.bank.entities.Status;
+import com.voltrex.bank.entities.Transaction;
+import com.voltrex.bank.entities.TransactionType;
+import com.voltrex.bank.entities.User;
+import com.voltrex.bank.repositories.AccountRepository;
+import com.voltrex.bank.repositories.TransactionRepository;
+import com.voltrex.bank.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Keyset pages walk the history newest first on (executedAt, id): rows sharing a timestamp are split
+ * across pages by id without gaps or repeats, rows added after the first page do not shift later
+ * pages, and the last page has no nextCursor.
+ */
+@SpringBootTest
+class TransactionServiceTest {
+
+    @Autowired TransactionService transactionService;
+    @Autowired UserRepository userRepo;
+    @Autowired AccountRepository accountRepo;
+    @Autowired TransactionRepository txnRepo;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void cursorWalkVisitsEveryRowOnceNewestFirst() {
+        User user = user();
+        Account a = account(user);
+        Account b = account(user);
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusDays(2);
+        List<Long> ids = new ArrayList<>();
+        // three rows share a timestamp so a page boundary falls between them
+        for (int i = 0; i < 4; i++) ids.add(transaction(a, b, base.minusHours(i)));
+        for (int i = 0; i < 3; i++) ids.add(transaction(b, a, base.minusMinutes(90)));
+
+        List<Long> walked = walk(user, 3, null);
+
+        assertEquals(expectedOrder(ids), walked);
+    }
+
+    @Test
+    void newerRowsDoNotShiftLaterPages() {
+        User user = user();
+        Account a = account(user);
+        Account b = account(user);
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusDays(1);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) ids.add(transaction(a, b, base.minusHours(i)));
+        LocalDateTime to = LocalDateTime.now();
+        LocalDateTime from = to.minusDays(30);
+
+        TransactionCursorPage first = transactionService.getTransactionsForUserAfter(user.getId(), from, to, null, 2);
+        transaction(a, b, to.minusMinutes(1));
+        TransactionCursorPage second = transactionService.getTransactionsForUserAfter(user.getId(), from, to, first.nextCursor(), 2);
+
+        List<Long> expected = expectedOrder(ids);
+        assertEquals(expected.subList(0, 2), ids(first));
+        assertEquals(expected.subList(2, 4), ids(second));
+    }
+
+    @Test
+    void firstPageFromFeedCacheContinuesIntoDatabasePages() {
+        User user = user();
+        Account a = account(user);
+        Account b = account(user);
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusDays(3);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) ids.add(transaction(a, b, base.minusHours(i)));
+
+        TransactionCursorPage first = transactionService.getRecentTransactionsForUserFirst(user.getId(), 2);
+        assertNotNull(first.nextCursor());
+
+        List<Long> walked = new ArrayList<>(ids(first));
+        walked.addAll(walk(user, 2, first.nextCursor()));
+        assertEquals(expectedOrder(ids), walked);
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        LocalDateTime to = LocalDateTime.now();
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionService.getTransactionsForUserAfter(1L, to.minusDays(1), to, "not-a-cursor", 10));
+    }
+
+    // follows nextCursor from the given one to the end, checking every full page's size on the way
+    private List<Long> walk(User user, int size, String cursor) {
+        LocalDateTime to = LocalDateTime.now();
+        LocalDateTime from = to.minusDays(30);
+        List<Long> walked = new ArrayList<>();
+        TransactionCursorPage page;
+        do {
+            page = transactionService.getTransactionsForUserAfter(user.getId(), from, to, cursor, size);
+            if (page.nextCursor() != null) assertEquals(size, page.transactions().size());
+            walked.addAll(ids(page));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        assertNull(page.nextCursor());
+        return walked;
+    }
+
+    private List<Long> expectedOrder(List<Long> ids) {
+        return txnRepo.findAllById(ids).stream()
+                .sorted(Comparator.comparing(Transaction::getExecutedAt).thenComparing(Transaction::getId).reversed())
+                .map(Transaction::getId)
+                .toList();
+    }
+
+    private static List<Long> ids(TransactionCursorPage page) {
+        return page.transactions().stream().map(TransactionResponse::getId).toList();
+    }
+
+    private long transaction(Account from, Account to, LocalDateTime executedAt) {
+        Transaction tx = txnRepo.save(Transaction.builder()
+                .referenceNumber(UUID.randomUUID().toString())
+                .amount(new BigDecimal("1.00"))
+                .fromAccount(from)
+                .toAccount(to)
+                .fromOwnerId(from.getOwner().getId())
+                .toOwnerId(to.getOwner().getId())
+                .type(TransactionType.Transfer)
+                .status("COMPLETED")
+                .build());
+        // executed_at is a creation timestamp, so backdate it directly
+        jdbc.update("UPDATE transaction_record SET executed_at = ? WHERE id = ?", executedAt, tx.getId());
+        return tx.getId();
+    }
+
+    private User user() {
+        String crn = "C" + ThreadLocalRandom.current().nextInt(100_000_000, 999_999_999);
+        return userRepo.save(User.builder()
+                .crn(crn)
+                .firstName("Cora")
+                .lastName("Cursor")
+                .email(crn.toLowerCase() + "@example.com")
+                .phone(crn)
+                .status(Status.APPROVED)
+                .build());
+    }
+
+    private Account account(User owner) {
+        return accountRepo.save(Account.builder()
+                .accountNumber(String.valueOf(ThreadLocalRandom.current().nextLong(100_000_000_000L, 999_999_999_999L)))
+                .balance(new BigDecimal("1000.00"))
+                .owner(owner)
+                .type(AccountType.CURRENT)
+                .build());
+    }
+}